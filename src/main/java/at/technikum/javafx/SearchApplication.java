@@ -9,12 +9,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Locale;
 
 public class SearchApplication extends Application {
@@ -22,10 +20,6 @@ public class SearchApplication extends Application {
     private static final Logger log = LoggerFactory.getLogger(SearchApplication.class);
     private static HostServices hostServices;
 
-    private static final Path leafletDir = Paths.get(
-            System.getProperty("user.home"), ".tourplanner", "leaflet"
-    );
-
     @Override
     public void start(Stage stage) {
         Path logsDir = Paths.get(System.getProperty("user.dir"), "logs");
@@ -38,21 +32,6 @@ public class SearchApplication extends Application {
         log.info("JavaFX start() called");
         hostServices = getHostServices();
 
-        try {
-            Files.createDirectories(leafletDir);
-            log.debug("Ensured leaflet directory exists at {}", leafletDir);
-
-            try (InputStream in = getClass().getResourceAsStream("/leaflet/leaflet.html")) {
-                if (in == null) {
-                    throw new IOException("Could not find /leaflet/leaflet.html on classpath");
-                }
-                Files.copy(in, leafletDir.resolve("leaflet.html"), StandardCopyOption.REPLACE_EXISTING);
-                log.info("Copied leaflet.html to {}", leafletDir);
-            }
-        } catch (IOException e) {
-            log.error("Failed to prepare leaflet files", e);
-        }
-
         try {
             Parent mainView = FXMLDependencyInjector.load("main-view.fxml", Locale.ENGLISH);
             Scene scene = new Scene(mainView);
@@ -2,6 +2,11 @@ package at.technikum.javafx;
 
 import at.technikum.javafx.event.EventManager;
 import at.technikum.javafx.service.IReportService;
+import at.technikum.javafx.service.IRouteEnrichmentService;
+import at.technikum.javafx.service.IRoutePrefetcher;
+import at.technikum.javafx.service.IRouteService;
+import at.technikum.javafx.service.IRouteThumbnailService;
+import at.technikum.javafx.service.ITileServer;
 import at.technikum.javafx.service.ITourLogService;
 import at.technikum.javafx.service.ITourService;
 import at.technikum.javafx.view.MainView;
@@ -17,18 +22,28 @@ import at.technikum.javafx.viewmodel.SearchViewModel;
 import at.technikum.javafx.viewmodel.TourLogViewModel;
 import at.technikum.javafx.viewmodel.TourViewModel;
 import javafx.fxml.FXMLLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
 
 import java.io.IOException;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.ResourceBundle;
 
 public class ViewFactory {
 
+    private static final Logger log = LoggerFactory.getLogger(ViewFactory.class);
+
     private static ViewFactory instance;
 
     private final EventManager eventManager;
     private final ITourService tourService;
     private final ITourLogService tourLogService;
     private final IReportService reportService;
+    private final IRouteService routeService;
+    private final IRoutePrefetcher routePrefetcher;
+    private final IRouteThumbnailService routeThumbnailService;
 
     private final SearchViewModel searchViewModel;
     private final MenuViewModel menuViewModel;
@@ -41,13 +56,20 @@ public class ViewFactory {
         this.tourService = TourPlannerApplication.getBean(ITourService.class);
         this.tourLogService = TourPlannerApplication.getBean(ITourLogService.class);
         this.reportService = TourPlannerApplication.getBean(IReportService.class);
+        this.routeService = TourPlannerApplication.getBean(IRouteService.class);
+        this.routePrefetcher = TourPlannerApplication.getBean(IRoutePrefetcher.class);
+        this.routeThumbnailService = TourPlannerApplication.getBean(IRouteThumbnailService.class);
+        IRouteEnrichmentService routeEnrichmentService = TourPlannerApplication.getBean(IRouteEnrichmentService.class);
+        ITileServer tileServer = TourPlannerApplication.getBean(ITileServer.class);
+        TourRouteView.MapRenderer mapRenderer = mapRenderer(TourPlannerApplication
+                .getBean(Environment.class).getProperty("tourplanner.map.renderer", "webview"));
 
-        this.searchViewModel = new SearchViewModel(eventManager);
-        this.menuViewModel = new MenuViewModel(tourService, tourLogService, eventManager);
+        this.searchViewModel = new SearchViewModel(eventManager, routeService);
+        this.menuViewModel = new MenuViewModel(tourService, tourLogService, eventManager, routeEnrichmentService);
         this.tourViewModel = new TourViewModel(tourService, tourLogService, eventManager);
         this.tourLogViewModel = new TourLogViewModel(tourLogService, eventManager);
 
-        this.tourRouteView = new TourRouteView(tourViewModel);
+        this.tourRouteView = new TourRouteView(tourViewModel, routeService, tileServer, mapRenderer);
 
         tourViewModel.selectedTourProperty().addListener((obs, oldT, newT) -> {
             if (newT != null) tourLogViewModel.loadLogsForTour(newT);
@@ -55,6 +77,16 @@ public class ViewFactory {
         });
     }
 
+    // A typo in the setting must not keep the app from starting
+    static TourRouteView.MapRenderer mapRenderer(String name) {
+        try {
+            return TourRouteView.MapRenderer.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown tourplanner.map.renderer '{}', using webview", name);
+            return TourRouteView.MapRenderer.WEBVIEW;
+        }
+    }
+
     public static ViewFactory getInstance() {
         if (instance == null) instance = new ViewFactory();
         return instance;
@@ -66,14 +98,16 @@ public class ViewFactory {
                 return new MainView(new MainViewModel(tourService));
             }
             if (TourView.class == viewClass) {
-                return new TourView(tourViewModel);
+                return new TourView(tourViewModel, routeService, routePrefetcher, routeThumbnailService);
             }
             if (TourGeneralView.class == viewClass) {
                 return new TourGeneralView(tourViewModel);
             }
             if (TourRouteView.class == viewClass) {
+                // The view's labels come from the i18n bundle
                 FXMLLoader loader = new FXMLLoader(
-                        Objects.requireNonNull(getClass().getResource("/at/technikum/javafx/tour-route-view.fxml"))
+                        Objects.requireNonNull(getClass().getResource("/at/technikum/javafx/tour-route-view.fxml")),
+                        ResourceBundle.getBundle("at.technikum.javafx.i18n_en", Locale.ENGLISH)
                 );
                 loader.setControllerFactory(type -> {
                     if (type == TourRouteView.class) return tourRouteView;
@@ -95,7 +129,7 @@ public class ViewFactory {
                 );
                 loader.setControllerFactory(type -> {
                     if (type == MenuView.class) {
-                        return new MenuView(menuViewModel, tourViewModel, reportService, tourRouteView);
+                        return new MenuView(menuViewModel, tourViewModel, reportService);
                     }
                     try {
                         return type.getDeclaredConstructor().newInstance();
@@ -0,0 +1,38 @@
+package at.technikum.javafx.config;
+
+import at.technikum.javafx.service.RouteImageRenderer;
+import at.technikum.javafx.service.TileCache;
+import at.technikum.javafx.service.TileServer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+// The embedded map loads its page, Leaflet and tiles from a local server backed by a disk cache
+@Configuration
+public class MapConfig {
+
+    @Bean
+    public TileCache tileCache(@Value("${tourplanner.tiles.dir}") String dir,
+                               @Value("${tourplanner.tiles.max-size-mb:512}") long maxSizeMb,
+                               @Value("${tourplanner.tiles.max-age-days:7}") long maxAgeDays) {
+        return new TileCache(Path.of(dir), maxSizeMb * 1024 * 1024, Duration.ofDays(maxAgeDays), Clock.systemUTC());
+    }
+
+    // Route images for the tour list and the reports are drawn from the same tile cache, without a WebView
+    @Bean
+    public RouteImageRenderer routeImageRenderer(TileCache tileCache) {
+        return new RouteImageRenderer(tileCache);
+    }
+
+    @Bean(destroyMethod = "close")
+    public TileServer tileServer(TileCache tileCache,
+                                 @Value("${tourplanner.tiles.upstream}") String upstream)
+            throws IOException {
+        return new TileServer(tileCache, upstream).start();
+    }
+}
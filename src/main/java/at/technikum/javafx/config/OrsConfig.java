@@ -0,0 +1,73 @@
+package at.technikum.javafx.config;
+
+import at.technikum.javafx.service.GazetteerGeocoder;
+import at.technikum.javafx.service.GazetteerIndex;
+import at.technikum.javafx.service.GeocodeCache;
+import at.technikum.javafx.service.GraphRouteProvider;
+import at.technikum.javafx.service.IGeocoder;
+import at.technikum.javafx.service.IRouteProvider;
+import at.technikum.javafx.service.OrsService;
+import at.technikum.javafx.service.RoadGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// ORS settings stay in ors.properties (kept out of git for the API key), so OrsService reads them itself;
+// Spring only owns the single instance and closes it on shutdown
+@Configuration
+public class OrsConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(OrsConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public GeocodeCache geocodeCache() {
+        return new GeocodeCache();
+    }
+
+    @Bean(destroyMethod = "close")
+    public OrsService orsService(GeocodeCache geocodeCache) {
+        return new OrsService(geocodeCache);
+    }
+
+    // Uses the prebuilt gazetteer index when there is one (see GazetteerIndexBuilder), otherwise ORS only.
+    // No destroy method: when this is the OrsService itself, its own bean definition closes it.
+    @Bean(destroyMethod = "")
+    @Primary
+    public IGeocoder geocoder(OrsService orsService,
+                              @Value("${tourplanner.gazetteer.path:}") String gazetteerPath) {
+        if (gazetteerPath.isBlank() || !Files.isRegularFile(Path.of(gazetteerPath))) {
+            log.info("No gazetteer index at '{}', geocoding through ORS only", gazetteerPath);
+            return orsService;
+        }
+        try {
+            return new GazetteerGeocoder(GazetteerIndex.open(Path.of(gazetteerPath)), orsService);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Could not open gazetteer index '{}', geocoding through ORS only", gazetteerPath, e);
+            return orsService;
+        }
+    }
+
+    // Routes on the prebuilt road graph when there is one (see RoadGraphBuilder), otherwise ORS only
+    @Bean(destroyMethod = "")
+    @Primary
+    public IRouteProvider routeProvider(OrsService orsService,
+                                        @Value("${tourplanner.graph.path:}") String graphPath) {
+        if (graphPath.isBlank() || !Files.isRegularFile(Path.of(graphPath))) {
+            log.info("No road graph at '{}', routing through ORS only", graphPath);
+            return orsService;
+        }
+        try {
+            return new GraphRouteProvider(RoadGraph.open(Path.of(graphPath)), orsService);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Could not open road graph '{}', routing through ORS only", graphPath, e);
+            return orsService;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package at.technikum.javafx.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,6 +26,15 @@ public class Tour {
     @Column(name = "to_location", nullable = false)
     private String toLocation;
 
+    // Places visited between from and to, in visiting order. Loaded for all tours of a query in one
+    // extra select instead of one per tour
+    @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
+    @CollectionTable(name = "tour_stops", joinColumns = @JoinColumn(name = "tour_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "location", nullable = false)
+    private List<String> stops = new ArrayList<>();
+
     @Column(name = "transport_type", nullable = false)
     private String transportType;
 
@@ -36,6 +47,26 @@ public class Tour {
     @Column(name = "route_image_path")
     private String routeImagePath;
 
+    @Column(name = "from_lat")
+    private Double fromLatitude;
+
+    @Column(name = "from_lon")
+    private Double fromLongitude;
+
+    @Column(name = "to_lat")
+    private Double toLatitude;
+
+    @Column(name = "to_lon")
+    private Double toLongitude;
+
+    // Profile and endpoints the stored route was computed for
+    @Column(name = "route_key", length = 1000)
+    private String routeKey;
+
+    // Computed route in the compact RouteGeometry encoding
+    @Column(name = "route_polyline", columnDefinition = "bytea")
+    private byte[] routeGeometry;
+
     @OneToMany(mappedBy = "tour", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<TourLog> logs = new ArrayList<>();
 
@@ -97,6 +128,14 @@ public class Tour {
         this.toLocation = toLocation;
     }
 
+    public List<String> getStops() {
+        return stops;
+    }
+
+    public void setStops(List<String> stops) {
+        this.stops = stops == null ? new ArrayList<>() : new ArrayList<>(stops);
+    }
+
     public String getTransportType() {
         return transportType;
     }
@@ -129,6 +168,54 @@ public class Tour {
         this.routeImagePath = routeImagePath;
     }
 
+    public Double getFromLatitude() {
+        return fromLatitude;
+    }
+
+    public void setFromLatitude(Double fromLatitude) {
+        this.fromLatitude = fromLatitude;
+    }
+
+    public Double getFromLongitude() {
+        return fromLongitude;
+    }
+
+    public void setFromLongitude(Double fromLongitude) {
+        this.fromLongitude = fromLongitude;
+    }
+
+    public Double getToLatitude() {
+        return toLatitude;
+    }
+
+    public void setToLatitude(Double toLatitude) {
+        this.toLatitude = toLatitude;
+    }
+
+    public Double getToLongitude() {
+        return toLongitude;
+    }
+
+    public void setToLongitude(Double toLongitude) {
+        this.toLongitude = toLongitude;
+    }
+
+    public String getRouteKey() {
+        return routeKey;
+    }
+
+    public void setRouteKey(String routeKey) {
+        this.routeKey = routeKey;
+    }
+
+    public byte[] getRouteGeometry() {
+        return routeGeometry;
+    }
+
+    public void setRouteGeometry(byte[] routeGeometry) {
+        this.routeGeometry = routeGeometry;
+    }
+
     public List<TourLog> getLogs() {
         return logs;
     }
@@ -137,6 +224,19 @@ public class Tour {
         this.logs = logs;
     }
 
+    // Takes over the stops and the route computed for them from a routed copy of this tour
+    public void copyRouteFrom(Tour routed) {
+        setStops(routed.getStops());
+        this.fromLatitude = routed.fromLatitude;
+        this.fromLongitude = routed.fromLongitude;
+        this.toLatitude = routed.toLatitude;
+        this.toLongitude = routed.toLongitude;
+        this.distance = routed.distance;
+        this.estimatedTime = routed.estimatedTime;
+        this.routeKey = routed.routeKey;
+        this.routeGeometry = routed.routeGeometry;
+    }
+
     @Override
     public String toString() {
         return "Tour{" +
@@ -4,6 +4,7 @@ public enum Events {
     SEARCH_TERMS_CHANGED,
     SEARCH_TERM_SELECTED,
     SEARCH_PERFORMED,
+    REACHABLE_AREA_SELECTED,
     TOUR_LOGS_CHANGED,
     TOURS_CHANGED
 }
\ No newline at end of file
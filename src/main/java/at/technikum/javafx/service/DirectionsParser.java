@@ -0,0 +1,164 @@
+package at.technikum.javafx.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+// Pulls distance, duration, bbox and coordinates out of an ORS GeoJSON directions response
+// without building a tree; everything else (steps, metadata, ...) is skipped token by token
+final class DirectionsParser {
+
+    private DirectionsParser() {
+    }
+
+    static Optional<RouteResult> parse(InputStream in) throws IOException {
+        try (JsonParser p = GeoJson.JSON.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                // A parse error, not a broken connection: retrying would get the same body again
+                throw new JsonParseException(p, "Expected a GeoJSON FeatureCollection");
+            }
+
+            double[] bbox = null;
+            Route route = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "bbox" -> bbox = GeoJson.readBbox(p);
+                    case "features" -> route = readFirstFeature(p);
+                    default -> p.skipChildren();
+                }
+            }
+
+            if (route == null || route.geometry == null || route.geometry.isEmpty()) {
+                return Optional.empty();
+            }
+            if (bbox == null) {
+                bbox = route.bbox != null ? route.bbox : route.geometry.bbox();
+            }
+            return Optional.of(new RouteResult(route.distance(), route.duration(), route.geometry, bbox));
+        }
+    }
+
+    private static Route readFirstFeature(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        Route route = null;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (route == null && p.currentToken() == JsonToken.START_OBJECT) {
+                route = readFeature(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return route;
+    }
+
+    private static Route readFeature(JsonParser p) throws IOException {
+        Route route = new Route();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "bbox" -> route.bbox = GeoJson.readBbox(p);
+                case "properties" -> readProperties(p, route);
+                case "geometry" -> readGeometry(p, route);
+                default -> p.skipChildren();
+            }
+        }
+        return route;
+    }
+
+    private static void readProperties(JsonParser p, Route route) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "segments" -> readSegments(p, route);
+                case "summary" -> {
+                    double[] summary = readDistanceDuration(p);
+                    route.summaryDistance = summary[0];
+                    route.summaryDuration = summary[1];
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    // One segment per leg between consecutive waypoints
+    private static void readSegments(JsonParser p, Route route) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() == JsonToken.START_OBJECT) {
+                double[] segment = readDistanceDuration(p);
+                route.segmentDistance += segment[0];
+                route.segmentDuration += segment[1];
+                route.hasSegment = true;
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    // Only top-level distance/duration of the object; nested steps are skipped
+    private static double[] readDistanceDuration(JsonParser p) throws IOException {
+        double[] result = new double[2];
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return result;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "distance" -> result[0] = p.getValueAsDouble();
+                case "duration" -> result[1] = p.getValueAsDouble();
+                default -> p.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static void readGeometry(JsonParser p, Route route) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if ("coordinates".equals(field)) {
+                route.geometry = GeoJson.readCoordinates(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static final class Route {
+        private double segmentDistance;
+        private double segmentDuration;
+        private boolean hasSegment;
+        private double summaryDistance;
+        private double summaryDuration;
+        private double[] bbox;
+        private RouteGeometry geometry;
+
+        // The segments are what the app always reported; summary covers responses without segments
+        double distance() { return hasSegment ? segmentDistance : summaryDistance; }
+        double duration() { return hasSegment ? segmentDuration : summaryDuration; }
+    }
+}
@@ -0,0 +1,47 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Answers place names from the local gazetteer without touching the network; anything it does not
+// know (street addresses, unknown places) goes to the fallback geocoder, normally OrsService
+public class GazetteerGeocoder implements IGeocoder {
+
+    private static final Logger log = LoggerFactory.getLogger(GazetteerGeocoder.class);
+
+    private final GazetteerIndex index;
+    private final IGeocoder fallback;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public GazetteerGeocoder(GazetteerIndex index, IGeocoder fallback) {
+        this.index = index;
+        this.fallback = fallback;
+        log.info("GazetteerGeocoder initialized with {} names", index.size());
+    }
+
+    @Override
+    public CompletableFuture<Optional<GeocodeResult>> geocodeAsync(String address) {
+        Optional<GeocodeResult> local = index.lookup(address);
+        if (local.isPresent()) {
+            hits.incrementAndGet();
+            log.debug("Gazetteer hit for '{}'", address);
+            return CompletableFuture.completedFuture(local);
+        }
+        misses.incrementAndGet();
+        log.debug("Gazetteer miss for '{}', asking fallback geocoder", address);
+        return fallback.geocodeAsync(address);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
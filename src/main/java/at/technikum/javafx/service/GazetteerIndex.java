@@ -0,0 +1,120 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+// Read-only place name index written by GazetteerIndexBuilder and mapped into memory, so opening it costs
+// the same for 100 or 5 million names and only the pages a lookup touches are ever read from disk.
+//
+// Layout (big-endian):
+//   header   [magic "TPGZ"][version][record count]
+//   buckets  65537 ints: index of the first record per 2-byte key prefix (+ end sentinel)
+//   records  per name: [key offset][key length][lat * 1e7][lon * 1e7], sorted by key bytes
+//   keys     UTF-8 names, normalized like GeocodeCache keys
+// A lookup jumps to the bucket of the first two key bytes and binary-searches the few records in it.
+public final class GazetteerIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(GazetteerIndex.class);
+
+    static final int MAGIC = 0x5450475A;
+    static final int VERSION = 1;
+    static final int BUCKETS = 1 << 16;
+    static final int HEADER_BYTES = 12;
+    static final int RECORD_BYTES = 16;
+    static final double SCALE = 1e7;
+    // Gazetteer points carry no extent; this box (~2 km) only frames the place on the map
+    private static final double BBOX_HALF_SIZE = 0.01;
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int recordsOffset;
+    private final int keysOffset;
+
+    private GazetteerIndex(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a gazetteer index (version " + VERSION + ")");
+        }
+        this.count = buffer.getInt(8);
+        this.recordsOffset = HEADER_BYTES + (BUCKETS + 1) * 4;
+        this.keysOffset = recordsOffset + count * RECORD_BYTES;
+        if (count < 0 || keysOffset > buffer.capacity() || buffer.getInt(HEADER_BYTES + BUCKETS * 4) != count) {
+            throw new IllegalArgumentException("Gazetteer index is truncated or corrupt");
+        }
+    }
+
+    // The mapping stays valid after the channel is closed and is released by the GC
+    public static GazetteerIndex open(Path file) throws IOException {
+        long start = System.nanoTime();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        GazetteerIndex index = new GazetteerIndex(buffer);
+        log.info("Opened gazetteer {} with {} names in {} ms",
+                file, index.count, (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Optional<GeocodeResult> lookup(String address) {
+        String normalized = GeocodeCache.normalize(address);
+        if (normalized.isEmpty()) return Optional.empty();
+        byte[] key = normalized.getBytes(StandardCharsets.UTF_8);
+
+        int prefix = prefix(key);
+        int low = bucket(prefix);
+        int high = bucket(prefix + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKey(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                int record = recordsOffset + mid * RECORD_BYTES;
+                double lat = buffer.getInt(record + 8) / SCALE;
+                double lon = buffer.getInt(record + 12) / SCALE;
+                return Optional.of(new GeocodeResult(lat, lon, new double[]{
+                        lon - BBOX_HALF_SIZE, lat - BBOX_HALF_SIZE, lon + BBOX_HALF_SIZE, lat + BBOX_HALF_SIZE
+                }));
+            }
+        }
+        return Optional.empty();
+    }
+
+    static int prefix(byte[] key) {
+        int first = key.length > 0 ? key[0] & 0xFF : 0;
+        int second = key.length > 1 ? key[1] & 0xFF : 0;
+        return first << 8 | second;
+    }
+
+    private int bucket(int prefix) {
+        return buffer.getInt(HEADER_BYTES + prefix * 4);
+    }
+
+    // Unsigned byte order, the same order the builder sorted the keys in; absolute reads keep this thread-safe
+    private int compareKey(int index, byte[] key) {
+        int record = recordsOffset + index * RECORD_BYTES;
+        int offset = keysOffset + buffer.getInt(record);
+        int length = buffer.getInt(record + 4);
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Integer.compare(buffer.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(length, key.length);
+    }
+}
@@ -0,0 +1,159 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Turns a GeoNames dump (e.g. AT.txt, cities15000.txt or allCountries.txt from download.geonames.org)
+// into the binary file GazetteerIndex maps. Parsing the text happens once here, never at app startup.
+//
+// Only populated places (feature class P) are kept; when several places share a name, the most populous
+// one wins, the same guess ORS makes for an address without a country.
+public final class GazetteerIndexBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(GazetteerIndexBuilder.class);
+
+    // GeoNames columns: geonameid, name, asciiname, alternatenames, latitude, longitude, feature class, ...
+    private static final int NAME = 1, ASCII_NAME = 2, ALTERNATE_NAMES = 3, LATITUDE = 4, LONGITUDE = 5,
+            FEATURE_CLASS = 6, POPULATION = 14;
+
+    private final long minPopulation;
+    private final boolean alternateNames;
+    private final Map<String, Place> places = new HashMap<>();
+
+    // With alternateNames, "Vienna" and "Vienne" find Wien as well; this multiplies the index size
+    public GazetteerIndexBuilder(long minPopulation, boolean alternateNames) {
+        this.minPopulation = minPopulation;
+        this.alternateNames = alternateNames;
+    }
+
+    public GazetteerIndexBuilder read(Path geonamesFile) throws IOException {
+        int lines = 0, kept = 0;
+        try (BufferedReader reader = Files.newBufferedReader(geonamesFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                String[] fields = line.split("\t", -1);
+                if (fields.length <= POPULATION || !fields[FEATURE_CLASS].equals("P")) continue;
+
+                long population = parseLong(fields[POPULATION]);
+                if (population < minPopulation) continue;
+                double lat, lon;
+                try {
+                    lat = Double.parseDouble(fields[LATITUDE]);
+                    lon = Double.parseDouble(fields[LONGITUDE]);
+                } catch (NumberFormatException e) {
+                    log.warn("Skipping line {} of {}: bad coordinates", lines, geonamesFile);
+                    continue;
+                }
+
+                Place place = new Place(lat, lon, population);
+                add(fields[NAME], place);
+                add(fields[ASCII_NAME], place);
+                if (alternateNames && !fields[ALTERNATE_NAMES].isEmpty()) {
+                    for (String name : fields[ALTERNATE_NAMES].split(",")) add(name, place);
+                }
+                kept++;
+            }
+        }
+        log.info("Read {} of {} GeoNames lines from {} ({} distinct names so far)",
+                kept, lines, geonamesFile, places.size());
+        return this;
+    }
+
+    public void write(Path out) throws IOException {
+        long start = System.nanoTime();
+        List<byte[]> keys = new ArrayList<>(places.size());
+        for (String name : places.keySet()) keys.add(name.getBytes(StandardCharsets.UTF_8));
+        keys.sort(Arrays::compareUnsigned);
+
+        // First record index for every 2-byte prefix; empty buckets point at the next filled one
+        int[] buckets = new int[GazetteerIndex.BUCKETS + 1];
+        int record = 0;
+        for (int prefix = 0; prefix <= GazetteerIndex.BUCKETS; prefix++) {
+            while (record < keys.size() && GazetteerIndex.prefix(keys.get(record)) < prefix) record++;
+            buckets[prefix] = record;
+        }
+
+        // Written next to the target and moved into place, so a running app never maps a half-written file
+        Path parent = out.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, "gazetteer", ".tmp");
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            data.writeInt(GazetteerIndex.MAGIC);
+            data.writeInt(GazetteerIndex.VERSION);
+            data.writeInt(keys.size());
+            for (int bucket : buckets) data.writeInt(bucket);
+
+            int keyOffset = 0;
+            for (byte[] key : keys) {
+                Place place = places.get(new String(key, StandardCharsets.UTF_8));
+                data.writeInt(keyOffset);
+                data.writeInt(key.length);
+                data.writeInt((int) Math.round(place.lat * GazetteerIndex.SCALE));
+                data.writeInt((int) Math.round(place.lon * GazetteerIndex.SCALE));
+                keyOffset += key.length;
+            }
+            for (byte[] key : keys) data.write(key);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Wrote gazetteer index {} with {} names ({} KB) in {} ms", out, keys.size(),
+                Files.size(out) / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void add(String name, Place place) {
+        String key = GeocodeCache.normalize(name);
+        if (key.isEmpty()) return;
+        places.merge(key, place, (old, candidate) -> candidate.population > old.population ? candidate : old);
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value.isEmpty() ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private record Place(double lat, double lon, long population) {
+    }
+
+    // Usage: GazetteerIndexBuilder <out.bin> <geonames.txt>... [--min-population N] [--alternate-names]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GazetteerIndexBuilder <out.bin> <geonames.txt>... "
+                    + "[--min-population N] [--alternate-names]");
+            System.exit(1);
+        }
+        long minPopulation = 0;
+        boolean alternateNames = false;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--min-population" -> minPopulation = Long.parseLong(args[++i]);
+                case "--alternate-names" -> alternateNames = true;
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+
+        GazetteerIndexBuilder builder = new GazetteerIndexBuilder(minPopulation, alternateNames);
+        for (Path input : inputs) builder.read(input);
+        builder.write(Path.of(args[0]));
+    }
+}
@@ -0,0 +1,73 @@
+package at.technikum.javafx.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Reads and writes LineString geometries token by token, straight from/into RouteGeometry
+public final class GeoJson {
+
+    // Coordinates are nearly all of a route response, so use the faster double parser for them
+    static final JsonFactory JSON = JsonFactory.builder()
+            .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+            .build();
+
+    private GeoJson() {
+    }
+
+    public static void writeLineString(JsonGenerator gen, RouteGeometry geometry) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "LineString");
+        gen.writeArrayFieldStart("coordinates");
+        RouteGeometry.Cursor c = geometry.cursor();
+        while (c.next()) {
+            gen.writeStartArray();
+            gen.writeNumber(c.lon());
+            gen.writeNumber(c.lat());
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    // Expects the parser on the START_ARRAY of [[lon, lat(, ele)], ...]; extra dimensions are dropped
+    static RouteGeometry readCoordinates(JsonParser p) throws IOException {
+        RouteGeometry.Builder builder = new RouteGeometry.Builder();
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return builder.build();
+        }
+        while (p.nextToken() == JsonToken.START_ARRAY) {
+            p.nextToken();
+            double lon = p.getDoubleValue();
+            p.nextToken();
+            double lat = p.getDoubleValue();
+            builder.add(lon, lat);
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                p.skipChildren();
+            }
+        }
+        return builder.build();
+    }
+
+    static double[] readBbox(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        double[] values = new double[6];
+        int n = 0;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (n < values.length) values[n++] = p.getDoubleValue();
+        }
+        // A 3D bbox is [minLon, minLat, minEle, maxLon, maxLat, maxEle]
+        if (n == 4) return Arrays.copyOf(values, 4);
+        if (n == 6) return new double[]{values[0], values[1], values[3], values[4]};
+        return null;
+    }
+}
@@ -0,0 +1,238 @@
+package at.technikum.javafx.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The store file is written by a single writer thread, a moment after the last put: a burst of lookups
+// costs one write, and as every write takes its snapshot when it runs, the newest one is always the last
+public class GeocodeCache implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(GeocodeCache.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final int DEFAULT_MAX_ENTRIES = 5_000;
+    public static final Duration DEFAULT_TTL = Duration.ofDays(30);
+    private static final Duration FLUSH_DELAY = Duration.ofSeconds(2);
+
+    private final Path storeFile;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    // Access-ordered map, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean flushScheduled;
+
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "geocode-cache-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public GeocodeCache() {
+        this(Paths.get(System.getProperty("user.home"), ".tourplanner", "geocode-cache.json"),
+                DEFAULT_MAX_ENTRIES, DEFAULT_TTL, Clock.systemUTC());
+    }
+
+    public GeocodeCache(Path storeFile, int maxEntries, Duration ttl, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.storeFile = storeFile;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        // close() writes the newest snapshot itself, a write still waiting for its delay is dropped
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        load();
+        log.info("GeocodeCache initialized with {} entries from {}", entries.size(), storeFile);
+    }
+
+    public Optional<GeocodeResult> get(String address) {
+        String key = normalize(address);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null || isExpired(entry)) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            hits.incrementAndGet();
+            return Optional.of(entry.result);
+        }
+    }
+
+    // Expired entries stay until the LRU pushes them out, so they can still be served while ORS is down
+    public synchronized Optional<GeocodeResult> getStale(String address) {
+        Entry entry = entries.get(normalize(address));
+        return entry == null ? Optional.empty() : Optional.of(entry.result);
+    }
+
+    public void put(String address, GeocodeResult result) {
+        String key = normalize(address);
+        synchronized (this) {
+            entries.put(key, new Entry(result, clock.millis()));
+            evictOverflow();
+        }
+        scheduleFlush();
+    }
+
+    // Writes pending changes now and waits for it
+    public void flush() {
+        if (storeFile == null) return;
+        try {
+            writer.submit(this::persist).get();
+        } catch (RejectedExecutionException e) {
+            persist();
+        } catch (ExecutionException e) {
+            log.warn("Could not persist geocode cache to {}", storeFile, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (storeFile != null) persist();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+
+    // Trims, collapses inner whitespace and case-folds so "Wien " and "wien" share an entry
+    public static String normalize(String address) {
+        if (address == null) return "";
+        return address.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private boolean isExpired(Entry entry) {
+        return clock.millis() - entry.storedAt > ttlMillis;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void load() {
+        if (storeFile == null || !Files.isRegularFile(storeFile)) return;
+        try {
+            JsonNode root = MAPPER.readTree(storeFile.toFile());
+            for (JsonNode node : root) {
+                JsonNode bboxNode = node.path("bbox");
+                double[] bbox = null;
+                if (bboxNode.isArray() && bboxNode.size() == 4) {
+                    bbox = new double[]{
+                            bboxNode.get(0).asDouble(),
+                            bboxNode.get(1).asDouble(),
+                            bboxNode.get(2).asDouble(),
+                            bboxNode.get(3).asDouble()
+                    };
+                }
+                Entry entry = new Entry(
+                        new GeocodeResult(node.path("lat").asDouble(), node.path("lon").asDouble(), bbox),
+                        node.path("storedAt").asLong()
+                );
+                entries.put(node.path("key").asText(), entry);
+            }
+            evictOverflow();
+        } catch (IOException e) {
+            log.warn("Could not read geocode cache from {}, starting empty", storeFile, e);
+            entries.clear();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (storeFile == null) return;
+        synchronized (this) {
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        try {
+            writer.schedule(this::persist, FLUSH_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed: the final write has been done or is running, later puts stay in memory only
+            log.debug("Geocode cache is closed, not persisting");
+        }
+    }
+
+    // Only runs on the writer thread, or on the closing thread once the writer is done
+    private void persist() {
+        ArrayNode root = MAPPER.createArrayNode();
+        synchronized (this) {
+            flushScheduled = false;
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                ObjectNode node = root.addObject();
+                node.put("key", e.getKey());
+                node.put("lat", e.getValue().result.getLatitude());
+                node.put("lon", e.getValue().result.getLongitude());
+                double[] bbox = e.getValue().result.getBbox();
+                if (bbox != null) {
+                    ArrayNode bboxNode = node.putArray("bbox");
+                    for (double v : bbox) bboxNode.add(v);
+                }
+                node.put("storedAt", e.getValue().storedAt);
+            }
+        }
+
+        // Write to a sibling temp file first so a crash never leaves a truncated store
+        try {
+            Files.createDirectories(storeFile.toAbsolutePath().getParent());
+            Path tmp = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+            MAPPER.writeValue(tmp.toFile(), root);
+            Files.move(tmp, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not persist geocode cache to {}", storeFile, e);
+        }
+    }
+
+    private static final class Entry {
+        private final GeocodeResult result;
+        private final long storedAt;
+
+        private Entry(GeocodeResult result, long storedAt) {
+            this.result = result;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Routes on a local RoadGraph with bidirectional A* (fastest path per ORS profile), so routing works
+// offline and batch recomputation is not bound by ORS quotas. Points outside the graph, unknown
+// profiles and pairs the graph cannot connect are passed on to the fallback provider, normally OrsService.
+public class GraphRouteProvider implements IRouteProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphRouteProvider.class);
+
+    // ORS snaps within 350 m by default; a bit more tolerance suits geocoded town centres
+    private static final double MAX_SNAP_METRES = 500;
+    private static final double BIKE_KMH = 18;
+    private static final double FOOT_KMH = 5;
+    private static final double MAX_CAR_KMH = 130;
+    // Keeps the straight-line estimate strictly below any road time despite float edge lengths
+    private static final double HEURISTIC_SLACK = 0.99;
+    private static final int IDLE_SEARCHES = 2;
+
+    private final RoadGraph graph;
+    private final IRouteProvider fallback;
+    private final Executor executor;
+    // Scratch arrays of O(nodes) are reused instead of allocated per query. Only a few idle ones are kept,
+    // so memory does not grow with the number of threads that ever routed; a busy moment allocates extra
+    // ones that are dropped afterwards.
+    private final BlockingQueue<Search> idleSearches = new ArrayBlockingQueue<>(IDLE_SEARCHES);
+    private final AtomicLong localRoutes = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public GraphRouteProvider(RoadGraph graph, IRouteProvider fallback) {
+        this(graph, fallback, ForkJoinPool.commonPool());
+    }
+
+    public GraphRouteProvider(RoadGraph graph, IRouteProvider fallback, Executor executor) {
+        this.graph = graph;
+        this.fallback = fallback;
+        this.executor = executor;
+        log.info("GraphRouteProvider initialized with {} nodes", graph.nodeCount());
+    }
+
+    @Override
+    public CompletableFuture<Optional<RouteResult>> directionsAsync(
+            String profile,
+            double fromLon, double fromLat,
+            double toLon, double toLat
+    ) {
+        Profile p = Profile.of(profile);
+        if (p == null) {
+            return fallback(profile, fromLon, fromLat, toLon, toLat, "profile not supported offline");
+        }
+        // Never search on the caller's thread: it may be the FX thread
+        return CompletableFuture.supplyAsync(() -> route(p, fromLon, fromLat, toLon, toLat), executor)
+                .thenCompose(route -> route.isPresent()
+                        ? CompletableFuture.completedFuture(route)
+                        : fallback(profile, fromLon, fromLat, toLon, toLat, "no route in local graph"));
+    }
+
+    public long getLocalRoutes() {
+        return localRoutes.get();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    private CompletableFuture<Optional<RouteResult>> fallback(String profile, double fromLon, double fromLat,
+                                                              double toLon, double toLat, String reason) {
+        fallbacks.incrementAndGet();
+        log.debug("Routing {} via fallback: {}", profile, reason);
+        return fallback.directionsAsync(profile, fromLon, fromLat, toLon, toLat);
+    }
+
+    // Empty when either point is too far from a usable road or the graph does not connect them
+    public Optional<RouteResult> route(String profile, double fromLon, double fromLat, double toLon, double toLat) {
+        Profile p = Profile.of(profile);
+        return p == null ? Optional.empty() : route(p, fromLon, fromLat, toLon, toLat);
+    }
+
+    private Optional<RouteResult> route(Profile profile, double fromLon, double fromLat, double toLon, double toLat) {
+        int source = graph.nearestNode(fromLat, fromLon, MAX_SNAP_METRES, node -> hasOut(node, profile));
+        int target = graph.nearestNode(toLat, toLon, MAX_SNAP_METRES, node -> hasIn(node, profile));
+        if (source < 0 || target < 0) return Optional.empty();
+
+        long start = System.nanoTime();
+        Search search = idleSearches.poll();
+        if (search == null) search = new Search(graph.nodeCount());
+        Optional<RouteResult> route;
+        try {
+            route = search.run(profile, source, target);
+        } finally {
+            idleSearches.offer(search);
+        }
+        if (route.isPresent()) {
+            localRoutes.incrementAndGet();
+            log.debug("Local {} route: {} in {} us", profile, route.get(), (System.nanoTime() - start) / 1_000);
+        }
+        return route;
+    }
+
+    private boolean hasOut(int node, Profile profile) {
+        for (int e = graph.firstOut(node), end = graph.firstOut(node + 1); e < end; e++) {
+            if ((graph.access(e) & profile.access) != 0) return true;
+        }
+        return false;
+    }
+
+    private boolean hasIn(int node, Profile profile) {
+        for (int i = graph.firstIn(node), end = graph.firstIn(node + 1); i < end; i++) {
+            if ((graph.access(graph.inEdge(i)) & profile.access) != 0) return true;
+        }
+        return false;
+    }
+
+    private enum Profile {
+        CAR(RoadGraph.ACCESS_CAR, MAX_CAR_KMH),
+        BIKE(RoadGraph.ACCESS_BIKE, BIKE_KMH),
+        FOOT(RoadGraph.ACCESS_FOOT, FOOT_KMH);
+
+        final int access;
+        final double maxMetresPerSecond;
+
+        Profile(int access, double maxKmh) {
+            this.access = access;
+            this.maxMetresPerSecond = maxKmh / 3.6;
+        }
+
+        static Profile of(String orsProfile) {
+            return switch (orsProfile == null ? "" : orsProfile) {
+                case "driving-car" -> CAR;
+                case "cycling-regular" -> BIKE;
+                case "foot-walking" -> FOOT;
+                default -> null;
+            };
+        }
+    }
+
+    // Scratch state of one search at a time. Entries are valid only when their stamp matches the current
+    // query, so nothing is cleared between queries.
+    private final class Search {
+        private final double[] distF, distR;
+        private final int[] parentF, parentR;
+        // Forward edges do not record their source, so the forward tree also keeps predecessor nodes
+        private final int[] predF;
+        private final int[] stampF, stampR;
+        private final Heap heapF = new Heap(), heapR = new Heap();
+        private int stamp;
+
+        private Profile profile;
+        private double sLat, sLon, tLat, tLon;
+
+        Search(int nodes) {
+            distF = new double[nodes];
+            distR = new double[nodes];
+            parentF = new int[nodes];
+            parentR = new int[nodes];
+            predF = new int[nodes];
+            stampF = new int[nodes];
+            stampR = new int[nodes];
+        }
+
+        // Bidirectional A* with the average potential p(v) = (h_t(v) - h_s(v)) / 2: forward keys are
+        // d_f + p, backward keys d_r - p, and the first time the two smallest keys reach the best
+        // meeting cost no shorter path can exist
+        Optional<RouteResult> run(Profile profile, int source, int target) {
+            this.profile = profile;
+            sLat = graph.lat(source);
+            sLon = graph.lon(source);
+            tLat = graph.lat(target);
+            tLon = graph.lon(target);
+            if (++stamp == 0) {
+                Arrays.fill(stampF, 0);
+                Arrays.fill(stampR, 0);
+                stamp = 1;
+            }
+            heapF.clear();
+            heapR.clear();
+
+            reach(stampF, distF, parentF, source, 0, -1);
+            predF[source] = -1;
+            heapF.push(potential(source), source);
+            reach(stampR, distR, parentR, target, 0, -1);
+            heapR.push(-potential(target), target);
+
+            double best = Double.POSITIVE_INFINITY;
+            int meet = source == target ? source : -1;
+            if (meet >= 0) best = 0;
+
+            while (!heapF.isEmpty() || !heapR.isEmpty()) {
+                double topF = heapF.isEmpty() ? Double.POSITIVE_INFINITY : heapF.peekKey();
+                double topR = heapR.isEmpty() ? Double.POSITIVE_INFINITY : heapR.peekKey();
+                if (topF + topR >= best) break;
+
+                if (topF <= topR) {
+                    int u = heapF.pop();
+                    if (topF > distF[u] + potential(u) + 1e-9) continue; // stale entry
+                    for (int e = graph.firstOut(u), end = graph.firstOut(u + 1); e < end; e++) {
+                        double w = cost(e);
+                        if (Double.isNaN(w)) continue;
+                        int v = graph.target(e);
+                        double d = distF[u] + w;
+                        if (stampF[v] != stamp || d < distF[v]) {
+                            reach(stampF, distF, parentF, v, d, e);
+                            predF[v] = u;
+                            heapF.push(d + potential(v), v);
+                            if (stampR[v] == stamp && d + distR[v] < best) {
+                                best = d + distR[v];
+                                meet = v;
+                            }
+                        }
+                    }
+                } else {
+                    int u = heapR.pop();
+                    if (topR > distR[u] - potential(u) + 1e-9) continue;
+                    for (int i = graph.firstIn(u), end = graph.firstIn(u + 1); i < end; i++) {
+                        int e = graph.inEdge(i);
+                        double w = cost(e);
+                        if (Double.isNaN(w)) continue;
+                        int v = graph.inSource(i);
+                        double d = distR[u] + w;
+                        if (stampR[v] != stamp || d < distR[v]) {
+                            reach(stampR, distR, parentR, v, d, e);
+                            heapR.push(d - potential(v), v);
+                            if (stampF[v] == stamp && d + distF[v] < best) {
+                                best = d + distF[v];
+                                meet = v;
+                            }
+                        }
+                    }
+                }
+            }
+            return meet < 0 ? Optional.empty() : Optional.of(result(source, meet));
+        }
+
+        // Walks the forward tree back from the meeting node, then the backward tree on to the target
+        private RouteResult result(int source, int meet) {
+            int[] forward = new int[16];
+            int count = 0;
+            for (int v = meet; v != source; v = predF[v]) {
+                if (count == forward.length) forward = Arrays.copyOf(forward, count * 2);
+                forward[count++] = parentF[v];
+            }
+
+            RouteGeometry.Builder geometry = new RouteGeometry.Builder(count + 16);
+            double metres = 0, seconds = 0;
+            geometry.add(graph.lon(source), graph.lat(source));
+            for (int i = count - 1; i >= 0; i--) {
+                int e = forward[i];
+                metres += graph.length(e);
+                seconds += cost(e);
+                int v = graph.target(e);
+                geometry.add(graph.lon(v), graph.lat(v));
+            }
+            for (int e = parentR[meet]; e >= 0; ) {
+                metres += graph.length(e);
+                seconds += cost(e);
+                int v = graph.target(e);
+                geometry.add(graph.lon(v), graph.lat(v));
+                e = parentR[v];
+            }
+
+            RouteGeometry line = geometry.build();
+            return new RouteResult(metres, seconds, line, line.bbox());
+        }
+
+        private void reach(int[] stamps, double[] dist, int[] parent, int node, double d, int edge) {
+            stamps[node] = stamp;
+            dist[node] = d;
+            parent[node] = edge;
+        }
+
+        // Travel time in seconds, NaN when the profile may not use the edge
+        private double cost(int edge) {
+            if ((graph.access(edge) & profile.access) == 0) return Double.NaN;
+            double kmh = switch (profile) {
+                case CAR -> graph.carSpeedKmh(edge);
+                case BIKE -> BIKE_KMH;
+                case FOOT -> FOOT_KMH;
+            };
+            return kmh <= 0 ? Double.NaN : graph.length(edge) / (kmh / 3.6);
+        }
+
+        private double potential(int node) {
+            double lat = graph.lat(node), lon = graph.lon(node);
+            double toTarget = RoadGraph.distanceMetres(lat, lon, tLat, tLon);
+            double fromSource = RoadGraph.distanceMetres(sLat, sLon, lat, lon);
+            return HEURISTIC_SLACK * (toTarget - fromSource) / (2 * profile.maxMetresPerSecond);
+        }
+    }
+
+    // Binary min-heap of (key, node) pairs; outdated entries are skipped when popped instead of decreased
+    private static final class Heap {
+        private double[] keys = new double[256];
+        private int[] nodes = new int[256];
+        private int size;
+
+        boolean isEmpty() { return size == 0; }
+        double peekKey()  { return keys[0]; }
+        void clear()      { size = 0; }
+
+        void push(double key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                keys[i] = keys[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            double key = keys[--size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package at.technikum.javafx.service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// Turns a free-text address into coordinates; OrsService asks ORS, GazetteerGeocoder answers from a local index
+public interface IGeocoder {
+    CompletableFuture<Optional<GeocodeResult>> geocodeAsync(String address);
+
+    default Optional<GeocodeResult> geocode(String address) {
+        return OrsService.await(geocodeAsync(address));
+    }
+}
@@ -0,0 +1,16 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.util.List;
+
+public interface IRouteEnrichmentService {
+
+    interface ProgressListener {
+        void progress(int done, int total, int failed);
+    }
+
+    RouteEnrichmentResult enrichAll(List<Tour> tours, ProgressListener listener);
+
+    RouteEnrichmentResult refreshMetrics(List<Tour> tours, ProgressListener listener);
+}
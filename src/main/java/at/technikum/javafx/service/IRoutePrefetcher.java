@@ -0,0 +1,13 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.util.List;
+
+public interface IRoutePrefetcher {
+
+    // Replaces any earlier request: only the neighbours of the latest selection are fetched
+    void prefetchAround(List<Tour> tours, int selectedIndex);
+
+    void cancel();
+}
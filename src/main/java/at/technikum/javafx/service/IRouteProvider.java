@@ -0,0 +1,54 @@
+package at.technikum.javafx.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// Computes the route between two points for an ORS travel profile; OrsService asks ORS,
+// GraphRouteProvider searches a local road graph
+public interface IRouteProvider {
+    CompletableFuture<Optional<RouteResult>> directionsAsync(
+            String profile,
+            double fromLon, double fromLat,
+            double toLon, double toLat
+    );
+
+    // Route through all waypoints ([lon, lat] each) in order. By default every leg is routed on its own,
+    // all at once, and the legs are joined; empty when any leg has no route.
+    default CompletableFuture<Optional<RouteResult>> directionsAsync(String profile, List<double[]> waypoints) {
+        if (waypoints.size() < 2) {
+            throw new IllegalArgumentException("A route needs at least two waypoints");
+        }
+        List<CompletableFuture<Optional<RouteResult>>> legs = new ArrayList<>();
+        for (int i = 0; i + 1 < waypoints.size(); i++) {
+            double[] from = waypoints.get(i), to = waypoints.get(i + 1);
+            legs.add(directionsAsync(profile, from[0], from[1], to[0], to[1]));
+        }
+        if (legs.size() == 1) return legs.get(0);
+
+        CompletableFuture<Optional<RouteResult>> result = CompletableFuture
+                .allOf(legs.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<RouteResult> routes = new ArrayList<>();
+                    for (CompletableFuture<Optional<RouteResult>> leg : legs) {
+                        Optional<RouteResult> route = leg.join();
+                        if (route.isEmpty()) return Optional.empty();
+                        routes.add(route.get());
+                    }
+                    return Optional.of(RouteResult.join(routes));
+                });
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) legs.forEach(leg -> leg.cancel(true));
+        });
+        return result;
+    }
+
+    default Optional<RouteResult> directions(
+            String profile,
+            double fromLon, double fromLat,
+            double toLon, double toLat
+    ) {
+        return OrsService.await(directionsAsync(profile, fromLon, fromLat, toLon, toLat));
+    }
+}
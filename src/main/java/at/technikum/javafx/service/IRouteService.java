@@ -0,0 +1,26 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface IRouteService {
+    // ORS travel profiles a tour can use
+    List<String> PROFILES = List.of("driving-car", "foot-walking", "cycling-regular");
+    // ORS routes through at most 50 places, start and destination included
+    int MAX_STOPS = OrsService.MAX_WAYPOINTS - 2;
+
+    boolean needsRoute(Tour tour);
+    boolean needsMetrics(Tour tour);
+    RouteResult applyRoute(Tour tour);
+    CompletableFuture<RouteResult> applyRouteAsync(Tour tour);
+    CompletableFuture<Tour> routedCopyAsync(Tour tour);
+    Optional<RouteResult> storedRoute(Tour tour);
+    CompletableFuture<Boolean> prefetchAsync(Tour tour);
+    CompletableFuture<List<Tour>> applyMetricsAsync(List<Tour> tours);
+    CompletableFuture<RouteComparison> compareProfilesAsync(Tour tour, List<String> profiles);
+    CompletableFuture<Tour> optimizeStopsAsync(Tour tour);
+    CompletableFuture<Isochrone> isochroneAsync(String address, String profile, int minutes);
+}
@@ -0,0 +1,18 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface IRouteThumbnailService {
+    // Size of the thumbnails in the tour list, rendered at twice the size they are shown at
+    int LIST_WIDTH = 160;
+    int LIST_HEIGHT = 100;
+
+    Optional<Path> pathFor(Tour tour);
+    CompletableFuture<Optional<Path>> renderAsync(Tour tour);
+    Optional<Path> render(Tour tour, int width, int height);
+    Optional<Path> existing(Tour tour, int width, int height);
+}
@@ -0,0 +1,12 @@
+package at.technikum.javafx.service;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface ITileServer {
+
+    // leaflet.html as served by the local server; its scripts and tiles come from the same origin
+    String getMapUrl();
+
+    // The same tiles in-process, for map views that draw them without a browser engine
+    CompletableFuture<TileCache.Tile> tile(int z, int x, int y);
+}
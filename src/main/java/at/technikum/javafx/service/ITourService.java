@@ -8,6 +8,8 @@ public interface ITourService {
     List<Tour> getAllTours();
     Tour createTour(Tour tour);
     Tour updateTour(Tour tour);
+    void saveRouteMetrics(List<Tour> tours);
+    void saveRoute(Tour tour);
     void deleteTour(Tour tour);
     Optional<Tour> findById(Long id);
     Optional<Tour> findByName(String name);
@@ -0,0 +1,131 @@
+package at.technikum.javafx.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Area reachable from a point within a time budget, as returned by the ORS isochrones endpoint.
+// Rings are interleaved lon/lat arrays; outer rings and holes are treated alike (even-odd rule).
+//
+// contains() is called once per candidate tour, so the edges are bucketed into horizontal bands
+// up front: a test only looks at the edges crossing the band of the point instead of all of them.
+public final class Isochrone {
+
+    // Roughly this many edges per band; ORS polygons have a few hundred to a few thousand points
+    private static final int EDGES_PER_BAND = 4;
+    private static final int MAX_BANDS = 1024;
+
+    private final double centerLon, centerLat;
+    private final int seconds;
+    private final List<double[]> rings;
+    private final double minLon, minLat, maxLon, maxLat;
+
+    // Edge endpoints, one entry per ring segment
+    private final double[] x1, y1, x2, y2;
+    private final int bands;
+    private final double bandHeight;
+    // Edges of band b are bandEdges[bandStart[b] .. bandStart[b + 1] - 1]
+    private final int[] bandStart;
+    private final int[] bandEdges;
+
+    public Isochrone(double centerLon, double centerLat, int seconds, List<double[]> rings) {
+        if (rings.isEmpty()) {
+            throw new IllegalArgumentException("An isochrone needs at least one ring");
+        }
+        this.centerLon = centerLon;
+        this.centerLat = centerLat;
+        this.seconds = seconds;
+        this.rings = List.copyOf(rings);
+
+        int edges = 0;
+        double loX = Double.POSITIVE_INFINITY, loY = Double.POSITIVE_INFINITY;
+        double hiX = Double.NEGATIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY;
+        for (double[] ring : this.rings) {
+            if (ring.length < 6 || ring.length % 2 != 0) {
+                throw new IllegalArgumentException("A ring needs at least three lon/lat points");
+            }
+            edges += ring.length / 2;
+            for (int i = 0; i < ring.length; i += 2) {
+                loX = Math.min(loX, ring[i]);
+                hiX = Math.max(hiX, ring[i]);
+                loY = Math.min(loY, ring[i + 1]);
+                hiY = Math.max(hiY, ring[i + 1]);
+            }
+        }
+        minLon = loX;
+        minLat = loY;
+        maxLon = hiX;
+        maxLat = hiY;
+
+        // Closing segment included; a ring that repeats its first point just adds a zero-length edge
+        x1 = new double[edges];
+        y1 = new double[edges];
+        x2 = new double[edges];
+        y2 = new double[edges];
+        int e = 0;
+        for (double[] ring : this.rings) {
+            int points = ring.length / 2;
+            for (int i = 0; i < points; i++) {
+                int j = (i + 1) % points;
+                x1[e] = ring[2 * i];
+                y1[e] = ring[2 * i + 1];
+                x2[e] = ring[2 * j];
+                y2[e] = ring[2 * j + 1];
+                e++;
+            }
+        }
+
+        bands = Math.max(1, Math.min(MAX_BANDS, edges / EDGES_PER_BAND));
+        bandHeight = (maxLat - minLat) / bands;
+        int[] counts = new int[bands + 1];
+        for (e = 0; e < edges; e++) {
+            for (int b = band(Math.min(y1[e], y2[e])), last = band(Math.max(y1[e], y2[e])); b <= last; b++) {
+                counts[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bands; b++) counts[b + 1] += counts[b];
+        bandStart = counts;
+        bandEdges = new int[counts[bands]];
+        int[] fill = Arrays.copyOf(counts, bands);
+        for (e = 0; e < edges; e++) {
+            for (int b = band(Math.min(y1[e], y2[e])), last = band(Math.max(y1[e], y2[e])); b <= last; b++) {
+                bandEdges[fill[b]++] = e;
+            }
+        }
+    }
+
+    public double getCenterLon() { return centerLon; }
+    public double getCenterLat() { return centerLat; }
+    public int getSeconds()      { return seconds; }
+    public List<double[]> getRings() { return rings; }
+
+    // [minLon, minLat, maxLon, maxLat], same order as ORS bboxes
+    public double[] getBbox() {
+        return new double[]{minLon, minLat, maxLon, maxLat};
+    }
+
+    // Ray cast towards +lon over the edges of the point's band
+    public boolean contains(double lon, double lat) {
+        if (lon < minLon || lon > maxLon || lat < minLat || lat > maxLat) return false;
+        int b = band(lat);
+        boolean inside = false;
+        for (int i = bandStart[b], end = bandStart[b + 1]; i < end; i++) {
+            int e = bandEdges[i];
+            if ((y1[e] > lat) != (y2[e] > lat)
+                    && lon < x1[e] + (lat - y1[e]) * (x2[e] - x1[e]) / (y2[e] - y1[e])) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private int band(double lat) {
+        if (bandHeight <= 0) return 0;
+        return Math.min(bands - 1, Math.max(0, (int) ((lat - minLat) / bandHeight)));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Isochrone{%ds around (%.5f, %.5f), %d rings, %d edges}",
+                seconds, centerLon, centerLat, rings.size(), x1.length);
+    }
+}
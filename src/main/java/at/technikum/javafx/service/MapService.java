@@ -1,54 +1,130 @@
 package at.technikum.javafx.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import at.technikum.javafx.entity.Tour;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class MapService {
 
     private static final Logger log = LoggerFactory.getLogger(MapService.class);
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<String, String> PROFILE_COLORS = Map.of(
+            "driving-car", "#3388ff",
+            "foot-walking", "#2e7d32",
+            "cycling-regular", "#e65100"
+    );
+
+    // Overview lines use the level simplified for this zoom when zoomed out that far, the next one below
+    // it beyond; the single-tour view is there for more detail
+    static final int OVERVIEW_COARSE_ZOOM = 6;
+    static final int OVERVIEW_DETAIL_ZOOM = 9;
 
     public MapService() {
         log.info("MapService initialized");
     }
 
-    public void writeDirectionsJs(RouteResult route, Path outputDir) throws IOException {
-        log.info("writeDirectionsJs() called: outputDir={}", outputDir);
+    // Route data as handed to showRoutes() in leaflet.html
+    public String directionsJson(RouteResult route) throws IOException {
+        return routesJson(route.getBbox(), Map.of("route", route));
+    }
+
+    // Overlays the routes of every profile that could be routed, each in its profile colour
+    public String comparisonJson(RouteComparison comparison) throws IOException {
+        Map<String, RouteResult> routes = new LinkedHashMap<>();
+        comparison.getRouted().forEach(entry -> routes.put(entry.getProfile(), entry.getRoute()));
+        return routesJson(comparison.getBbox(), routes);
+    }
 
-        Path outFile = outputDir.resolve("directions.js");
+    // Tour data for addOverviewTours() in leaflet.html. Only the coarse levels are sent, as flat
+    // [lon, lat, ...] arrays rounded to about a metre, so thousands of tours stay a few MB.
+    public String overviewJson(Map<Tour, RouteResult> routes) throws IOException {
+        StringWriter json = new StringWriter(routes.size() * 1024);
+        int points = 0;
+        try (JsonGenerator gen = GeoJson.JSON.createGenerator(json)) {
+            gen.writeStartArray();
+            for (Map.Entry<Tour, RouteResult> route : routes.entrySet()) {
+                Tour tour = route.getKey();
+                // Simplified straight to the two overview tolerances; the full level pyramid is three
+                // times the work and would stay cached on every route
+                RouteGeometry detail = RouteSimplifier.simplify(route.getValue().getGeometry(),
+                        RouteSimplifier.pixelSizeDegrees(OVERVIEW_DETAIL_ZOOM));
+                RouteGeometry coarse = RouteSimplifier.simplify(detail,
+                        RouteSimplifier.pixelSizeDegrees(OVERVIEW_COARSE_ZOOM));
+                gen.writeStartObject();
+                gen.writeNumberField("id", tour.getId());
+                gen.writeStringField("name", tour.getName());
+                gen.writeStringField("color", colorFor(tour.getTransportType()));
+                gen.writeArrayFieldStart("levels");
+                if (coarse.size() < detail.size()) {
+                    writeOverviewLevel(gen, OVERVIEW_COARSE_ZOOM, coarse);
+                    points += coarse.size();
+                }
+                writeOverviewLevel(gen, RouteLevels.FULL_DETAIL_ZOOM, detail);
+                points += detail.size();
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+        log.debug("Built overview data for {} tours, {} points, {} chars", routes.size(), points, json.getBuffer().length());
+        return json.toString();
+    }
 
-        try {
-            // Build JSON structure for route data
-            ObjectNode root = MAPPER.createObjectNode();
-            ArrayNode bboxNode = root.putArray("bbox");
-            for (double v : route.getBbox()) {
-                bboxNode.add(v);
+    // Same colours for the map lines and the legend next to the map
+    public static String colorFor(String profile) {
+        return profile == null ? "#3388ff" : PROFILE_COLORS.getOrDefault(profile, "#3388ff");
+    }
+
+    private static void writeOverviewLevel(JsonGenerator gen, int maxZoom, RouteGeometry geometry) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("maxZoom", maxZoom);
+        gen.writeArrayFieldStart("coordinates");
+        RouteGeometry.Cursor c = geometry.cursor();
+        while (c.next()) {
+            gen.writeNumber(Math.round(c.lon() * 1e5) / 1e5);
+            gen.writeNumber(Math.round(c.lat() * 1e5) / 1e5);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private String routesJson(double[] bbox, Map<String, RouteResult> routes) throws IOException {
+        // Build JSON structure for route data, decoding the geometries while writing
+        int points = routes.values().stream().mapToInt(RouteResult::getPointCount).sum();
+        StringWriter json = new StringWriter(points * 32 + 256);
+        try (JsonGenerator gen = GeoJson.JSON.createGenerator(json)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("bbox");
+            for (double v : bbox) {
+                gen.writeNumber(v);
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("routes");
+            for (Map.Entry<String, RouteResult> route : routes.entrySet()) {
+                gen.writeStartObject();
+                gen.writeStringField("name", route.getKey());
+                gen.writeStringField("color", colorFor(route.getKey()));
+                // Leaflet picks the level matching its zoom, so far-out views never get every vertex
+                gen.writeArrayFieldStart("levels");
+                for (RouteLevels.Level level : route.getValue().getLevels().getLevels()) {
+                    gen.writeStartObject();
+                    gen.writeNumberField("maxZoom", level.getMaxZoom());
+                    gen.writeFieldName("geometry");
+                    GeoJson.writeLineString(gen, level.getGeometry());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
             }
-            root.set("geometry", route.getGeometry());
-
-            // Wrap JSON in a JavaScript variable declaration
-            String js = "var directions = " + MAPPER.writeValueAsString(root) + ";";
-
-            // Write to directions.js file
-            Files.writeString(
-                    outFile,
-                    js,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING
-            );
-
-            log.info("Successfully wrote directions.js to {}", outFile.toAbsolutePath());
-        } catch (IOException e) {
-            log.error("Failed to write directions.js to {}", outFile.toAbsolutePath(), e);
-            throw e;
+            gen.writeEndArray();
+            gen.writeEndObject();
         }
+        log.debug("Built route data for {} routes, {} points, {} chars", routes.size(), points, json.getBuffer().length());
+        return json.toString();
     }
-}
\ No newline at end of file
+}
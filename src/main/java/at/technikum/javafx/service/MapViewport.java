@@ -0,0 +1,151 @@
+package at.technikum.javafx.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// What part of the Web Mercator world a map of a given size shows: the centre in world pixels and a
+// fractional zoom. Tiles are drawn from the nearest whole zoom and scaled by the rest, as Leaflet does.
+public class MapViewport {
+
+    public static final int TILE_SIZE = 256;
+    public static final double MIN_ZOOM = 1;
+    public static final double MAX_ZOOM = 19;
+    private static final double MAX_LAT = 85.05112878;
+
+    private double width;
+    private double height;
+    private double zoom;
+    // World pixels at the current zoom
+    private double centerX;
+    private double centerY;
+
+    // Starts on Austria, like leaflet.html
+    public MapViewport(double width, double height) {
+        this.width = width;
+        this.height = height;
+        this.zoom = 7;
+        this.centerX = worldX(14.1, zoom);
+        this.centerY = worldY(47.6, zoom);
+    }
+
+    public void setSize(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public double getWidth() { return width; }
+    public double getHeight() { return height; }
+    public double getZoom() { return zoom; }
+
+    // Zoom of the tiles to draw; at x.5 the tiles are shown at 1.41 or 0.71 times their size
+    public int getTileZoom() {
+        return (int) Math.round(zoom);
+    }
+
+    // Centres the box at the highest zoom at which it fits with the padding on every side
+    public void fit(double[] bbox, double padding) {
+        double w = Math.max(1, width - 2 * padding), h = Math.max(1, height - 2 * padding);
+        double boxW = worldX(bbox[2], 0) - worldX(bbox[0], 0);
+        double boxH = worldY(bbox[1], 0) - worldY(bbox[3], 0);
+        double fit = Math.min(boxW > 0 ? log2(w / boxW) : MAX_ZOOM, boxH > 0 ? log2(h / boxH) : MAX_ZOOM);
+        zoom = clampZoom(Math.floor(fit * 4) / 4);
+        centerX = (worldX(bbox[0], zoom) + worldX(bbox[2], zoom)) / 2;
+        centerY = (worldY(bbox[3], zoom) + worldY(bbox[1], zoom)) / 2;
+    }
+
+    // Moves the content by dx, dy screen pixels, like dragging it
+    public void panBy(double dx, double dy) {
+        centerX -= dx;
+        centerY = Math.max(0, Math.min(worldSize(zoom), centerY - dy));
+    }
+
+    // Keeps the place under the screen point where it is, so zooming follows the mouse
+    public void zoomAt(double newZoom, double screenX, double screenY) {
+        newZoom = clampZoom(newZoom);
+        double scale = Math.pow(2, newZoom - zoom);
+        double wx = centerX + screenX - width / 2, wy = centerY + screenY - height / 2;
+        centerX = wx * scale - (screenX - width / 2);
+        centerY = wy * scale - (screenY - height / 2);
+        zoom = newZoom;
+    }
+
+    public double screenX(double lon) {
+        return worldX(lon, zoom) - centerX + width / 2;
+    }
+
+    public double screenY(double lat) {
+        return worldY(lat, zoom) - centerY + height / 2;
+    }
+
+    public double lon(double screenX) {
+        return (centerX + screenX - width / 2) / worldSize(zoom) * 360 - 180;
+    }
+
+    public double lat(double screenY) {
+        double n = Math.PI - 2 * Math.PI * (centerY + screenY - height / 2) / worldSize(zoom);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    // Every tile overlapping the screen, at the tile zoom, with where and how large it is drawn
+    public List<TileView> visibleTiles() {
+        int z = getTileZoom();
+        int n = 1 << z;
+        double size = TILE_SIZE * Math.pow(2, zoom - z);
+        double left = centerX - width / 2, top = centerY - height / 2;
+        int firstX = (int) Math.floor(left / size), lastX = (int) Math.floor((left + width) / size);
+        int firstY = Math.max(0, (int) Math.floor(top / size)), lastY = Math.min(n - 1, (int) Math.floor((top + height) / size));
+        List<TileView> tiles = new ArrayList<>();
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                tiles.add(new TileView(z, Math.floorMod(x, n), y, x * size - left, y * size - top, size));
+            }
+        }
+        return tiles;
+    }
+
+    public static double worldX(double lon, double zoom) {
+        return (lon + 180) / 360 * worldSize(zoom);
+    }
+
+    public static double worldY(double lat, double zoom) {
+        double sin = Math.sin(Math.toRadians(Math.max(-MAX_LAT, Math.min(MAX_LAT, lat))));
+        return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * worldSize(zoom);
+    }
+
+    private static double worldSize(double zoom) {
+        return TILE_SIZE * Math.pow(2, zoom);
+    }
+
+    private static double clampZoom(double zoom) {
+        return Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+    }
+
+    private static double log2(double v) {
+        return Math.log(v) / Math.log(2);
+    }
+
+    public static final class TileView {
+        private final int z;
+        private final int x;
+        private final int y;
+        private final double screenX;
+        private final double screenY;
+        private final double size;
+
+        TileView(int z, int x, int y, double screenX, double screenY, double size) {
+            this.z = z;
+            this.x = x;
+            this.y = y;
+            this.screenX = screenX;
+            this.screenY = screenY;
+            this.size = size;
+        }
+
+        public int getZ() { return z; }
+        public int getX() { return x; }
+        public int getY() { return y; }
+        public double getScreenX() { return screenX; }
+        public double getScreenY() { return screenY; }
+        public double getSize() { return size; }
+    }
+}
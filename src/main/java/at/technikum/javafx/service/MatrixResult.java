@@ -0,0 +1,28 @@
+package at.technikum.javafx.service;
+
+// Answer of one ORS matrix call: row i belongs to source i, column j to destination j.
+// Pairs ORS could not route are NaN.
+public class MatrixResult {
+    private final double[][] distances;
+    private final double[][] durations;
+
+    public MatrixResult(double[][] distances, double[][] durations) {
+        this.distances = distances;
+        this.durations = durations;
+    }
+
+    public int getSources()      { return distances.length; }
+    public int getDestinations() { return distances.length == 0 ? 0 : distances[0].length; }
+
+    public double getDistance(int source, int destination) { return distances[source][destination]; }
+    public double getDuration(int source, int destination) { return durations[source][destination]; }
+
+    public boolean isRoutable(int source, int destination) {
+        return !Double.isNaN(distances[source][destination]) && !Double.isNaN(durations[source][destination]);
+    }
+
+    @Override
+    public String toString() {
+        return "MatrixResult{sources=" + getSources() + ", destinations=" + getDestinations() + '}';
+    }
+}
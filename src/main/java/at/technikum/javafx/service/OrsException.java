@@ -0,0 +1,30 @@
+package at.technikum.javafx.service;
+
+import java.time.Duration;
+
+public class OrsException extends RuntimeException {
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public OrsException(String message, int statusCode, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public OrsException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = -1;
+        this.retryAfter = null;
+    }
+
+    // -1 when no HTTP response was received at all
+    public int getStatusCode() { return statusCode; }
+    public Duration getRetryAfter() { return retryAfter; }
+
+    // Quota exhaustion, server errors and transport failures may succeed later; other 4xx will not
+    public boolean isRetryable() {
+        return statusCode == -1 || statusCode == 429 || statusCode >= 500;
+    }
+}
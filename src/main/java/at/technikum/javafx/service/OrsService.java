@@ -1,5 +1,7 @@
 package at.technikum.javafx.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -15,61 +17,355 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
-public class OrsService {
+public class OrsService implements IGeocoder, IRouteProvider, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(OrsService.class);
-    private static final String BASE_URL;
-    private static final String API_KEY;
+    private static final String DEFAULT_BASE_URL = "https://api.openrouteservice.org";
+    private static final Properties CONFIG = new Properties();
     private static final ObjectMapper MAPPER = new ObjectMapper();
+    // Waypoint limit of the public ORS directions API
+    public static final int MAX_WAYPOINTS = 50;
 
     // Static block for loading ORS credentials and base URL from config file
     static {
-        Properties props = new Properties();
         try (InputStream is = OrsService.class.getResourceAsStream("/ors.properties")) {
-            props.load(is);
+            if (is == null) {
+                log.error("ors.properties not found on classpath, ORS calls will fail without an API key");
+            } else {
+                CONFIG.load(is);
+            }
         } catch (IOException e) {
             log.error("Failed to load ORS config", e);
             throw new ExceptionInInitializerError("Failed to load ORS config: " + e.getMessage());
         }
-        BASE_URL = props.getProperty("ors.base.url");
-        API_KEY = props.getProperty("ors.api.key");
-        log.info("OrsService configured with BASE_URL={}", BASE_URL);
     }
 
+    private final String baseUrl;
+    private final String apiKey;
+    private final Properties config;
+    private final ExecutorService executor;
     private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final GeocodeCache geocodeCache;
+    private final RouteCache routeCache;
+    private final Map<String, Isochrone> isochroneCache;
+
+    // Identical concurrent requests share one HTTP call and one parsed result
+    private final SingleFlight<String, Optional<GeocodeResult>> geocodeFlights = new SingleFlight<>("geocode");
+    private final SingleFlight<String, Optional<RouteResult>> directionsFlights = new SingleFlight<>("directions");
+    private final SingleFlight<String, Optional<Isochrone>> isochroneFlights = new SingleFlight<>("isochrones");
+
+    // Per-endpoint quotas, shared retry policy and one breaker for the whole ORS backend
+    private final RateLimiter geocodeLimiter;
+    private final RateLimiter directionsLimiter;
+    private final RateLimiter matrixLimiter;
+    private final RateLimiter isochroneLimiter;
+    private final int matrixMaxElements;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+
+    // Created once by OrsConfig; every view reaches ORS through this one client
+    public OrsService(GeocodeCache geocodeCache) {
+        this(CONFIG.getProperty("ors.base.url", DEFAULT_BASE_URL), CONFIG.getProperty("ors.api.key"),
+                CONFIG, geocodeCache);
+    }
+
+    // Lets tests and benchmarks point the service at a local ORS stand-in with their own quotas
+    public OrsService(String baseUrl, String apiKey, Properties config, GeocodeCache geocodeCache) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey == null ? "" : apiKey;
+        this.config = config;
+        // One pooled client for the whole app: HTTP/2 multiplexes all calls over one TLS connection,
+        // and virtual threads make the blocking body parsing cheap
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.requestTimeout = Duration.ofMillis((long) config("ors.http.request-timeout-ms", 30_000));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis((long) config("ors.http.connect-timeout-ms", 10_000)))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+        this.geocodeCache = geocodeCache;
+        this.routeCache = new RouteCache((long) (config("ors.route-cache.max-mb", 32) * 1024 * 1024));
+        this.geocodeLimiter = new RateLimiter(config("ors.rate.geocode", 1.6), config("ors.rate.geocode.burst", 5));
+        this.directionsLimiter = new RateLimiter(config("ors.rate.directions", 0.6), config("ors.rate.directions.burst", 3));
+        this.matrixLimiter = new RateLimiter(config("ors.rate.matrix", 0.6), config("ors.rate.matrix.burst", 2));
+        this.isochroneLimiter = new RateLimiter(config("ors.rate.isochrones", 0.3), config("ors.rate.isochrones.burst", 2));
+        int isochroneCacheSize = (int) config("ors.isochrone-cache.size", 64);
+        this.isochroneCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Isochrone> eldest) {
+                return size() > isochroneCacheSize;
+            }
+        };
+        this.matrixMaxElements = (int) config("ors.matrix.max-elements", 3_500);
+        this.retryPolicy = new RetryPolicy(
+                (int) config("ors.retry.max-attempts", 4),
+                Duration.ofMillis((long) config("ors.retry.base-delay-ms", 500)),
+                Duration.ofMillis((long) config("ors.retry.max-delay-ms", 30_000))
+        );
+        this.circuitBreaker = new CircuitBreaker(
+                "ors",
+                (int) config("ors.breaker.failure-threshold", 5),
+                Duration.ofSeconds((long) config("ors.breaker.open-seconds", 30))
+        );
+        log.info("OrsService initialized with BASE_URL={}", this.baseUrl);
+    }
+
+    private double config(String key, double defaultValue) {
+        String value = config.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    // Aborts in-flight exchanges; called by Spring on shutdown
+    @Override
+    public void close() {
+        httpClient.shutdownNow();
+        executor.shutdownNow();
+        log.info("OrsService closed");
+    }
+
+    public GeocodeCache getGeocodeCache() {
+        return geocodeCache;
+    }
+
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    public SingleFlight<String, Optional<GeocodeResult>> getGeocodeFlights() {
+        return geocodeFlights;
+    }
+
+    public SingleFlight<String, Optional<RouteResult>> getDirectionsFlights() {
+        return directionsFlights;
+    }
 
-    public OrsService() {
-        this.httpClient = HttpClient.newHttpClient();
-        log.info("OrsService initialized");
+    // Sources x destinations one matrix request may ask for
+    public int getMatrixMaxElements() {
+        return matrixMaxElements;
     }
 
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    // True when a full route (2 geocodes + directions) fits the quotas right now and still leaves
+    // a permit per endpoint for interactive requests; background work checks this before calling ORS
+    public boolean hasSpareCapacity() {
+        return circuitBreaker.getState() == CircuitBreaker.State.CLOSED
+                && geocodeLimiter.available() >= 3
+                && directionsLimiter.available() >= 2;
+    }
+
+    @Override
     public Optional<GeocodeResult> geocode(String address) {
-        log.info("geocode() called for address='{}'", address);
-        try {
-            String textParam = URLEncoder.encode(address, StandardCharsets.UTF_8);
-            String uri = String.format(
-                    "%s/geocode/search?api_key=%s&text=%s",
-                    BASE_URL, API_KEY, textParam
-            );
-            log.debug("Sending geocode request to {}", uri);
+        return await(geocodeAsync(address));
+    }
+
+    @Override
+    public Optional<RouteResult> directions(
+            String profile,
+            double fromLon, double fromLat,
+            double toLon, double toLat
+    ) {
+        return await(directionsAsync(profile, fromLon, fromLat, toLon, toLat));
+    }
+
+    @Override
+    public CompletableFuture<Optional<GeocodeResult>> geocodeAsync(String address) {
+        log.info("geocodeAsync() called for address='{}'", address);
+
+        Optional<GeocodeResult> cached = geocodeCache.get(address);
+        if (cached.isPresent()) {
+            log.debug("geocode() cache hit for '{}' (hits={}, misses={})",
+                    address, geocodeCache.getHits(), geocodeCache.getMisses());
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Optional<GeocodeResult>> call = geocodeFlights.execute(
+                GeocodeCache.normalize(address),
+                () -> resilient("geocode", geocodeLimiter, () -> sendGeocode(address))
+        );
+
+        // While ORS is degraded an expired cache entry is better than an error dialog
+        return cancelUpstream(call, call.handle((result, ex) -> {
+            if (ex == null) return result;
+            Optional<GeocodeResult> stale = geocodeCache.getStale(address);
+            if (stale.isPresent() && unwrap(ex) instanceof OrsException oe && oe.isRetryable()) {
+                log.warn("ORS geocode unavailable ({}), serving cached result for '{}'", oe.getMessage(), address);
+                return stale;
+            }
+            throw ex instanceof CompletionException ce ? ce : new CompletionException(ex);
+        }));
+    }
+
+    private CompletableFuture<Optional<GeocodeResult>> sendGeocode(String address) {
+        String textParam = URLEncoder.encode(address, StandardCharsets.UTF_8);
+        String uri = String.format(
+                "%s/geocode/search?api_key=%s&text=%s",
+                baseUrl, apiKey, textParam
+        );
+        log.debug("Sending geocode request to {}", uri);
+
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+
+        CompletableFuture<HttpResponse<InputStream>> call =
+                httpClient.sendAsync(req, HttpResponse.BodyHandlers.ofInputStream());
+        return cancelUpstream(call, call.thenApply(resp -> parseGeocode(address, resp)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<RouteResult>> directionsAsync(
+            String profile,
+            double fromLon, double fromLat,
+            double toLon, double toLat
+    ) {
+        return directionsAsync(profile, List.of(new double[]{fromLon, fromLat}, new double[]{toLon, toLat}));
+    }
+
+    // Multi-stop routes are one request; ORS accepts up to MAX_WAYPOINTS coordinates
+    @Override
+    public CompletableFuture<Optional<RouteResult>> directionsAsync(String profile, List<double[]> waypoints) {
+        if (waypoints.size() < 2 || waypoints.size() > MAX_WAYPOINTS) {
+            throw new IllegalArgumentException("A route needs 2 to " + MAX_WAYPOINTS + " waypoints, got " + waypoints.size());
+        }
+        StringBuilder key = new StringBuilder(profile);
+        for (double[] point : waypoints) key.append('|').append(point[0]).append(',').append(point[1]);
+        log.info("directionsAsync() called: {}", key);
+
+        Optional<RouteResult> cached = routeCache.get(key.toString());
+        if (cached.isPresent()) {
+            log.debug("directions() cache hit for {} ({} routes, {} bytes cached)",
+                    key, routeCache.size(), routeCache.getBytes());
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return directionsFlights.execute(key.toString(), () -> {
+            CompletableFuture<Optional<RouteResult>> call = resilient("directions", directionsLimiter,
+                    () -> sendDirections(profile, waypoints));
+            call.thenAccept(route -> route.ifPresent(r -> routeCache.put(key.toString(), r)));
+            return call;
+        });
+    }
+
+    private CompletableFuture<Optional<RouteResult>> sendDirections(String profile, List<double[]> waypoints) {
+        // Prepare request body with coordinates
+        ObjectNode body = MAPPER.createObjectNode();
+        ArrayNode coords = body.putArray("coordinates");
+        for (double[] point : waypoints) coords.addArray().add(point[0]).add(point[1]);
+
+        String uri = String.format(
+                "%s/v2/directions/%s/geojson",
+                baseUrl, profile
+        );
+        log.debug("Sending directions request to {}", uri);
+
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .timeout(requestTimeout)
+                .header("Authorization", apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, application/geo+json")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
 
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(uri))
-                    .header("Accept", "application/json")
-                    .GET()
-                    .build();
+        // Long routes are several MB, so the body is parsed as it streams in instead of being buffered
+        CompletableFuture<HttpResponse<InputStream>> call =
+                httpClient.sendAsync(req, HttpResponse.BodyHandlers.ofInputStream());
+        return cancelUpstream(call, call.thenApply(this::parseDirections));
+    }
+
+    public MatrixResult matrix(String profile, List<double[]> sources, List<double[]> destinations) {
+        return await(matrixAsync(profile, sources, destinations));
+    }
+
+    // Distance and duration from every source to every destination ([lon, lat] each) in one call
+    public CompletableFuture<MatrixResult> matrixAsync(String profile, List<double[]> sources, List<double[]> destinations) {
+        log.info("matrixAsync() called: profile='{}' sources={} destinations={}",
+                profile, sources.size(), destinations.size());
+        if (sources.isEmpty() || destinations.isEmpty()) {
+            throw new IllegalArgumentException("A matrix needs at least one source and one destination");
+        }
+        if ((long) sources.size() * destinations.size() > matrixMaxElements) {
+            throw new IllegalArgumentException("Matrix of " + sources.size() + "x" + destinations.size()
+                    + " exceeds the limit of " + matrixMaxElements + " elements");
+        }
+        return resilient("matrix", matrixLimiter, () -> sendMatrix(profile, sources, destinations));
+    }
+
+    private CompletableFuture<MatrixResult> sendMatrix(String profile, List<double[]> sources, List<double[]> destinations) {
+        // Sources first, then destinations; the index lists tell ORS which is which
+        ObjectNode body = MAPPER.createObjectNode();
+        ArrayNode locations = body.putArray("locations");
+        ArrayNode sourceIndexes = body.putArray("sources");
+        ArrayNode destinationIndexes = body.putArray("destinations");
+        for (double[] source : sources) {
+            sourceIndexes.add(locations.size());
+            locations.addArray().add(source[0]).add(source[1]);
+        }
+        for (double[] destination : destinations) {
+            destinationIndexes.add(locations.size());
+            locations.addArray().add(destination[0]).add(destination[1]);
+        }
+        body.putArray("metrics").add("distance").add("duration");
 
-            var resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
+        String uri = String.format(
+                "%s/v2/matrix/%s",
+                baseUrl, profile
+        );
+        log.debug("Sending matrix request to {} ({} locations)", uri, locations.size());
+
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .timeout(requestTimeout)
+                .header("Authorization", apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+
+        CompletableFuture<HttpResponse<InputStream>> call =
+                httpClient.sendAsync(req, HttpResponse.BodyHandlers.ofInputStream());
+        return cancelUpstream(call, call.thenApply(resp -> parseMatrix(resp, sources.size(), destinations.size())));
+    }
+
+    private Optional<GeocodeResult> parseGeocode(String address, HttpResponse<InputStream> resp) {
+        try (InputStream body = decodedBody(resp)) {
             if (resp.statusCode() != 200) {
                 String msg = "ORS geocode failed: HTTP " + resp.statusCode();
-                log.error(msg + " - body: {}", resp.body());
-                throw new RuntimeException(msg);
+                log.error(msg + " - body: {}", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                throw new OrsException(msg, resp.statusCode(), retryAfter(resp));
             }
 
-            JsonNode root = MAPPER.readTree(resp.body());
+            JsonNode root = MAPPER.readTree(body);
             JsonNode features = root.path("features");
             if (!features.isArray() || features.isEmpty()) {
                 log.warn("No features returned for geocode('{}')", address);
@@ -91,83 +387,327 @@ public class OrsService {
             };
 
             GeocodeResult result = new GeocodeResult(lat, lon, bbox);
+            geocodeCache.put(address, result);
             log.info("geocode() success for '{}': {}", address, result);
             return Optional.of(result);
 
-        } catch (IOException | InterruptedException e) {
+        } catch (JsonProcessingException e) {
             log.error("Error calling ORS geocode for '{}'", address, e);
             throw new RuntimeException("Error calling ORS geocode", e);
+        } catch (IOException e) {
+            throw new OrsException("ORS geocode response could not be read: " + e.getMessage(), e);
         }
     }
 
-    public Optional<RouteResult> directions(
-            String profile,
-            double fromLon, double fromLat,
-            double toLon, double toLat
-    ) {
-        log.info("directions() called: profile='{}' from=({},{}) to=({},{})",
-                profile, fromLon, fromLat, toLon, toLat);
-        try {
-            // Prepare request body with coordinates
-            ObjectNode body = MAPPER.createObjectNode();
-            ArrayNode coords = body.putArray("coordinates");
-            coords.addArray().add(fromLon).add(fromLat);
-            coords.addArray().add(toLon).add(toLat);
-            String jsonBody = MAPPER.writeValueAsString(body);
-
-            String uri = String.format(
-                    "%s/v2/directions/%s/geojson",
-                    BASE_URL, profile
+    private Optional<RouteResult> parseDirections(HttpResponse<InputStream> resp) {
+        try (InputStream body = decodedBody(resp)) {
+            if (resp.statusCode() != 200) {
+                log.error("ORS directions failed: HTTP {} body {}",
+                        resp.statusCode(), new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                throw new OrsException("ORS directions failed: HTTP " + resp.statusCode(),
+                        resp.statusCode(), retryAfter(resp));
+            }
+
+            Optional<RouteResult> result = DirectionsParser.parse(body);
+            if (result.isEmpty()) {
+                log.warn("No route features returned for directions()");
+            } else {
+                log.info("directions() success: {}", result.get());
+            }
+            return result;
+
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing ORS directions response", e);
+            throw new RuntimeException("Error calling ORS directions", e);
+        } catch (IOException e) {
+            // The connection broke while the body was still streaming in
+            throw new OrsException("ORS directions response could not be read: " + e.getMessage(), e);
+        }
+    }
+
+    private MatrixResult parseMatrix(HttpResponse<InputStream> resp, int sources, int destinations) {
+        try (InputStream body = decodedBody(resp)) {
+            if (resp.statusCode() != 200) {
+                log.error("ORS matrix failed: HTTP {} body {}",
+                        resp.statusCode(), new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                throw new OrsException("ORS matrix failed: HTTP " + resp.statusCode(),
+                        resp.statusCode(), retryAfter(resp));
+            }
+
+            JsonNode root = MAPPER.readTree(body);
+            MatrixResult result = new MatrixResult(
+                    readMatrix(root.path("distances"), sources, destinations),
+                    readMatrix(root.path("durations"), sources, destinations)
             );
-            log.debug("Sending directions request to {}", uri);
+            log.info("matrix() success: {}", result);
+            return result;
+
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing ORS matrix response", e);
+            throw new RuntimeException("Error calling ORS matrix", e);
+        } catch (IOException e) {
+            throw new OrsException("ORS matrix response could not be read: " + e.getMessage(), e);
+        }
+    }
+
+    // ORS answers null for pairs it cannot route
+    private static double[][] readMatrix(JsonNode rows, int sources, int destinations) throws JsonProcessingException {
+        if (!rows.isArray() || rows.size() != sources) {
+            throw new JsonMappingException(null, "Matrix response has " + rows.size() + " rows, expected " + sources);
+        }
+        double[][] matrix = new double[sources][destinations];
+        for (int i = 0; i < sources; i++) {
+            JsonNode row = rows.get(i);
+            if (row.size() != destinations) {
+                throw new JsonMappingException(null, "Matrix row " + i + " has " + row.size()
+                        + " values, expected " + destinations);
+            }
+            for (int j = 0; j < destinations; j++) {
+                JsonNode value = row.get(j);
+                matrix[i][j] = value.isNumber() ? value.asDouble() : Double.NaN;
+            }
+        }
+        return matrix;
+    }
+
+    public Optional<Isochrone> isochrone(String profile, double lon, double lat, int seconds) {
+        return await(isochroneAsync(profile, lon, lat, seconds));
+    }
+
+    // Area reachable from (lon, lat) within the given travel time. The point is rounded to ~10 m so
+    // repeated searches around the same place hit the cache.
+    public CompletableFuture<Optional<Isochrone>> isochroneAsync(String profile, double lon, double lat, int seconds) {
+        log.info("isochroneAsync() called: profile='{}' at=({},{}) seconds={}", profile, lon, lat, seconds);
+        double roundedLon = Math.round(lon * 1e4) / 1e4;
+        double roundedLat = Math.round(lat * 1e4) / 1e4;
+        String key = profile + "|" + roundedLon + "," + roundedLat + "|" + seconds;
+        synchronized (isochroneCache) {
+            Isochrone cached = isochroneCache.get(key);
+            if (cached != null) {
+                log.debug("isochrone() cache hit for {}", key);
+                return CompletableFuture.completedFuture(Optional.of(cached));
+            }
+        }
 
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(uri))
-                    .header("Authorization", API_KEY)
-                    .header("Content-Type", "application/json")
-                    .header("Accept", "application/json, application/geo+json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                    .build();
+        return isochroneFlights.execute(key, () -> {
+            CompletableFuture<Optional<Isochrone>> call = resilient("isochrones", isochroneLimiter,
+                    () -> sendIsochrone(profile, roundedLon, roundedLat, seconds));
+            call.thenAccept(area -> area.ifPresent(a -> {
+                synchronized (isochroneCache) {
+                    isochroneCache.put(key, a);
+                }
+            }));
+            return call;
+        });
+    }
+
+    private CompletableFuture<Optional<Isochrone>> sendIsochrone(String profile, double lon, double lat, int seconds) {
+        ObjectNode body = MAPPER.createObjectNode();
+        body.putArray("locations").addArray().add(lon).add(lat);
+        body.putArray("range").add(seconds);
+        body.put("range_type", "time");
+
+        String uri = String.format(
+                "%s/v2/isochrones/%s",
+                baseUrl, profile
+        );
+        log.debug("Sending isochrone request to {}", uri);
+
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .timeout(requestTimeout)
+                .header("Authorization", apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, application/geo+json")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+
+        CompletableFuture<HttpResponse<InputStream>> call =
+                httpClient.sendAsync(req, HttpResponse.BodyHandlers.ofInputStream());
+        return cancelUpstream(call, call.thenApply(resp -> parseIsochrone(resp, lon, lat, seconds)));
+    }
 
-            var resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
+    private Optional<Isochrone> parseIsochrone(HttpResponse<InputStream> resp, double lon, double lat, int seconds) {
+        try (InputStream body = decodedBody(resp)) {
             if (resp.statusCode() != 200) {
-                log.error("ORS directions failed: HTTP {} body {}", resp.statusCode(), resp.body());
-                throw new RuntimeException("ORS directions failed: HTTP " + resp.statusCode());
+                log.error("ORS isochrones failed: HTTP {} body {}",
+                        resp.statusCode(), new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                throw new OrsException("ORS isochrones failed: HTTP " + resp.statusCode(),
+                        resp.statusCode(), retryAfter(resp));
             }
 
-            JsonNode root = MAPPER.readTree(resp.body());
-            JsonNode features = root.path("features");
-            if (!features.isArray() || features.isEmpty()) {
-                log.warn("No route features returned for directions()");
+            // One feature per requested range; its geometry is a Polygon (outer ring plus holes)
+            List<double[]> rings = new ArrayList<>();
+            for (JsonNode feature : MAPPER.readTree(body).path("features")) {
+                JsonNode geometry = feature.path("geometry");
+                JsonNode polygons = geometry.path("coordinates");
+                if ("Polygon".equals(geometry.path("type").asText())) {
+                    readRings(polygons, rings);
+                } else if ("MultiPolygon".equals(geometry.path("type").asText())) {
+                    for (JsonNode polygon : polygons) readRings(polygon, rings);
+                }
+            }
+            if (rings.isEmpty()) {
+                log.warn("No isochrone polygon returned for ({}, {})", lon, lat);
                 return Optional.empty();
             }
 
-            // Parse route properties and geometry
-            JsonNode feat = features.get(0);
-            JsonNode props = feat.path("properties").path("segments").get(0);
-            double distance = props.path("distance").asDouble();
-            double duration = props.path("duration").asDouble();
-            JsonNode geometry = feat.path("geometry");
+            Isochrone result = new Isochrone(lon, lat, seconds, rings);
+            log.info("isochrone() success: {}", result);
+            return Optional.of(result);
+
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing ORS isochrones response", e);
+            throw new RuntimeException("Error calling ORS isochrones", e);
+        } catch (IOException e) {
+            throw new OrsException("ORS isochrones response could not be read: " + e.getMessage(), e);
+        }
+    }
 
-            // Parse bounding box if available
-            JsonNode bboxNode = root.path("bbox");
-            double[] bbox = null;
-            if (bboxNode.isArray() && bboxNode.size() == 4) {
-                bbox = new double[]{
-                        bboxNode.get(0).asDouble(),
-                        bboxNode.get(1).asDouble(),
-                        bboxNode.get(2).asDouble(),
-                        bboxNode.get(3).asDouble()
-                };
+    private static void readRings(JsonNode polygon, List<double[]> rings) throws JsonProcessingException {
+        for (JsonNode ring : polygon) {
+            if (ring.size() < 3) {
+                throw new JsonMappingException(null, "Isochrone ring has only " + ring.size() + " points");
             }
+            double[] coordinates = new double[ring.size() * 2];
+            for (int i = 0; i < ring.size(); i++) {
+                coordinates[2 * i] = ring.get(i).get(0).asDouble();
+                coordinates[2 * i + 1] = ring.get(i).get(1).asDouble();
+            }
+            rings.add(coordinates);
+        }
+    }
 
-            RouteResult result = new RouteResult(distance, duration, geometry, bbox);
-            log.info("directions() success: {}", result);
-            return Optional.of(result);
+    // Runs a call through rate limiter, circuit breaker and retry; cancelling the result aborts the current attempt
+    private <T> CompletableFuture<T> resilient(String endpoint, RateLimiter limiter,
+                                               Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        attempt(endpoint, limiter, call, 1, result, current);
+        result.whenComplete((v, ex) -> {
+            CompletableFuture<T> running = current.get();
+            if (result.isCancelled() && running != null) running.cancel(true);
+        });
+        return result;
+    }
 
-        } catch (IOException | InterruptedException e) {
-            log.error("Error calling ORS directions", e);
-            throw new RuntimeException("Error calling ORS directions", e);
+    private <T> void attempt(String endpoint, RateLimiter limiter, Supplier<CompletableFuture<T>> call,
+                             int attempt, CompletableFuture<T> result, AtomicReference<CompletableFuture<T>> current) {
+        if (result.isDone()) return;
+        if (!circuitBreaker.allowRequest()) {
+            result.completeExceptionally(new OrsException(
+                    "ORS " + endpoint + " temporarily unavailable (circuit open)", 503, null));
+            return;
+        }
+
+        long waitNanos = limiter.reserve(1);
+        if (waitNanos > 0) {
+            log.debug("ORS {} rate limited, delaying request by {} ms", endpoint, waitNanos / 1_000_000);
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)
+                    .execute(() -> send(endpoint, limiter, call, attempt, result, current));
+        } else {
+            send(endpoint, limiter, call, attempt, result, current);
+        }
+    }
+
+    private <T> void send(String endpoint, RateLimiter limiter, Supplier<CompletableFuture<T>> call,
+                          int attempt, CompletableFuture<T> result, AtomicReference<CompletableFuture<T>> current) {
+        // Cancelled while waiting for the rate limiter
+        if (result.isDone()) {
+            circuitBreaker.releaseTrial();
+            return;
+        }
+
+        CompletableFuture<T> running;
+        try {
+            running = call.get();
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        current.set(running);
+
+        running.whenComplete((value, ex) -> {
+            if (ex == null) {
+                circuitBreaker.recordSuccess();
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = unwrap(ex);
+            if (cause instanceof IOException) {
+                cause = new OrsException("ORS " + endpoint + " request failed: " + cause.getMessage(), cause);
+            }
+            if (!(cause instanceof OrsException failure) || !failure.isRetryable()) {
+                // A 4xx answer still proves ORS is reachable; cancellations and parse errors prove nothing
+                if (cause instanceof OrsException) circuitBreaker.recordSuccess();
+                else circuitBreaker.releaseTrial();
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            circuitBreaker.recordFailure();
+            if (!retryPolicy.shouldRetry(attempt, failure.getRetryAfter())) {
+                if (attempt < retryPolicy.getMaxAttempts()) {
+                    log.warn("ORS {} asked to retry after {}, longer than the retry delay allows; giving up",
+                            endpoint, failure.getRetryAfter());
+                }
+                result.completeExceptionally(failure);
+                return;
+            }
+
+            long delayMs = retryPolicy.delayMillis(attempt, failure.getRetryAfter());
+            log.warn("ORS {} attempt {}/{} failed ({}), retrying in {} ms",
+                    endpoint, attempt, retryPolicy.getMaxAttempts(), failure.getMessage(), delayMs);
+            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(endpoint, limiter, call, attempt + 1, result, current));
+        });
+    }
+
+    // HttpClient does not decompress by itself; gzip is inflated while the parser reads
+    private static InputStream decodedBody(HttpResponse<InputStream> resp) throws IOException {
+        boolean gzip = resp.headers().firstValue("Content-Encoding")
+                .map(v -> v.trim().equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(resp.body(), 16 * 1024) : resp.body();
+    }
+
+    // Retry-After is either delta-seconds or an HTTP date
+    private static Duration retryAfter(HttpResponse<?> resp) {
+        return resp.headers().firstValue("Retry-After").map(value -> {
+            try {
+                return Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                try {
+                    ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    Duration d = Duration.between(ZonedDateTime.now(at.getZone()), at);
+                    return d.isNegative() ? Duration.ZERO : d;
+                } catch (DateTimeParseException ignored) {
+                    return null;
+                }
+            }
+        }).orElse(null);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    // Cancelling a derived stage does not cancel its source, so forward it to abort the HTTP exchange
+    static <T> CompletableFuture<T> cancelUpstream(CompletableFuture<?> upstream, CompletableFuture<T> downstream) {
+        downstream.whenComplete((r, ex) -> {
+            if (downstream.isCancelled()) upstream.cancel(true);
+        });
+        return downstream;
+    }
+
+    // Blocking bridge for callers that are not on the FX thread
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new RuntimeException(e.getCause());
         }
     }
-}
\ No newline at end of file
+}
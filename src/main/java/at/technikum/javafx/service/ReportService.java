@@ -2,13 +2,6 @@ package at.technikum.javafx.service;
 
 import at.technikum.javafx.entity.Tour;
 import at.technikum.javafx.entity.TourLog;
-import javafx.application.Platform;
-import javafx.concurrent.Worker;
-import javafx.embed.swing.SwingFXUtils;
-import javafx.scene.SnapshotParameters;
-import javafx.scene.image.WritableImage;
-import javafx.scene.web.WebEngine;
-import javafx.scene.web.WebView;
 import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 import org.slf4j.Logger;
@@ -17,14 +10,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -33,18 +25,25 @@ import java.util.stream.Stream;
 public class ReportService implements IReportService {
     private static final Logger log = LoggerFactory.getLogger(ReportService.class);
 
+    // The map box in tour-report.jrxml is 240 pt wide; three pixels per point keep the print sharp
+    static final int MAP_IMAGE_SIZE = 720;
+
     private final ITourLogService tourLogService;
-    private final Path leafletDir = Paths.get(
-            System.getProperty("user.home"), ".tourplanner", "leaflet"
-    );
+    private final IRouteService routeService;
+    private final RouteImageRenderer routeImageRenderer;
+    private final IRouteThumbnailService routeThumbnailService;
 
-    public ReportService(ITourLogService tourLogService) {
+    public ReportService(ITourLogService tourLogService, IRouteService routeService,
+                         RouteImageRenderer routeImageRenderer, IRouteThumbnailService routeThumbnailService) {
         this.tourLogService = tourLogService;
-        log.info("ReportService initialized; leafletDir={}", leafletDir);
+        this.routeService = routeService;
+        this.routeImageRenderer = routeImageRenderer;
+        this.routeThumbnailService = routeThumbnailService;
+        log.info("ReportService initialized");
     }
 
     @Override
-    public void generateTourReport(Tour tour, WebView ignoredMapView, File outputPdf) throws Exception {
+    public void generateTourReport(Tour tour, File outputPdf) throws Exception {
         log.info("generateTourReport: tourId={} output='{}'", tour.getId(), outputPdf.getAbsolutePath());
         long startMs = System.currentTimeMillis();
 
@@ -68,40 +67,13 @@ public class ReportService implements IReportService {
             params.put("popularity",      String.valueOf(logs.size()));
             params.put("childFriendly",   String.format("%.2f", computeChildFriendliness(logs)));
 
-            // Ensure map is fully loaded before snapshot
-            WebEngine engine = ignoredMapView.getEngine();
-            if (engine.getLoadWorker().getState() != Worker.State.SUCCEEDED) {
-                CountDownLatch loadLatch = new CountDownLatch(1);
-                engine.getLoadWorker().stateProperty().addListener((obs, oldState, newState) -> {
-                    if (newState == Worker.State.SUCCEEDED) loadLatch.countDown();
-                });
-                if (!loadLatch.await(5, TimeUnit.SECONDS)) {
-                    throw new IllegalStateException("Map did not finish loading");
-                }
-            }
-
-            // Take snapshot of the map for the report
-            WritableImage snapshotImage;
-            if (Platform.isFxApplicationThread()) {
-                snapshotImage = ignoredMapView.snapshot(new SnapshotParameters(), null);
+            Optional<BufferedImage> mapImage = routeImage(tour, MAP_IMAGE_SIZE, MAP_IMAGE_SIZE);
+            if (mapImage.isPresent()) {
+                params.put("mapImage", mapImage.get());
             } else {
-                CountDownLatch snapLatch = new CountDownLatch(1);
-                final WritableImage[] tmp = new WritableImage[1];
-                Platform.runLater(() -> {
-                    tmp[0] = ignoredMapView.snapshot(new SnapshotParameters(), null);
-                    snapLatch.countDown();
-                });
-                if (!snapLatch.await(5, TimeUnit.SECONDS)) {
-                    throw new IllegalStateException("Snapshot timed out");
-                }
-                snapshotImage = tmp[0];
+                log.info("Tour {} has no stored route, report is generated without a map", tour.getId());
             }
 
-            // Save map image temporarily for report
-            File mapPng = File.createTempFile("tour-map-", ".png");
-            ImageIO.write(SwingFXUtils.fromFXImage(snapshotImage, null), "png", mapPng);
-            params.put("mapImage", mapPng.getAbsolutePath());
-
             // Fill and export the PDF
             JRBeanCollectionDataSource ds = new JRBeanCollectionDataSource(logs);
             JasperPrint jp = JasperFillManager.fillReport(jasperReport, params, ds);
@@ -133,7 +105,10 @@ public class ReportService implements IReportService {
                         .mapToLong(l -> safeParseSeconds(l.getTotalTime()))
                         .average().orElse(0);
                 String avgTime = formatDuration(avgSecs);
-                return new TourSummary(t.getName(), avgDist, avgTime, avgRating);
+                // The same thumbnail the tour list shows
+                BufferedImage routeImage = routeImage(t, IRouteThumbnailService.LIST_WIDTH,
+                        IRouteThumbnailService.LIST_HEIGHT).orElse(null);
+                return new TourSummary(t.getName(), avgDist, avgTime, avgRating, routeImage);
             }).collect(Collectors.toList());
 
             JRBeanCollectionDataSource ds = new JRBeanCollectionDataSource(summaries);
@@ -149,6 +124,22 @@ public class ReportService implements IReportService {
         }
     }
 
+    // Drawn off-screen from the stored route and handed to Jasper in memory, so reports never depend on the
+    // thumbnail directory being writable; an image of the same route and size already on disk is reused
+    private Optional<BufferedImage> routeImage(Tour tour, int width, int height) {
+        Optional<Path> stored = routeThumbnailService.existing(tour, width, height);
+        if (stored.isPresent()) {
+            try {
+                BufferedImage image = ImageIO.read(stored.get().toFile());
+                if (image != null) return Optional.of(image);
+            } catch (IOException e) {
+                log.warn("Could not read route image {}, drawing it again", stored.get(), e);
+            }
+        }
+        return routeService.storedRoute(tour)
+                .map(route -> routeImageRenderer.render(route, tour.getTransportType(), width, height));
+    }
+
     // Simple metric based on difficulty, time, and distance
     private double computeChildFriendliness(List<TourLog> logs) {
         if (logs.isEmpty()) return 0.0;
@@ -0,0 +1,35 @@
+package at.technikum.javafx.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelay.toMillis();
+        this.maxDelayMs = maxDelay.toMillis();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    // A Retry-After beyond the longest delay is not cut short: asking again earlier would only be refused again
+    public boolean shouldRetry(int attempt, Duration retryAfter) {
+        return attempt < maxAttempts && (retryAfter == null || retryAfter.toMillis() <= maxDelayMs);
+    }
+
+    // Retry-After wins when the server sent one; otherwise exponential backoff with full jitter
+    public long delayMillis(int attempt, Duration retryAfter) {
+        if (retryAfter != null) {
+            return retryAfter.toMillis();
+        }
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
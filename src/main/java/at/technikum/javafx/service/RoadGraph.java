@@ -0,0 +1,173 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntPredicate;
+
+// Read-only road graph written by RoadGraphBuilder and mapped into memory. Adjacency is stored in
+// compressed sparse row form in both directions, so a search touches a few contiguous arrays and
+// nothing is deserialized when the file is opened.
+//
+// Layout (big-endian), n nodes, m directed edges, c grid cells:
+//   header     [magic "TPRG"][version][n][m][c][cell size * 1e7]
+//   nodes      lat int[n], lon int[n] (degrees * 1e7)
+//   out edges  firstOut int[n + 1], target int[m], length float[m] (metres)
+//   in edges   firstIn int[n + 1], inEdge int[m] (id of the out edge), inSource int[m]
+//   grid       cellKey long[c] (sorted), cellStart int[c + 1], cellNodes int[n]
+//   edge tags  access byte[m] (ACCESS_* bits), car speed byte[m] (km/h)
+public final class RoadGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(RoadGraph.class);
+
+    static final int MAGIC = 0x54505247;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final double SCALE = 1e7;
+
+    public static final int ACCESS_CAR = 1;
+    public static final int ACCESS_BIKE = 2;
+    public static final int ACCESS_FOOT = 4;
+
+    private final MappedByteBuffer buffer;
+    private final int nodes;
+    private final int edges;
+    private final int cells;
+    private final double cellSize;
+
+    private final int latOffset, lonOffset;
+    private final int firstOutOffset, targetOffset, lengthOffset;
+    private final int firstInOffset, inEdgeOffset, inSourceOffset;
+    private final int cellKeyOffset, cellStartOffset, cellNodesOffset;
+    private final int accessOffset, speedOffset;
+
+    private RoadGraph(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a road graph (version " + VERSION + ")");
+        }
+        nodes = buffer.getInt(8);
+        edges = buffer.getInt(12);
+        cells = buffer.getInt(16);
+        cellSize = buffer.getInt(20) / SCALE;
+
+        latOffset = HEADER_BYTES;
+        lonOffset = latOffset + 4 * nodes;
+        firstOutOffset = lonOffset + 4 * nodes;
+        targetOffset = firstOutOffset + 4 * (nodes + 1);
+        lengthOffset = targetOffset + 4 * edges;
+        firstInOffset = lengthOffset + 4 * edges;
+        inEdgeOffset = firstInOffset + 4 * (nodes + 1);
+        inSourceOffset = inEdgeOffset + 4 * edges;
+        cellKeyOffset = inSourceOffset + 4 * edges;
+        cellStartOffset = cellKeyOffset + 8 * cells;
+        cellNodesOffset = cellStartOffset + 4 * (cells + 1);
+        accessOffset = cellNodesOffset + 4 * nodes;
+        speedOffset = accessOffset + edges;
+
+        if (nodes < 0 || edges < 0 || cells < 0 || (long) speedOffset + edges != buffer.capacity()) {
+            throw new IllegalArgumentException("Road graph is truncated or corrupt");
+        }
+    }
+
+    // The mapping stays valid after the channel is closed and is released by the GC
+    public static RoadGraph open(Path file) throws IOException {
+        long start = System.nanoTime();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        RoadGraph graph = new RoadGraph(buffer);
+        log.info("Opened road graph {} with {} nodes and {} edges in {} ms",
+                file, graph.nodes, graph.edges, (System.nanoTime() - start) / 1_000_000);
+        return graph;
+    }
+
+    public int nodeCount() { return nodes; }
+    public int edgeCount() { return edges; }
+
+    public double lat(int node) { return buffer.getInt(latOffset + 4 * node) / SCALE; }
+    public double lon(int node) { return buffer.getInt(lonOffset + 4 * node) / SCALE; }
+
+    // Out edges of a node are the ids firstOut(node) .. firstOut(node + 1) - 1
+    public int firstOut(int node)    { return buffer.getInt(firstOutOffset + 4 * node); }
+    public int target(int edge)      { return buffer.getInt(targetOffset + 4 * edge); }
+    public double length(int edge)   { return buffer.getFloat(lengthOffset + 4 * edge); }
+    public int access(int edge)      { return buffer.get(accessOffset + edge); }
+    public int carSpeedKmh(int edge) { return buffer.get(speedOffset + edge) & 0xFF; }
+
+    // In edges of a node are the slots firstIn(node) .. firstIn(node + 1) - 1
+    public int firstIn(int node)     { return buffer.getInt(firstInOffset + 4 * node); }
+    public int inEdge(int slot)      { return buffer.getInt(inEdgeOffset + 4 * slot); }
+    public int inSource(int slot)    { return buffer.getInt(inSourceOffset + 4 * slot); }
+
+    // Closest accepted node within maxMetres, or -1; looks at the surrounding grid cells ring by ring
+    public int nearestNode(double lat, double lon, double maxMetres, IntPredicate accept) {
+        int latCell = cell(lat);
+        int lonCell = cell(lon);
+        double cellMetres = cellSize * 111_000 * Math.max(0.1, Math.cos(Math.toRadians(lat)));
+        int rings = (int) Math.ceil(maxMetres / cellMetres);
+
+        int best = -1;
+        double bestMetres = maxMetres;
+        for (int ring = 0; ring <= rings; ring++) {
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                for (int dLon = -ring; dLon <= ring; dLon++) {
+                    if (Math.abs(dLat) != ring && Math.abs(dLon) != ring) continue;
+                    int index = findCell(key(latCell + dLat, lonCell + dLon));
+                    if (index < 0) continue;
+                    int end = cellStart(index + 1);
+                    for (int i = cellStart(index); i < end; i++) {
+                        int node = buffer.getInt(cellNodesOffset + 4 * i);
+                        double metres = distanceMetres(lat, lon, lat(node), lon(node));
+                        if (metres <= bestMetres && accept.test(node)) {
+                            best = node;
+                            bestMetres = metres;
+                        }
+                    }
+                }
+            }
+            // Nodes in the next ring are at least one cell width away
+            if (best >= 0 && bestMetres <= ring * cellMetres) break;
+        }
+        return best;
+    }
+
+    static long key(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    int cell(double degrees) {
+        return (int) Math.floor(degrees / cellSize);
+    }
+
+    private int cellStart(int index) {
+        return buffer.getInt(cellStartOffset + 4 * index);
+    }
+
+    private int findCell(long key) {
+        int low = 0, high = cells - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = buffer.getLong(cellKeyOffset + 8 * mid);
+            if (midKey < key) low = mid + 1;
+            else if (midKey > key) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    // Haversine; edge lengths are measured the same way, so it never overestimates a road distance
+    public static double distanceMetres(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * 6_371_000 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
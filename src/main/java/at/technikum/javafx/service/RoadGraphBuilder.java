@@ -0,0 +1,358 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+// Turns a regional OpenStreetMap extract in OSM XML (.osm or .osm.gz, e.g. a city or state cut from
+// Geofabrik, converted with osmium if needed) into the file RoadGraph maps. Runs once, offline.
+//
+// Every node of a routable way becomes a graph node; access and one-way rules are resolved here into
+// per-direction car/bike/foot bits, so routing never looks at tags.
+public final class RoadGraphBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(RoadGraphBuilder.class);
+
+    // ~1.1 km grid cells for snapping points to the nearest node
+    static final double CELL_SIZE = 0.01;
+
+    // highway=* -> default access bits and car speed (km/h)
+    private static final Map<String, int[]> HIGHWAYS = new HashMap<>();
+    static {
+        int all = RoadGraph.ACCESS_CAR | RoadGraph.ACCESS_BIKE | RoadGraph.ACCESS_FOOT;
+        int slow = RoadGraph.ACCESS_BIKE | RoadGraph.ACCESS_FOOT;
+        HIGHWAYS.put("motorway", new int[]{RoadGraph.ACCESS_CAR, 120});
+        HIGHWAYS.put("motorway_link", new int[]{RoadGraph.ACCESS_CAR, 60});
+        HIGHWAYS.put("trunk", new int[]{RoadGraph.ACCESS_CAR, 90});
+        HIGHWAYS.put("trunk_link", new int[]{RoadGraph.ACCESS_CAR, 50});
+        HIGHWAYS.put("primary", new int[]{all, 70});
+        HIGHWAYS.put("primary_link", new int[]{all, 50});
+        HIGHWAYS.put("secondary", new int[]{all, 60});
+        HIGHWAYS.put("secondary_link", new int[]{all, 45});
+        HIGHWAYS.put("tertiary", new int[]{all, 50});
+        HIGHWAYS.put("tertiary_link", new int[]{all, 40});
+        HIGHWAYS.put("unclassified", new int[]{all, 40});
+        HIGHWAYS.put("residential", new int[]{all, 30});
+        HIGHWAYS.put("road", new int[]{all, 30});
+        HIGHWAYS.put("living_street", new int[]{all, 10});
+        HIGHWAYS.put("service", new int[]{all, 20});
+        HIGHWAYS.put("track", new int[]{slow, 0});
+        HIGHWAYS.put("path", new int[]{slow, 0});
+        HIGHWAYS.put("cycleway", new int[]{slow, 0});
+        HIGHWAYS.put("footway", new int[]{RoadGraph.ACCESS_FOOT, 0});
+        HIGHWAYS.put("pedestrian", new int[]{RoadGraph.ACCESS_FOOT, 0});
+        HIGHWAYS.put("steps", new int[]{RoadGraph.ACCESS_FOOT, 0});
+        HIGHWAYS.put("bridleway", new int[]{RoadGraph.ACCESS_FOOT, 0});
+    }
+
+    // OSM node ids in file order with their coordinates; extracts list nodes sorted by id
+    private long[] osmIds = new long[1 << 16];
+    private int[] osmLat = new int[1 << 16];
+    private int[] osmLon = new int[1 << 16];
+    private int osmNodes;
+    private boolean sorted = true;
+
+    private final List<Way> ways = new ArrayList<>();
+
+    public RoadGraphBuilder read(Path osmFile) throws IOException {
+        long start = System.nanoTime();
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(osmFile), 1 << 16);
+             InputStream in = osmFile.toString().endsWith(".gz") ? new GZIPInputStream(raw, 1 << 16) : raw) {
+            XMLStreamReader xml = XMLInputFactory.newFactory().createXMLStreamReader(in);
+            try {
+                readElements(xml);
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse OSM file " + osmFile + ": " + e.getMessage(), e);
+        }
+        log.info("Read {} nodes and {} routable ways from {} in {} ms",
+                osmNodes, ways.size(), osmFile, (System.nanoTime() - start) / 1_000_000);
+        return this;
+    }
+
+    private void readElements(XMLStreamReader xml) throws XMLStreamException {
+        long[] refs = new long[64];
+        int refCount = 0;
+        Map<String, String> tags = new HashMap<>();
+        boolean inWay = false;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "node" -> addNode(Long.parseLong(xml.getAttributeValue(null, "id")),
+                            Double.parseDouble(xml.getAttributeValue(null, "lat")),
+                            Double.parseDouble(xml.getAttributeValue(null, "lon")));
+                    case "way" -> {
+                        inWay = true;
+                        refCount = 0;
+                        tags.clear();
+                    }
+                    case "nd" -> {
+                        if (inWay) {
+                            if (refCount == refs.length) refs = Arrays.copyOf(refs, refCount * 2);
+                            refs[refCount++] = Long.parseLong(xml.getAttributeValue(null, "ref"));
+                        }
+                    }
+                    case "tag" -> {
+                        if (inWay) tags.put(xml.getAttributeValue(null, "k"), xml.getAttributeValue(null, "v"));
+                    }
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("way")) {
+                inWay = false;
+                Way way = way(tags, Arrays.copyOf(refs, refCount));
+                if (way != null) ways.add(way);
+            }
+        }
+    }
+
+    private void addNode(long id, double lat, double lon) {
+        if (osmNodes == osmIds.length) {
+            osmIds = Arrays.copyOf(osmIds, osmNodes * 2);
+            osmLat = Arrays.copyOf(osmLat, osmNodes * 2);
+            osmLon = Arrays.copyOf(osmLon, osmNodes * 2);
+        }
+        if (osmNodes > 0 && id <= osmIds[osmNodes - 1]) sorted = false;
+        osmIds[osmNodes] = id;
+        osmLat[osmNodes] = (int) Math.round(lat * RoadGraph.SCALE);
+        osmLon[osmNodes] = (int) Math.round(lon * RoadGraph.SCALE);
+        osmNodes++;
+    }
+
+    // Resolves highway type, access restrictions and one-way rules into access bits per direction
+    static Way way(Map<String, String> tags, long[] refs) {
+        int[] defaults = HIGHWAYS.get(tags.getOrDefault("highway", ""));
+        if (defaults == null || refs.length < 2 || tags.getOrDefault("area", "no").equals("yes")) return null;
+
+        int access = defaults[0];
+        String general = tags.get("access");
+        if ("no".equals(general) || "private".equals(general)) access = 0;
+        access = override(access, RoadGraph.ACCESS_CAR, tags.getOrDefault("motor_vehicle", tags.get("motorcar")));
+        access = override(access, RoadGraph.ACCESS_BIKE, tags.get("bicycle"));
+        access = override(access, RoadGraph.ACCESS_FOOT, tags.get("foot"));
+        if (access == 0) return null;
+
+        int speed = defaults[1];
+        String maxspeed = tags.get("maxspeed");
+        if (maxspeed != null && maxspeed.matches("\\d+")) speed = Math.min(Integer.parseInt(maxspeed), 130);
+        if ((access & RoadGraph.ACCESS_CAR) != 0 && speed <= 0) speed = 30;
+
+        String oneway = tags.getOrDefault("oneway", "");
+        boolean impliedOneway = tags.get("highway").startsWith("motorway") || "roundabout".equals(tags.get("junction"));
+        boolean forwardOnly = oneway.equals("yes") || oneway.equals("1") || oneway.equals("true")
+                || (impliedOneway && !oneway.equals("no"));
+        boolean backwardOnly = oneway.equals("-1") || oneway.equals("reverse");
+
+        // One-way rules bind vehicles; pedestrians may walk either way, cyclists only where signed
+        int restricted = RoadGraph.ACCESS_CAR
+                | ("no".equals(tags.get("oneway:bicycle")) ? 0 : RoadGraph.ACCESS_BIKE);
+        int forward = backwardOnly ? access & ~restricted : access;
+        int backward = forwardOnly ? access & ~restricted : access;
+        return new Way(refs, forward, backward, speed);
+    }
+
+    private static int override(int access, int bit, String value) {
+        if (value == null) return access;
+        return switch (value) {
+            case "no", "private", "use_sidepath" -> access & ~bit;
+            case "yes", "designated", "permissive", "destination" -> access | bit;
+            default -> access;
+        };
+    }
+
+    public void write(Path out) throws IOException {
+        long start = System.nanoTime();
+        if (!sorted) sortNodes();
+
+        // Only nodes some routable way uses become graph nodes
+        int[] graphIndex = new int[osmNodes];
+        Arrays.fill(graphIndex, -1);
+        int nodes = 0;
+        List<int[]> wayNodes = new ArrayList<>(ways.size());
+        for (Way way : ways) {
+            int[] indexes = new int[way.refs.length];
+            int n = 0;
+            for (long ref : way.refs) {
+                int osmIndex = Arrays.binarySearch(osmIds, 0, osmNodes, ref);
+                // Ways cut at the extract border reference nodes that are not in the file
+                if (osmIndex < 0) continue;
+                if (graphIndex[osmIndex] < 0) graphIndex[osmIndex] = nodes++;
+                indexes[n++] = osmIndex;
+            }
+            wayNodes.add(Arrays.copyOf(indexes, n));
+        }
+
+        int[] lat = new int[nodes], lon = new int[nodes];
+        for (int i = 0; i < osmNodes; i++) {
+            if (graphIndex[i] >= 0) {
+                lat[graphIndex[i]] = osmLat[i];
+                lon[graphIndex[i]] = osmLon[i];
+            }
+        }
+
+        EdgeList edges = new EdgeList();
+        for (int w = 0; w < ways.size(); w++) {
+            Way way = ways.get(w);
+            int[] path = wayNodes.get(w);
+            for (int i = 0; i + 1 < path.length; i++) {
+                int a = graphIndex[path[i]], b = graphIndex[path[i + 1]];
+                if (a == b) continue;
+                float length = (float) RoadGraph.distanceMetres(lat[a] / RoadGraph.SCALE, lon[a] / RoadGraph.SCALE,
+                        lat[b] / RoadGraph.SCALE, lon[b] / RoadGraph.SCALE);
+                if (way.forward != 0) edges.add(a, b, length, way.forward, way.speed);
+                if (way.backward != 0) edges.add(b, a, length, way.backward, way.speed);
+            }
+        }
+        int m = edges.size;
+
+        // Out edges grouped by source (counting sort), then in edges grouped by target
+        int[] firstOut = new int[nodes + 1];
+        for (int e = 0; e < m; e++) firstOut[edges.source[e] + 1]++;
+        for (int i = 0; i < nodes; i++) firstOut[i + 1] += firstOut[i];
+        int[] order = new int[m];
+        int[] fill = Arrays.copyOf(firstOut, nodes);
+        for (int e = 0; e < m; e++) order[fill[edges.source[e]]++] = e;
+
+        int[] firstIn = new int[nodes + 1];
+        for (int e = 0; e < m; e++) firstIn[edges.target[e] + 1]++;
+        for (int i = 0; i < nodes; i++) firstIn[i + 1] += firstIn[i];
+        int[] inEdge = new int[m], inSource = new int[m];
+        fill = Arrays.copyOf(firstIn, nodes);
+        for (int id = 0; id < m; id++) {
+            int e = order[id];
+            int slot = fill[edges.target[e]]++;
+            inEdge[slot] = id;
+            inSource[slot] = edges.source[e];
+        }
+
+        // Snapping grid: nodes sorted by cell key
+        long[] nodeKeys = new long[nodes];
+        Integer[] byCell = new Integer[nodes];
+        for (int i = 0; i < nodes; i++) {
+            nodeKeys[i] = RoadGraph.key((int) Math.floor(lat[i] / RoadGraph.SCALE / CELL_SIZE),
+                    (int) Math.floor(lon[i] / RoadGraph.SCALE / CELL_SIZE));
+            byCell[i] = i;
+        }
+        Arrays.sort(byCell, (x, y) -> Long.compare(nodeKeys[x], nodeKeys[y]));
+        long[] cellKeys = new long[nodes];
+        int[] cellStart = new int[nodes + 1];
+        int cells = 0;
+        for (int i = 0; i < nodes; i++) {
+            long key = nodeKeys[byCell[i]];
+            if (cells == 0 || cellKeys[cells - 1] != key) {
+                cellKeys[cells] = key;
+                cellStart[cells++] = i;
+            }
+        }
+        cellStart[cells] = nodes;
+
+        // Written next to the target and moved into place, so a running app never maps a half-written file
+        Path parent = out.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, "graph", ".tmp");
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            data.writeInt(RoadGraph.MAGIC);
+            data.writeInt(RoadGraph.VERSION);
+            data.writeInt(nodes);
+            data.writeInt(m);
+            data.writeInt(cells);
+            data.writeInt((int) Math.round(CELL_SIZE * RoadGraph.SCALE));
+            for (int v : lat) data.writeInt(v);
+            for (int v : lon) data.writeInt(v);
+            for (int v : firstOut) data.writeInt(v);
+            for (int id = 0; id < m; id++) data.writeInt(edges.target[order[id]]);
+            for (int id = 0; id < m; id++) data.writeFloat(edges.length[order[id]]);
+            for (int v : firstIn) data.writeInt(v);
+            for (int v : inEdge) data.writeInt(v);
+            for (int v : inSource) data.writeInt(v);
+            for (int c = 0; c < cells; c++) data.writeLong(cellKeys[c]);
+            for (int c = 0; c <= cells; c++) data.writeInt(cellStart[c]);
+            for (Integer node : byCell) data.writeInt(node);
+            for (int id = 0; id < m; id++) data.writeByte(edges.access[order[id]]);
+            for (int id = 0; id < m; id++) data.writeByte(edges.speed[order[id]]);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Wrote road graph {} with {} nodes and {} edges ({} KB) in {} ms", out, nodes, m,
+                Files.size(out) / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void sortNodes() {
+        Integer[] order = new Integer[osmNodes];
+        for (int i = 0; i < osmNodes; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> Long.compare(osmIds[x], osmIds[y]));
+        long[] ids = new long[osmNodes];
+        int[] lat = new int[osmNodes], lon = new int[osmNodes];
+        for (int i = 0; i < osmNodes; i++) {
+            ids[i] = osmIds[order[i]];
+            lat[i] = osmLat[order[i]];
+            lon[i] = osmLon[order[i]];
+        }
+        osmIds = ids;
+        osmLat = lat;
+        osmLon = lon;
+        sorted = true;
+    }
+
+    record Way(long[] refs, int forward, int backward, int speed) {
+    }
+
+    private static final class EdgeList {
+        int[] source = new int[1024], target = new int[1024];
+        float[] length = new float[1024];
+        byte[] access = new byte[1024], speed = new byte[1024];
+        int size;
+
+        void add(int from, int to, float metres, int bits, int kmh) {
+            if (size == source.length) {
+                int capacity = size * 2;
+                source = Arrays.copyOf(source, capacity);
+                target = Arrays.copyOf(target, capacity);
+                length = Arrays.copyOf(length, capacity);
+                access = Arrays.copyOf(access, capacity);
+                speed = Arrays.copyOf(speed, capacity);
+            }
+            source[size] = from;
+            target[size] = to;
+            length[size] = metres;
+            access[size] = (byte) bits;
+            speed[size] = (byte) kmh;
+            size++;
+        }
+    }
+
+    // Usage: RoadGraphBuilder <out.bin> <extract.osm[.gz]>...
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: RoadGraphBuilder <out.bin> <extract.osm[.gz]>...");
+            System.exit(1);
+        }
+        RoadGraphBuilder builder = new RoadGraphBuilder();
+        for (int i = 1; i < args.length; i++) builder.read(Path.of(args[i]));
+        builder.write(Path.of(args[0]));
+    }
+}
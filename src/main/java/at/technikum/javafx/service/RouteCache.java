@@ -0,0 +1,77 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// In-memory LRU of computed routes, bounded by the estimated bytes of the cached geometries
+public class RouteCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteCache.class);
+
+    // Object headers, the RouteResult fields, bbox and map entry
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, RouteResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public RouteCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized Optional<RouteResult> get(String key) {
+        RouteResult route = entries.get(key);
+        if (route == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(route);
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized void put(String key, RouteResult route) {
+        long weight = weigh(route);
+        if (weight > maxBytes) {
+            log.debug("Route {} ({} bytes) exceeds the whole cache budget, not cached", key, weight);
+            return;
+        }
+        RouteResult previous = entries.put(key, route);
+        if (previous != null) bytes -= weigh(previous);
+        bytes += weight;
+
+        Iterator<Map.Entry<String, RouteResult>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= weigh(it.next().getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getBytes() { return bytes; }
+    public long getMaxBytes() { return maxBytes; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+
+    // The level-of-detail pyramid, once built, roughly doubles what the full geometry takes
+    static long weigh(RouteResult route) {
+        return ENTRY_OVERHEAD_BYTES + 2L * route.getGeometry().byteSize();
+    }
+}
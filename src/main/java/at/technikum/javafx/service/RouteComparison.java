@@ -0,0 +1,56 @@
+package at.technikum.javafx.service;
+
+import java.util.List;
+
+// Routes of one tour for several travel profiles; a profile ORS could not route keeps its error instead
+public class RouteComparison {
+
+    public static class Entry {
+        private final String profile;
+        private final RouteResult route;
+        private final String error;
+
+        public Entry(String profile, RouteResult route, String error) {
+            this.profile = profile;
+            this.route = route;
+            this.error = error;
+        }
+
+        public String getProfile()   { return profile; }
+        public RouteResult getRoute() { return route; }
+        public String getError()     { return error; }
+        public boolean isRouted()    { return route != null; }
+    }
+
+    private final List<Entry> entries;
+
+    public RouteComparison(List<Entry> entries) {
+        this.entries = List.copyOf(entries);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public List<Entry> getRouted() {
+        return entries.stream().filter(Entry::isRouted).toList();
+    }
+
+    // Box around all routed profiles, null when none could be routed
+    public double[] getBbox() {
+        double[] bbox = null;
+        for (Entry entry : getRouted()) {
+            double[] b = entry.getRoute().getBbox();
+            if (b == null) continue;
+            if (bbox == null) {
+                bbox = b.clone();
+            } else {
+                bbox[0] = Math.min(bbox[0], b[0]);
+                bbox[1] = Math.min(bbox[1], b[1]);
+                bbox[2] = Math.max(bbox[2], b[2]);
+                bbox[3] = Math.max(bbox[3], b[3]);
+            }
+        }
+        return bbox;
+    }
+}
@@ -0,0 +1,18 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.util.List;
+
+public class RouteEnrichmentResult {
+    private final int enriched;
+    private final List<Tour> failed;
+
+    public RouteEnrichmentResult(int enriched, List<Tour> failed) {
+        this.enriched = enriched;
+        this.failed = failed;
+    }
+
+    public int getEnriched() { return enriched; }
+    public List<Tour> getFailed() { return failed; }
+}
@@ -0,0 +1,123 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class RouteEnrichmentService implements IRouteEnrichmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteEnrichmentService.class);
+
+    // Tours per progress step of refreshMetrics; each slice is packed into as few matrix calls as possible
+    private static final int METRICS_SLICE = 500;
+
+    private final IRouteService routeService;
+    private final int maxConcurrency;
+
+    // ORS quotas and retries are handled per endpoint by OrsService (ors.rate.* and ors.retry.* in ors.properties)
+    public RouteEnrichmentService(IRouteService routeService,
+                                  @Value("${tourplanner.import.max-concurrency:8}") int maxConcurrency) {
+        this.routeService = routeService;
+        this.maxConcurrency = maxConcurrency;
+        log.info("RouteEnrichmentService initialized: concurrency={}", maxConcurrency);
+    }
+
+    @Override
+    public RouteEnrichmentResult enrichAll(List<Tour> tours, ProgressListener listener) {
+        List<Tour> pending = tours.stream().filter(routeService::needsRoute).toList();
+        int total = pending.size();
+        log.info("Enriching {} of {} tours with routes", total, tours.size());
+        long startMs = System.currentTimeMillis();
+
+        AtomicInteger done = new AtomicInteger();
+        List<Tour> failed = Collections.synchronizedList(new ArrayList<>());
+        Semaphore slots = new Semaphore(maxConcurrency);
+
+        // Virtual threads are cheap to park, so every tour gets one; the semaphore bounds concurrent ORS work
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Tour tour : pending) {
+                executor.submit(() -> {
+                    slots.acquireUninterruptibly();
+                    try {
+                        if (!enrich(tour)) failed.add(tour);
+                    } finally {
+                        slots.release();
+                        int d = done.incrementAndGet();
+                        if (listener != null) listener.progress(d, total, failed.size());
+                    }
+                });
+            }
+        }
+
+        log.info("Route enrichment finished: {} enriched, {} failed ({} ms)",
+                total - failed.size(), failed.size(), System.currentTimeMillis() - startMs);
+        return new RouteEnrichmentResult(total - failed.size(), List.copyOf(failed));
+    }
+
+    // Distance and time only: a handful of ORS matrix calls instead of one directions call per tour.
+    // Route geometries are fetched later, when a tour is shown on the map.
+    @Override
+    public RouteEnrichmentResult refreshMetrics(List<Tour> tours, ProgressListener listener) {
+        List<Tour> pending = tours.stream().filter(routeService::needsMetrics).toList();
+        int total = pending.size();
+        log.info("Refreshing distance/time of {} of {} tours", total, tours.size());
+        long startMs = System.currentTimeMillis();
+
+        List<Tour> failed = new ArrayList<>();
+        for (int from = 0; from < total; from += METRICS_SLICE) {
+            List<Tour> slice = pending.subList(from, Math.min(total, from + METRICS_SLICE));
+            CompletableFuture<List<Tour>> call = routeService.applyMetricsAsync(slice);
+            try {
+                failed.addAll(call.get());
+            } catch (InterruptedException e) {
+                call.cancel(true);
+                Thread.currentThread().interrupt();
+                failed.addAll(pending.subList(from, total));
+                break;
+            } catch (ExecutionException e) {
+                log.warn("Distance/time refresh of {} tours failed", slice.size(), e.getCause());
+                failed.addAll(slice);
+            }
+            if (listener != null) listener.progress(from + slice.size(), total, failed.size());
+        }
+
+        log.info("Distance/time refresh finished: {} updated, {} failed ({} ms)",
+                total - failed.size(), failed.size(), System.currentTimeMillis() - startMs);
+        return new RouteEnrichmentResult(total - failed.size(), List.copyOf(failed));
+    }
+
+    // Transient ORS failures were already retried by OrsService; whatever still fails here is final
+    private boolean enrich(Tour tour) {
+        CompletableFuture<RouteResult> call = routeService.applyRouteAsync(tour);
+        try {
+            call.get();
+            return true;
+        } catch (InterruptedException e) {
+            // Import was cancelled: abort the ORS calls of this tour as well
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                // Unknown address or no route
+                log.warn("Skipping route for tour '{}': {}", tour.getName(), e.getCause().getMessage());
+            } else {
+                log.warn("Route for tour '{}' failed", tour.getName(), e.getCause());
+            }
+            return false;
+        }
+    }
+}
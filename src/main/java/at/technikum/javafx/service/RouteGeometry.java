@@ -0,0 +1,252 @@
+package at.technikum.javafx.service;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// Immutable route polyline stored like an encoded polyline, but binary: coordinates are quantized to
+// 1e-5 degrees (~1 m), delta-encoded against the previous point and written as zigzag varints.
+// A typical route point takes 3-4 bytes instead of the ~100 bytes of a JsonNode coordinate pair.
+//
+// Serialized layout: [version][precision digits][varint point count][lon/lat deltas...]
+public final class RouteGeometry {
+
+    private static final byte VERSION = 1;
+    private static final int PRECISION_DIGITS = 5;
+    private static final double SCALE = 1e5;
+
+    private final byte[] bytes;
+    private final int dataOffset;
+    private final int size;
+    private final int minLon, minLat, maxLon, maxLat;
+
+    private RouteGeometry(byte[] bytes, int dataOffset, int size,
+                          int minLon, int minLat, int maxLon, int maxLat) {
+        this.bytes = bytes;
+        this.dataOffset = dataOffset;
+        this.size = size;
+        this.minLon = minLon;
+        this.minLat = minLat;
+        this.maxLon = maxLon;
+        this.maxLat = maxLat;
+    }
+
+    // Interleaved lon/lat pairs: [lon0, lat0, lon1, lat1, ...]
+    public static RouteGeometry of(double... coordinates) {
+        Builder builder = new Builder(coordinates.length / 2);
+        for (int i = 0; i + 1 < coordinates.length; i += 2) {
+            builder.add(coordinates[i], coordinates[i + 1]);
+        }
+        return builder.build();
+    }
+
+    // Wraps the array without copying it, so callers must not modify it afterwards
+    public static RouteGeometry fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 3 || bytes[0] != VERSION || bytes[1] != PRECISION_DIGITS) {
+            throw new IllegalArgumentException("Unsupported route geometry encoding");
+        }
+        int[] pos = {2};
+        int size = readVarint(bytes, pos);
+        int dataOffset = pos[0];
+
+        // One decoding pass validates the data and restores the bounding box
+        int lon = 0, lat = 0;
+        int minLon = Integer.MAX_VALUE, minLat = Integer.MAX_VALUE;
+        int maxLon = Integer.MIN_VALUE, maxLat = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            lon += zigzagDecode(readVarint(bytes, pos));
+            lat += zigzagDecode(readVarint(bytes, pos));
+            minLon = Math.min(minLon, lon);
+            minLat = Math.min(minLat, lat);
+            maxLon = Math.max(maxLon, lon);
+            maxLat = Math.max(maxLat, lat);
+        }
+        if (pos[0] != bytes.length) {
+            throw new IllegalArgumentException("Trailing bytes after route geometry");
+        }
+        return new RouteGeometry(bytes, dataOffset, size, minLon, minLat, maxLon, maxLat);
+    }
+
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Size of the encoded form, i.e. what a stored or cached route costs
+    public int byteSize() {
+        return bytes.length;
+    }
+
+    // [minLon, minLat, maxLon, maxLat]
+    public double[] bbox() {
+        if (size == 0) return null;
+        return new double[]{minLon / SCALE, minLat / SCALE, maxLon / SCALE, maxLat / SCALE};
+    }
+
+    // Decodes on the fly, nothing is allocated per point
+    public void forEach(PointConsumer consumer) {
+        int[] pos = {dataOffset};
+        int lon = 0, lat = 0;
+        for (int i = 0; i < size; i++) {
+            lon += zigzagDecode(readVarint(bytes, pos));
+            lat += zigzagDecode(readVarint(bytes, pos));
+            consumer.accept(lon / SCALE, lat / SCALE);
+        }
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public double[] toArray() {
+        double[] coordinates = new double[size * 2];
+        int[] n = {0};
+        forEach((lon, lat) -> {
+            coordinates[n[0]++] = lon;
+            coordinates[n[0]++] = lat;
+        });
+        return coordinates;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RouteGeometry other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "RouteGeometry{points=" + size + ", bytes=" + bytes.length + '}';
+    }
+
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(double lon, double lat);
+    }
+
+    // Forward-only view for loops that need to stop early or look at neighbouring points
+    public final class Cursor {
+        private final int[] pos = {dataOffset};
+        private int index = -1;
+        private int lon, lat;
+
+        public boolean next() {
+            if (index + 1 >= size) return false;
+            lon += zigzagDecode(readVarint(bytes, pos));
+            lat += zigzagDecode(readVarint(bytes, pos));
+            index++;
+            return true;
+        }
+
+        public int index() { return index; }
+
+        public double lon() {
+            checkPositioned();
+            return lon / SCALE;
+        }
+
+        public double lat() {
+            checkPositioned();
+            return lat / SCALE;
+        }
+
+        private void checkPositioned() {
+            if (index < 0) throw new NoSuchElementException("next() has not been called");
+        }
+    }
+
+    public static final class Builder {
+        private byte[] data;
+        private int length;
+        private int size;
+        private int lastLon, lastLat;
+        private int minLon = Integer.MAX_VALUE, minLat = Integer.MAX_VALUE;
+        private int maxLon = Integer.MIN_VALUE, maxLat = Integer.MIN_VALUE;
+
+        public Builder() {
+            this(256);
+        }
+
+        public Builder(int expectedPoints) {
+            this.data = new byte[Math.max(16, expectedPoints * 4)];
+        }
+
+        public Builder add(double lonDeg, double latDeg) {
+            int lon = (int) Math.round(lonDeg * SCALE);
+            int lat = (int) Math.round(latDeg * SCALE);
+            ensureCapacity(10);
+            length = writeVarint(data, length, zigzagEncode(lon - lastLon));
+            length = writeVarint(data, length, zigzagEncode(lat - lastLat));
+            lastLon = lon;
+            lastLat = lat;
+            minLon = Math.min(minLon, lon);
+            minLat = Math.min(minLat, lat);
+            maxLon = Math.max(maxLon, lon);
+            maxLat = Math.max(maxLat, lat);
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public RouteGeometry build() {
+            byte[] header = new byte[7];
+            header[0] = VERSION;
+            header[1] = PRECISION_DIGITS;
+            int headerLength = writeVarint(header, 2, size);
+
+            byte[] bytes = new byte[headerLength + length];
+            System.arraycopy(header, 0, bytes, 0, headerLength);
+            System.arraycopy(data, 0, bytes, headerLength, length);
+            return new RouteGeometry(bytes, headerLength, size, minLon, minLat, maxLon, maxLat);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+    }
+
+    private static int zigzagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int zigzagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int writeVarint(byte[] buf, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] buf, int[] pos) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (pos[0] >= buf.length) {
+                throw new IllegalArgumentException("Truncated route geometry");
+            }
+            byte b = buf[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint in route geometry");
+    }
+}
@@ -0,0 +1,144 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+// Draws a route onto an off-screen image in Web Mercator, the projection of the map tiles, so reports
+// need neither a WebView nor the FX thread. Tiles already in the TileCache become the background; tiles
+// that are not cached are left plain, nothing is downloaded.
+public class RouteImageRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteImageRenderer.class);
+
+    static final int TILE_SIZE = MapViewport.TILE_SIZE;
+    private static final int MAX_ZOOM = 18;
+    // Keeps the route and its end markers clear of the image border
+    private static final int PADDING = 24;
+    private static final Color BACKGROUND = new Color(0xF2EFE9);
+    private static final Color ATTRIBUTION = new Color(0x55, 0x55, 0x55, 0xCC);
+
+    private final TileCache tiles;
+
+    // tiles may be null: the route is then drawn on a plain background
+    public RouteImageRenderer(TileCache tiles) {
+        this.tiles = tiles;
+    }
+
+    public BufferedImage render(RouteResult route, String profile, int width, int height) {
+        long start = System.nanoTime();
+        double[] bbox = route.getBbox() != null ? route.getBbox() : route.getGeometry().bbox();
+        int zoom = fitZoom(bbox, width - 2 * PADDING, height - 2 * PADDING);
+        // World pixel of the image's top-left corner, so the route's box ends up centred
+        double originX = (worldX(bbox[0], zoom) + worldX(bbox[2], zoom)) / 2 - width / 2.0;
+        double originY = (worldY(bbox[3], zoom) + worldY(bbox[1], zoom)) / 2 - height / 2.0;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, width, height);
+            int drawnTiles = drawTiles(g, zoom, originX, originY, width, height);
+
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            // The level of detail Leaflet would show at this zoom: no invisible sub-pixel vertices
+            RouteGeometry geometry = route.getLevels().forZoom(zoom);
+            Path2D.Double line = new Path2D.Double(Path2D.WIND_NON_ZERO, geometry.size());
+            RouteGeometry.Cursor c = geometry.cursor();
+            while (c.next()) {
+                double x = worldX(c.lon(), zoom) - originX, y = worldY(c.lat(), zoom) - originY;
+                if (c.index() == 0) line.moveTo(x, y);
+                else line.lineTo(x, y);
+            }
+            g.setStroke(new BasicStroke(7f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.setColor(Color.WHITE);
+            g.draw(line);
+            g.setStroke(new BasicStroke(4f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.setColor(Color.decode(MapService.colorFor(profile)));
+            g.draw(line);
+
+            if (!geometry.isEmpty()) {
+                double[] points = geometry.toArray();
+                marker(g, worldX(points[0], zoom) - originX, worldY(points[1], zoom) - originY, new Color(0x2E7D32));
+                int last = points.length - 2;
+                marker(g, worldX(points[last], zoom) - originX, worldY(points[last + 1], zoom) - originY, new Color(0xC62828));
+            }
+
+            if (drawnTiles > 0) {
+                g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+                g.setColor(ATTRIBUTION);
+                String text = "© OpenStreetMap contributors";
+                g.drawString(text, width - g.getFontMetrics().stringWidth(text) - 4, height - 4);
+            }
+            log.debug("Rendered route image {}x{} at zoom {} with {} tiles in {} ms",
+                    width, height, zoom, drawnTiles, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    // Highest whole zoom at which the box fits, so cached tiles are drawn at their native scale
+    static int fitZoom(double[] bbox, int width, int height) {
+        for (int zoom = MAX_ZOOM; zoom > 0; zoom--) {
+            double w = worldX(bbox[2], zoom) - worldX(bbox[0], zoom);
+            double h = worldY(bbox[1], zoom) - worldY(bbox[3], zoom);
+            if (w <= width && h <= height) return zoom;
+        }
+        return 0;
+    }
+
+    static double worldX(double lon, int zoom) {
+        return MapViewport.worldX(lon, zoom);
+    }
+
+    static double worldY(double lat, int zoom) {
+        return MapViewport.worldY(lat, zoom);
+    }
+
+    private int drawTiles(Graphics2D g, int zoom, double originX, double originY, int width, int height) {
+        if (tiles == null) return 0;
+        int n = 1 << zoom, drawn = 0;
+        int firstX = (int) Math.floor(originX / TILE_SIZE), lastX = (int) Math.floor((originX + width) / TILE_SIZE);
+        int firstY = (int) Math.floor(originY / TILE_SIZE), lastY = (int) Math.floor((originY + height) / TILE_SIZE);
+        for (int ty = Math.max(0, firstY); ty <= Math.min(n - 1, lastY); ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+                int wrapped = Math.floorMod(tx, n);
+                Optional<TileCache.Tile> tile = tiles.get(zoom, wrapped, ty);
+                if (tile.isEmpty()) continue;
+                try {
+                    BufferedImage img = ImageIO.read(new ByteArrayInputStream(tile.get().getData()));
+                    if (img == null) continue;
+                    g.drawImage(img, (int) Math.round(tx * (double) TILE_SIZE - originX),
+                            (int) Math.round(ty * (double) TILE_SIZE - originY), TILE_SIZE, TILE_SIZE, null);
+                    drawn++;
+                } catch (IOException e) {
+                    log.debug("Skipping undecodable tile {}/{}/{}", zoom, wrapped, ty, e);
+                }
+            }
+        }
+        return drawn;
+    }
+
+    private static void marker(Graphics2D g, double x, double y, Color color) {
+        Ellipse2D.Double dot = new Ellipse2D.Double(x - 6, y - 6, 12, 12);
+        g.setColor(color);
+        g.fill(dot);
+        g.setColor(Color.WHITE);
+        g.setStroke(new BasicStroke(2f));
+        g.draw(dot);
+    }
+}
@@ -0,0 +1,64 @@
+package at.technikum.javafx.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Level-of-detail pyramid of one route: each level is simplified to about one pixel at its max zoom,
+// the last level is the full geometry and serves every deeper zoom
+public final class RouteLevels {
+
+    static final int[] LEVEL_ZOOMS = {6, 9, 12, 15};
+    public static final int FULL_DETAIL_ZOOM = 99;
+
+    // A coarser level is only kept if it drops at least this share of the next finer level's points
+    private static final double MIN_REDUCTION = 0.25;
+
+    private final List<Level> levels;
+
+    private RouteLevels(List<Level> levels) {
+        this.levels = Collections.unmodifiableList(levels);
+    }
+
+    public static RouteLevels build(RouteGeometry geometry) {
+        List<Level> levels = new ArrayList<>();
+        levels.add(new Level(FULL_DETAIL_ZOOM, geometry));
+
+        // Simplify from fine to coarse so each level starts from the previous, already smaller one
+        RouteGeometry finer = geometry;
+        for (int i = LEVEL_ZOOMS.length - 1; i >= 0; i--) {
+            RouteGeometry coarser = RouteSimplifier.simplify(finer, RouteSimplifier.pixelSizeDegrees(LEVEL_ZOOMS[i]));
+            // Otherwise the finer level simply also serves this zoom
+            if (coarser.size() <= finer.size() * (1 - MIN_REDUCTION)) {
+                levels.add(0, new Level(LEVEL_ZOOMS[i], coarser));
+                finer = coarser;
+            }
+        }
+        return new RouteLevels(levels);
+    }
+
+    // Ordered from coarse to fine
+    public List<Level> getLevels() {
+        return levels;
+    }
+
+    public RouteGeometry forZoom(int zoom) {
+        for (Level level : levels) {
+            if (zoom <= level.getMaxZoom()) return level.getGeometry();
+        }
+        return levels.get(levels.size() - 1).getGeometry();
+    }
+
+    public static final class Level {
+        private final int maxZoom;
+        private final RouteGeometry geometry;
+
+        Level(int maxZoom, RouteGeometry geometry) {
+            this.maxZoom = maxZoom;
+            this.geometry = geometry;
+        }
+
+        public int getMaxZoom() { return maxZoom; }
+        public RouteGeometry getGeometry() { return geometry; }
+    }
+}
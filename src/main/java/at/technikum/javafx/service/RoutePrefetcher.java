@@ -0,0 +1,117 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class RoutePrefetcher implements IRoutePrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutePrefetcher.class);
+
+    // How often to wait for quota to free up before giving up on the remaining neighbours
+    static final int QUOTA_WAIT_ROUNDS = 10;
+
+    private final IRouteService routeService;
+    private final int radius;
+    private final long quotaWaitMs;
+
+    // One low-priority daemon thread: prefetching never competes with the UI or interactive routing
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "route-prefetch");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<CompletableFuture<Boolean>> current = new AtomicReference<>();
+
+    @Autowired
+    public RoutePrefetcher(IRouteService routeService,
+                           @Value("${tourplanner.prefetch.radius:2}") int radius) {
+        this(routeService, radius, Duration.ofMillis(500));
+    }
+
+    public RoutePrefetcher(IRouteService routeService, int radius, Duration quotaWait) {
+        this.routeService = routeService;
+        this.radius = radius;
+        this.quotaWaitMs = quotaWait.toMillis();
+        log.info("RoutePrefetcher initialized: radius={}", radius);
+    }
+
+    @Override
+    public void prefetchAround(List<Tour> tours, int selectedIndex) {
+        long gen = generation.incrementAndGet();
+        abortCurrent();
+        if (radius <= 0 || selectedIndex < 0 || selectedIndex >= tours.size()) return;
+
+        // Nearest first, alternating forward and backward since most users move down the list
+        List<Tour> neighbours = new ArrayList<>();
+        for (int d = 1; d <= radius; d++) {
+            if (selectedIndex + d < tours.size()) neighbours.add(tours.get(selectedIndex + d));
+            if (selectedIndex - d >= 0) neighbours.add(tours.get(selectedIndex - d));
+        }
+        executor.execute(() -> run(neighbours, gen));
+    }
+
+    @Override
+    public void cancel() {
+        generation.incrementAndGet();
+        abortCurrent();
+    }
+
+    private void run(List<Tour> neighbours, long gen) {
+        int warmed = 0;
+        for (Tour tour : neighbours) {
+            if (gen != generation.get()) return;
+            if (!routeService.needsRoute(tour)) continue;
+            if (!prefetch(tour, gen)) break;
+            warmed++;
+        }
+        if (warmed > 0) log.debug("Prefetched {} neighbouring routes", warmed);
+    }
+
+    private boolean prefetch(Tour tour, long gen) {
+        for (int round = 0; round < QUOTA_WAIT_ROUNDS && gen == generation.get(); round++) {
+            CompletableFuture<Boolean> call = routeService.prefetchAsync(tour);
+            current.set(call);
+            try {
+                if (call.get()) return true;
+                TimeUnit.MILLISECONDS.sleep(quotaWaitMs);
+            } catch (CancellationException e) {
+                return false;
+            } catch (ExecutionException e) {
+                // An unroutable neighbour must not stop the others
+                log.debug("Prefetch for tour '{}' failed: {}", tour.getName(), e.getCause().getMessage());
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                current.compareAndSet(call, null);
+            }
+        }
+        return false;
+    }
+
+    private void abortCurrent() {
+        CompletableFuture<Boolean> call = current.getAndSet(null);
+        if (call != null) call.cancel(true);
+    }
+}
@@ -1,22 +1,59 @@
 package at.technikum.javafx.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
 
 public class RouteResult {
     private final double distance;
     private final double duration;
-    private final JsonNode geometry;
+    private final RouteGeometry geometry;
     private final double[] bbox;
+    private volatile RouteLevels levels;
 
-    public RouteResult(double distance, double duration, JsonNode geometry, double[] bbox) {
+    public RouteResult(double distance, double duration, RouteGeometry geometry, double[] bbox) {
         this.distance = distance;
         this.duration = duration;
         this.geometry = geometry;
         this.bbox     = bbox;
     }
 
-    public double getDistance()   { return distance; }
-    public double getDuration()   { return duration; }
-    public JsonNode getGeometry() { return geometry; }
-    public double[] getBbox()     { return bbox; }
-}
\ No newline at end of file
+    public double getDistance()        { return distance; }
+    public double getDuration()        { return duration; }
+    public RouteGeometry getGeometry() { return geometry; }
+    public int getPointCount()         { return geometry.size(); }
+    public double[] getBbox()          { return bbox; }
+
+    // Consecutive legs as one route; the shared point between two legs is kept once
+    public static RouteResult join(List<RouteResult> legs) {
+        double distance = 0, duration = 0;
+        int points = 0;
+        for (RouteResult leg : legs) points += leg.getPointCount();
+        RouteGeometry.Builder geometry = new RouteGeometry.Builder(points);
+        for (RouteResult leg : legs) {
+            distance += leg.distance;
+            duration += leg.duration;
+            RouteGeometry.Cursor c = leg.geometry.cursor();
+            boolean first = true;
+            while (c.next()) {
+                if (!(first && geometry.size() > 0)) geometry.add(c.lon(), c.lat());
+                first = false;
+            }
+        }
+        RouteGeometry joined = geometry.build();
+        return new RouteResult(distance, duration, joined, joined.bbox());
+    }
+
+    // Built on first use and kept with the route, so every redraw reuses the same pyramid
+    public RouteLevels getLevels() {
+        RouteLevels result = levels;
+        if (result == null) {
+            result = RouteLevels.build(geometry);
+            levels = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteResult{distance=" + distance + ", duration=" + duration + ", points=" + getPointCount() + '}';
+    }
+}
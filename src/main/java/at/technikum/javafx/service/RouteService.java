@@ -0,0 +1,550 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+@Service
+public class RouteService implements IRouteService {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteService.class);
+
+    private final OrsService orsService;
+    private final IGeocoder geocoder;
+    private final IRouteProvider routeProvider;
+    private final TourOrderOptimizer orderOptimizer = new TourOrderOptimizer();
+
+    public RouteService(OrsService orsService) {
+        this(orsService, orsService, orsService);
+    }
+
+    // Geocoder and route provider may answer from local data before ORS is asked (see OrsConfig)
+    @Autowired
+    public RouteService(OrsService orsService, IGeocoder geocoder, IRouteProvider routeProvider) {
+        this.orsService = orsService;
+        this.geocoder = geocoder;
+        this.routeProvider = routeProvider;
+        log.info("RouteService initialized with {} and {}",
+                geocoder.getClass().getSimpleName(), routeProvider.getClass().getSimpleName());
+    }
+
+    // A route is (re)computed only when profile or endpoints differ from what it was computed for
+    @Override
+    public boolean needsRoute(Tour tour) {
+        return tour.getRouteGeometry() == null
+                || !routeKey(tour).equals(tour.getRouteKey());
+    }
+
+    // Distance, time and coordinates are current when the key matches, even before a geometry was fetched
+    @Override
+    public boolean needsMetrics(Tour tour) {
+        return !routeKey(tour).equals(tour.getRouteKey());
+    }
+
+    @Override
+    public RouteResult applyRoute(Tour tour) {
+        return OrsService.await(applyRouteAsync(tour));
+    }
+
+    @Override
+    public CompletableFuture<RouteResult> applyRouteAsync(Tour tour) {
+        log.info("Computing route for tour '{}' ({} -> {}, {})",
+                tour.getName(), tour.getFromLocation(), tour.getToLocation(), tour.getTransportType());
+        return routeAsync(tour, true);
+    }
+
+    // Same route as applyRouteAsync, but on a copy: a tour bound to the UI is updated with Tour.copyRouteFrom
+    // on the FX thread instead of from the thread the directions call completes on
+    @Override
+    public CompletableFuture<Tour> routedCopyAsync(Tour tour) {
+        log.info("Computing route for tour '{}' ({} -> {}, {})",
+                tour.getName(), tour.getFromLocation(), tour.getToLocation(), tour.getTransportType());
+        return routedCopy(tour, tour.getStops());
+    }
+
+    // Warms the geocode and route caches without touching the tour; completes with false when
+    // it was skipped because ORS has no spare quota right now
+    @Override
+    public CompletableFuture<Boolean> prefetchAsync(Tour tour) {
+        if (!needsRoute(tour)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (!orsService.hasSpareCapacity()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        log.debug("Prefetching route for tour '{}'", tour.getName());
+        CompletableFuture<RouteResult> route = routeAsync(tour, false);
+        return OrsService.cancelUpstream(route, route.thenApply(r -> true));
+    }
+
+    // Geocodes once, then asks for all profiles at the same time, so the comparison takes about as long
+    // as the slowest profile. A profile ORS cannot route (e.g. too far to walk) is reported, not fatal.
+    @Override
+    public CompletableFuture<RouteComparison> compareProfilesAsync(Tour tour, List<String> profiles) {
+        log.info("Comparing profiles {} for tour '{}'", profiles, tour.getName());
+        List<CompletableFuture<Optional<GeocodeResult>>> geocodeCalls = new ArrayList<>();
+        for (String place : waypoints(tour)) geocodeCalls.add(geocoder.geocodeAsync(place));
+        List<CompletableFuture<?>> directionsCalls = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<RouteComparison> result = geocoded(tour, geocodeCalls).thenCompose(geo -> {
+            List<CompletableFuture<RouteComparison.Entry>> entries = new ArrayList<>();
+            for (String profile : profiles) {
+                GeocodeResult from = geo.get(0), to = geo.get(geo.size() - 1);
+                CompletableFuture<Optional<RouteResult>> call = geo.size() == 2
+                        ? routeProvider.directionsAsync(profile,
+                                from.getLongitude(), from.getLatitude(), to.getLongitude(), to.getLatitude())
+                        : routeProvider.directionsAsync(profile, coordinates(geo));
+                directionsCalls.add(call);
+                entries.add(call.handle((route, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        log.warn("Profile '{}' could not be routed for tour '{}': {}",
+                                profile, tour.getName(), cause.getMessage());
+                        return new RouteComparison.Entry(profile, null, cause.getMessage());
+                    }
+                    return route.map(r -> new RouteComparison.Entry(profile, r, null))
+                            .orElseGet(() -> new RouteComparison.Entry(profile, null, "No route found"));
+                }));
+            }
+            return CompletableFuture.allOf(entries.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> new RouteComparison(entries.stream().map(CompletableFuture::join).toList()));
+        });
+
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) {
+                geocodeCalls.forEach(call -> call.cancel(true));
+                synchronized (directionsCalls) {
+                    directionsCalls.forEach(call -> call.cancel(true));
+                }
+            }
+        });
+        return result;
+    }
+
+    // Geocodes the origin and asks ORS for the area reachable within the budget; cancelling aborts both calls
+    @Override
+    public CompletableFuture<Isochrone> isochroneAsync(String address, String profile, int minutes) {
+        log.info("Computing {} min {} isochrone around '{}'", minutes, profile, address);
+        CompletableFuture<Optional<GeocodeResult>> geocodeCall = geocoder.geocodeAsync(address);
+        AtomicReference<CompletableFuture<?>> isochroneCall = new AtomicReference<>();
+
+        CompletableFuture<Isochrone> result = geocodeCall.thenCompose(geo -> {
+            GeocodeResult origin = geo.orElseThrow(() -> new IllegalArgumentException("Could not geocode origin"));
+            CompletableFuture<Optional<Isochrone>> call = orsService.isochroneAsync(
+                    profile, origin.getLongitude(), origin.getLatitude(), minutes * 60);
+            isochroneCall.set(call);
+            return call.thenApply(area -> area.orElseThrow(() -> new IllegalArgumentException("No isochrone found")));
+        });
+
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) {
+                geocodeCall.cancel(true);
+                CompletableFuture<?> call = isochroneCall.get();
+                if (call != null) call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // Geocodes all waypoints in parallel, then chains the directions call; cancelling the result aborts all calls
+    private CompletableFuture<RouteResult> routeAsync(Tour tour, boolean applyToTour) {
+        List<CompletableFuture<Optional<GeocodeResult>>> geocodeCalls = new ArrayList<>();
+        for (String place : waypoints(tour)) geocodeCalls.add(geocoder.geocodeAsync(place));
+        AtomicReference<CompletableFuture<?>> directionsCall = new AtomicReference<>();
+
+        CompletableFuture<RouteResult> result = geocoded(tour, geocodeCalls).thenCompose(geo -> {
+            GeocodeResult from = geo.get(0), to = geo.get(geo.size() - 1);
+            CompletableFuture<Optional<RouteResult>> call = geo.size() == 2
+                    ? routeProvider.directionsAsync(profile(tour),
+                            from.getLongitude(), from.getLatitude(), to.getLongitude(), to.getLatitude())
+                    : routeProvider.directionsAsync(profile(tour), coordinates(geo));
+            directionsCall.set(call);
+            return call.thenApply(route -> {
+                RouteResult found = route.orElseThrow(() -> new IllegalArgumentException("No route found"));
+                return applyToTour ? apply(tour, from, to, found) : found;
+            });
+        });
+
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) {
+                geocodeCalls.forEach(call -> call.cancel(true));
+                CompletableFuture<?> call = directionsCall.get();
+                if (call != null) call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // Puts the intermediate stops in the order with the least total travel time (start and destination stay),
+    // then computes the route through them. One matrix call prices every pair of places. The tour itself is
+    // not touched: the result is a routed copy, for the caller to apply with Tour.copyRouteFrom on its thread.
+    @Override
+    public CompletableFuture<Tour> optimizeStopsAsync(Tour tour) {
+        List<String> places = waypoints(tour);
+        if (tour.getStops().size() < 2) {
+            return routedCopy(tour, tour.getStops());
+        }
+        if (places.size() > OrsService.MAX_WAYPOINTS
+                || (long) places.size() * places.size() > orsService.getMatrixMaxElements()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Too many stops to optimize: " + tour.getStops().size()));
+        }
+        log.info("Optimizing the order of {} stops of tour '{}'", tour.getStops().size(), tour.getName());
+
+        List<CompletableFuture<Optional<GeocodeResult>>> geocodeCalls = new ArrayList<>();
+        for (String place : places) geocodeCalls.add(geocoder.geocodeAsync(place));
+        AtomicReference<CompletableFuture<?>> pending = new AtomicReference<>();
+
+        CompletableFuture<Tour> result = geocoded(tour, geocodeCalls).thenCompose(geo -> {
+            List<double[]> coordinates = coordinates(geo);
+            CompletableFuture<MatrixResult> matrixCall = orsService.matrixAsync(profile(tour), coordinates, coordinates);
+            pending.set(matrixCall);
+            return matrixCall;
+        }).thenCompose(matrix -> {
+            double[][] durations = new double[places.size()][places.size()];
+            for (int i = 0; i < durations.length; i++) {
+                for (int j = 0; j < durations.length; j++) durations[i][j] = matrix.getDuration(i, j);
+            }
+            int[] order = orderOptimizer.optimize(durations);
+            List<String> stops = new ArrayList<>(tour.getStops());
+            List<String> ordered = new ArrayList<>();
+            for (int i = 1; i < order.length - 1; i++) ordered.add(stops.get(order[i] - 1));
+            log.info("Stop order of tour '{}': {} s -> {} s", tour.getName(),
+                    Math.round(TourOrderOptimizer.cost(durations, IntStream.range(0, order.length).toArray())),
+                    Math.round(TourOrderOptimizer.cost(durations, order)));
+            CompletableFuture<Tour> route = routedCopy(tour, ordered);
+            pending.set(route);
+            return route;
+        });
+
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) {
+                geocodeCalls.forEach(call -> call.cancel(true));
+                CompletableFuture<?> call = pending.get();
+                if (call != null) call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<Tour> routedCopy(Tour tour, List<String> stops) {
+        Tour copy = new Tour(tour.getName(), tour.getDescription(), tour.getFromLocation(), tour.getToLocation(),
+                tour.getTransportType(), 0, null, null);
+        copy.setStops(stops);
+        CompletableFuture<RouteResult> route = routeAsync(copy, true);
+        return OrsService.cancelUpstream(route, route.thenApply(r -> copy));
+    }
+
+    // All geocode results in waypoint order, or the first failure naming the place that could not be found
+    private static CompletableFuture<List<GeocodeResult>> geocoded(
+            Tour tour, List<CompletableFuture<Optional<GeocodeResult>>> calls) {
+        List<String> places = waypoints(tour);
+        return CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            List<GeocodeResult> results = new ArrayList<>(calls.size());
+            for (int i = 0; i < calls.size(); i++) {
+                int index = i;
+                results.add(calls.get(i).join().orElseThrow(() -> new IllegalArgumentException(
+                        index == 0 ? "Could not geocode origin"
+                                : index == calls.size() - 1 ? "Could not geocode destination"
+                                : "Could not geocode stop '" + places.get(index) + "'")));
+            }
+            return results;
+        });
+    }
+
+    private static List<double[]> coordinates(List<GeocodeResult> geo) {
+        List<double[]> coordinates = new ArrayList<>(geo.size());
+        for (GeocodeResult g : geo) coordinates.add(new double[]{g.getLongitude(), g.getLatitude()});
+        return coordinates;
+    }
+
+    // From, stops, to
+    private static List<String> waypoints(Tour tour) {
+        List<String> places = new ArrayList<>(tour.getStops().size() + 2);
+        places.add(tour.getFromLocation());
+        places.addAll(tour.getStops());
+        places.add(tour.getToLocation());
+        return places;
+    }
+
+    // Fills distance and time of many tours with ORS matrix calls instead of one directions call per tour.
+    // The geometry is left alone, so the map still fetches the full route when a tour is opened; the route
+    // key is set, so the tours are not picked up again by the next refresh (see needsMetrics).
+    // Only tours without usable stored coordinates are geocoded.
+    // Completes with the tours that could not be geocoded or routed.
+    @Override
+    public CompletableFuture<List<Tour>> applyMetricsAsync(List<Tour> tours) {
+        log.info("Computing distance/time of {} tours via ORS matrix", tours.size());
+        Map<String, CompletableFuture<Optional<GeocodeResult>>> geocodes = new HashMap<>();
+        for (Tour tour : tours) {
+            if (!tour.getStops().isEmpty() || hasCoordinates(tour)) continue;
+            geocode(geocodes, tour.getFromLocation());
+            geocode(geocodes, tour.getToLocation());
+        }
+        List<CompletableFuture<?>> calls = Collections.synchronizedList(new ArrayList<>(geocodes.values()));
+        List<Tour> failed = Collections.synchronizedList(new ArrayList<>());
+
+        // A from -> to matrix cell says nothing about a tour with stops; those are routed one by one
+        List<CompletableFuture<Void>> multiStop = new ArrayList<>();
+        for (Tour tour : tours) {
+            if (tour.getStops().isEmpty()) continue;
+            CompletableFuture<RouteResult> call = routeAsync(tour, true);
+            calls.add(call);
+            multiStop.add(call.handle((route, ex) -> {
+                if (ex != null) {
+                    log.warn("Could not route multi-stop tour '{}'", tour.getName(), ex);
+                    failed.add(tour);
+                }
+                return null;
+            }));
+        }
+
+        CompletableFuture<List<Tour>> result = CompletableFuture
+                .allOf(geocodes.values().toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> {
+                    Map<String, List<Leg>> byProfile = new LinkedHashMap<>();
+                    for (Tour tour : tours) {
+                        if (!tour.getStops().isEmpty()) continue;
+                        boolean located = hasCoordinates(tour);
+                        Optional<GeocodeResult> from = located
+                                ? Optional.of(new GeocodeResult(tour.getFromLatitude(), tour.getFromLongitude(), null))
+                                : geocodes.get(GeocodeCache.normalize(tour.getFromLocation())).join();
+                        Optional<GeocodeResult> to = located
+                                ? Optional.of(new GeocodeResult(tour.getToLatitude(), tour.getToLongitude(), null))
+                                : geocodes.get(GeocodeCache.normalize(tour.getToLocation())).join();
+                        if (from.isEmpty() || to.isEmpty()) {
+                            failed.add(tour);
+                        } else {
+                            byProfile.computeIfAbsent(profile(tour), k -> new ArrayList<>())
+                                    .add(new Leg(tour, from.get(), to.get()));
+                        }
+                    }
+
+                    List<CompletableFuture<Void>> batches = new ArrayList<>();
+                    byProfile.forEach((profile, legs) -> {
+                        for (MatrixBatch batch : MatrixBatch.plan(legs, orsService.getMatrixMaxElements())) {
+                            CompletableFuture<MatrixResult> call = orsService.matrixAsync(
+                                    profile, batch.sourceCoordinates, batch.destinationCoordinates);
+                            calls.add(call);
+                            batches.add(call.handle((matrix, ex) -> {
+                                if (ex != null) {
+                                    log.warn("ORS matrix for {} '{}' tours failed", batch.legs.size(), profile, ex);
+                                    batch.legs.forEach(leg -> failed.add(leg.tour));
+                                } else {
+                                    batch.apply(matrix, failed);
+                                }
+                                return null;
+                            }));
+                        }
+                    });
+                    batches.addAll(multiStop);
+                    return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new));
+                })
+                .thenApply(ignored -> {
+                    log.info("Matrix distance/time done: {} updated, {} failed", tours.size() - failed.size(), failed.size());
+                    return List.copyOf(failed);
+                });
+
+        result.whenComplete((r, ex) -> {
+            if (result.isCancelled()) {
+                synchronized (calls) {
+                    calls.forEach(call -> call.cancel(true));
+                }
+            }
+        });
+        return result;
+    }
+
+    // Stored coordinates belong to the endpoints in the route key; a profile change keeps them, an address
+    // change does not. Tours stored before route keys existed have none and their coordinates are trusted.
+    private static boolean hasCoordinates(Tour tour) {
+        if (tour.getFromLatitude() == null || tour.getFromLongitude() == null
+                || tour.getToLatitude() == null || tour.getToLongitude() == null) {
+            return false;
+        }
+        String key = tour.getRouteKey();
+        return key == null || endpoints(key).equals(endpoints(routeKey(tour)));
+    }
+
+    // The route key without its leading profile
+    private static String endpoints(String routeKey) {
+        return routeKey.substring(routeKey.indexOf('|') + 1);
+    }
+
+    // A geocode error only fails the tours using that address, not the whole batch
+    private void geocode(Map<String, CompletableFuture<Optional<GeocodeResult>>> geocodes, String address) {
+        geocodes.computeIfAbsent(GeocodeCache.normalize(address), k -> {
+            CompletableFuture<Optional<GeocodeResult>> call = geocoder.geocodeAsync(address);
+            return OrsService.cancelUpstream(call, call.exceptionally(ex -> {
+                log.warn("Could not geocode '{}' for matrix refresh", address, ex);
+                return Optional.empty();
+            }));
+        });
+    }
+
+    private record Leg(Tour tour, GeocodeResult from, GeocodeResult to) {
+    }
+
+    // Starts become matrix rows and ends columns; ORS prices a matrix by rows x columns, so tours sharing
+    // an endpoint ride along for free and a batch closes once the next tour would exceed the element limit
+    private static final class MatrixBatch {
+        private final Map<String, Integer> sources = new HashMap<>();
+        private final Map<String, Integer> destinations = new HashMap<>();
+        private final List<double[]> sourceCoordinates = new ArrayList<>();
+        private final List<double[]> destinationCoordinates = new ArrayList<>();
+        private final List<Leg> legs = new ArrayList<>();
+        private final List<int[]> cells = new ArrayList<>();
+
+        static List<MatrixBatch> plan(List<Leg> legs, int maxElements) {
+            List<MatrixBatch> batches = new ArrayList<>();
+            MatrixBatch current = new MatrixBatch();
+            for (Leg leg : legs) {
+                if (!current.fits(leg, maxElements)) {
+                    batches.add(current);
+                    current = new MatrixBatch();
+                }
+                current.add(leg);
+            }
+            if (!current.legs.isEmpty()) batches.add(current);
+            return batches;
+        }
+
+        private boolean fits(Leg leg, int maxElements) {
+            int rows = sources.size() + (sources.containsKey(key(leg.from)) ? 0 : 1);
+            int columns = destinations.size() + (destinations.containsKey(key(leg.to)) ? 0 : 1);
+            return legs.isEmpty() || (long) rows * columns <= maxElements;
+        }
+
+        private void add(Leg leg) {
+            int row = sources.computeIfAbsent(key(leg.from), k -> {
+                sourceCoordinates.add(new double[]{leg.from.getLongitude(), leg.from.getLatitude()});
+                return sourceCoordinates.size() - 1;
+            });
+            int column = destinations.computeIfAbsent(key(leg.to), k -> {
+                destinationCoordinates.add(new double[]{leg.to.getLongitude(), leg.to.getLatitude()});
+                return destinationCoordinates.size() - 1;
+            });
+            legs.add(leg);
+            cells.add(new int[]{row, column});
+        }
+
+        private void apply(MatrixResult matrix, List<Tour> failed) {
+            for (int i = 0; i < legs.size(); i++) {
+                Leg leg = legs.get(i);
+                int[] cell = cells.get(i);
+                if (!matrix.isRoutable(cell[0], cell[1])) {
+                    failed.add(leg.tour);
+                    continue;
+                }
+                Tour tour = leg.tour;
+                tour.setFromLatitude(leg.from.getLatitude());
+                tour.setFromLongitude(leg.from.getLongitude());
+                tour.setToLatitude(leg.to.getLatitude());
+                tour.setToLongitude(leg.to.getLongitude());
+                tour.setDistance(matrix.getDistance(cell[0], cell[1]));
+                tour.setEstimatedTime(formatDuration(matrix.getDuration(cell[0], cell[1])));
+                tour.setRouteKey(routeKey(tour));
+            }
+        }
+
+        private static String key(GeocodeResult geo) {
+            return geo.getLongitude() + "," + geo.getLatitude();
+        }
+    }
+
+    private RouteResult apply(Tour tour, GeocodeResult fromGeo, GeocodeResult toGeo, RouteResult route) {
+        tour.setFromLatitude(fromGeo.getLatitude());
+        tour.setFromLongitude(fromGeo.getLongitude());
+        tour.setToLatitude(toGeo.getLatitude());
+        tour.setToLongitude(toGeo.getLongitude());
+        tour.setDistance(route.getDistance());
+        tour.setEstimatedTime(formatDuration(route.getDuration()));
+        tour.setRouteGeometry(route.getGeometry().toBytes());
+        tour.setRouteKey(routeKey(tour));
+        return route;
+    }
+
+    @Override
+    public Optional<RouteResult> storedRoute(Tour tour) {
+        if (needsRoute(tour)) {
+            return Optional.empty();
+        }
+        try {
+            RouteGeometry geometry = RouteGeometry.fromBytes(tour.getRouteGeometry());
+            return Optional.of(new RouteResult(
+                    tour.getDistance(),
+                    parseSeconds(tour.getEstimatedTime()),
+                    geometry,
+                    geometry.bbox()
+            ));
+        } catch (IllegalArgumentException e) {
+            log.warn("Stored route geometry of tour (id={}) is unreadable", tour.getId(), e);
+            return Optional.empty();
+        }
+    }
+
+    public static String routeKey(Tour tour) {
+        StringBuilder key = new StringBuilder(profile(tour)).append('|')
+                .append(GeocodeCache.normalize(tour.getFromLocation())).append('|')
+                .append(GeocodeCache.normalize(tour.getToLocation()));
+        // Stops go last, so keys of tours without stops are unchanged; up to 50 stops would not fit the
+        // column, so they are kept as a digest
+        if (!tour.getStops().isEmpty()) {
+            StringBuilder stops = new StringBuilder();
+            for (String stop : tour.getStops()) stops.append(GeocodeCache.normalize(stop)).append('\n');
+            key.append("|stops:").append(tour.getStops().size()).append(':').append(digest(stops.toString()));
+        }
+        return key.toString();
+    }
+
+    private static String digest(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String profile(Tour tour) {
+        return tour.getTransportType() == null ? "" : tour.getTransportType().trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String formatDuration(double seconds) {
+        long secs = Math.round(seconds);
+        long hrs = secs / 3600;
+        long min = (secs % 3600) / 60;
+        long sec = secs % 60;
+        return String.format("%02d:%02d:%02d", hrs, min, sec);
+    }
+
+    private static double parseSeconds(String hms) {
+        if (hms == null) return 0;
+        String[] parts = hms.split(":");
+        if (parts.length != 3) return 0;
+        try {
+            return Long.parseLong(parts[0]) * 3600L + Long.parseLong(parts[1]) * 60L + Long.parseLong(parts[2]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package at.technikum.javafx.service;
+
+import java.util.Arrays;
+
+// Douglas–Peucker simplification on RouteGeometry. Works in an equirectangular projection around the
+// route's mean latitude, so the tolerance is in degrees of longitude like a map pixel at a given zoom.
+public final class RouteSimplifier {
+
+    private RouteSimplifier() {
+    }
+
+    // Degrees of longitude covered by one 256px-tile pixel at the given zoom level
+    public static double pixelSizeDegrees(int zoom) {
+        return 360.0 / (256.0 * (1L << zoom));
+    }
+
+    public static RouteGeometry simplify(RouteGeometry geometry, double toleranceDegrees) {
+        int n = geometry.size();
+        if (n <= 2 || toleranceDegrees <= 0) {
+            return geometry;
+        }
+
+        double[] coords = geometry.toArray();
+        double[] bbox = geometry.bbox();
+        double lonScale = Math.cos(Math.toRadians((bbox[1] + bbox[3]) / 2));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = coords[2 * i] * lonScale;
+            y[i] = coords[2 * i + 1];
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        double toleranceSq = toleranceDegrees * lonScale * toleranceDegrees * lonScale;
+
+        // Explicit stack instead of recursion: long routes would otherwise recurse thousands of levels deep
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            double maxDistSq = 0;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > maxDistSq) {
+                    maxDistSq = d;
+                    index = i;
+                }
+            }
+
+            if (index >= 0 && maxDistSq > toleranceSq) {
+                keep[index] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+
+        RouteGeometry.Builder builder = new RouteGeometry.Builder(n / 4);
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) builder.add(coords[2 * i], coords[2 * i + 1]);
+        }
+        return builder.build();
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,242 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Route images are stored under the hash of what they show (geometry, profile and size), so a file
+// never goes stale: a changed route gets a new name, and tours with the same route share one file.
+// Old routes are never asked for again, so the directory is size-capped and least recently used images
+// are deleted, the same way TileCache keeps its tiles.
+@Service
+public class RouteThumbnailService implements IRouteThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteThumbnailService.class);
+
+    // Part of every name; bump it when RouteImageRenderer draws differently so old images are not reused
+    private static final String STYLE = "v1";
+
+    private final IRouteService routeService;
+    private final RouteImageRenderer renderer;
+    private final Path dir;
+    private final long maxBytes;
+
+    // Access-ordered map of image file to size, so iteration starts at the least recently used image
+    private final LinkedHashMap<Path, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    private final SingleFlight<Path, Optional<Path>> renders = new SingleFlight<>("route-thumbnail");
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    // Two low-priority daemon threads, so thumbnails never compete with the UI
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "route-thumbnail");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    @Autowired
+    public RouteThumbnailService(IRouteService routeService, RouteImageRenderer renderer,
+                                 @Value("${tourplanner.thumbnails.dir}") String dir,
+                                 @Value("${tourplanner.thumbnails.max-size-mb}") long maxSizeMb) {
+        this(routeService, renderer, Path.of(dir), maxSizeMb * 1024 * 1024);
+    }
+
+    public RouteThumbnailService(IRouteService routeService, RouteImageRenderer renderer, Path dir, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.routeService = routeService;
+        this.renderer = renderer;
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        scan();
+        log.info("RouteThumbnailService initialized with {} images ({} KB) in {}", size(), getBytes() / 1024, dir);
+    }
+
+    // Where the list thumbnail of the tour's current route lives; empty for tours without a route
+    @Override
+    public Optional<Path> pathFor(Tour tour) {
+        return pathFor(tour, LIST_WIDTH, LIST_HEIGHT);
+    }
+
+    // Hashing the route and looking for its file also run on the pool, as callers are usually on the FX thread
+    @Override
+    public CompletableFuture<Optional<Path>> renderAsync(Tour tour) {
+        return CompletableFuture.supplyAsync(() -> pathFor(tour), executor).thenCompose(path -> {
+            if (path.isEmpty()) return CompletableFuture.completedFuture(path);
+            if (Files.isRegularFile(path.get())) {
+                touch(path.get());
+                return CompletableFuture.completedFuture(path);
+            }
+            return renders.execute(path.get(), () -> CompletableFuture.supplyAsync(
+                    () -> render(tour, path.get(), LIST_WIDTH, LIST_HEIGHT), executor));
+        });
+    }
+
+    // Renders on the calling thread; an image already on disk is returned without drawing anything
+    @Override
+    public Optional<Path> render(Tour tour, int width, int height) {
+        return pathFor(tour, width, height).flatMap(path -> render(tour, path, width, height));
+    }
+
+    // The image of this route and size if it was drawn before; never draws or writes anything
+    @Override
+    public Optional<Path> existing(Tour tour, int width, int height) {
+        Optional<Path> path = pathFor(tour, width, height).filter(Files::isRegularFile);
+        path.ifPresent(this::touch);
+        return path;
+    }
+
+    public int getRendered() {
+        return rendered.get();
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private Optional<Path> pathFor(Tour tour, int width, int height) {
+        if (tour.getRouteGeometry() == null || routeService.needsRoute(tour)) return Optional.empty();
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(tour.getRouteGeometry());
+            sha.update(("|" + profile(tour) + "|" + width + "x" + height + "|" + STYLE)
+                    .getBytes(StandardCharsets.UTF_8));
+            String hash = HexFormat.of().formatHex(sha.digest(), 0, 16);
+            return Optional.of(dir.resolve(hash.substring(0, 2)).resolve(hash + ".png"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Optional<Path> render(Tour tour, Path path, int width, int height) {
+        if (Files.isRegularFile(path)) {
+            touch(path);
+            return Optional.of(path);
+        }
+        Optional<RouteResult> route = routeService.storedRoute(tour);
+        if (route.isEmpty()) return Optional.empty();
+        try {
+            Files.createDirectories(path.getParent());
+            // Written next to its final name and moved into place, so readers never see half a PNG
+            Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                ImageIO.write(renderer.render(route.get(), profile(tour), width, height), "png", tmp.toFile());
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            stored(path, Files.size(path));
+            rendered.incrementAndGet();
+            log.debug("Rendered {}x{} route image of tour '{}' to {}", width, height, tour.getName(), path);
+            return Optional.of(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write route image " + path, e);
+        }
+    }
+
+    private void stored(Path path, long size) {
+        List<Path> evicted;
+        synchronized (this) {
+            Long previous = index.put(path, size);
+            bytes += size - (previous == null ? 0 : previous);
+            evicted = evictOverflow();
+        }
+        evicted.forEach(RouteThumbnailService::deleteQuietly);
+    }
+
+    // A hit moves the file's modification time forward, so the order survives restarts
+    private void touch(Path path) {
+        synchronized (this) {
+            // get, not containsKey: only get moves the image to the recently used end
+            if (index.get(path) == null) return;
+        }
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Could not touch route image {}", path, e);
+        }
+    }
+
+    private List<Path> evictOverflow() {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Path, Long>> it = index.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Path, Long> lru = it.next();
+            bytes -= lru.getValue();
+            evicted.add(lru.getKey());
+            it.remove();
+        }
+        return evicted;
+    }
+
+    private void scan() {
+        if (!Files.isDirectory(dir)) return;
+        record Found(Path file, long size, long modified) {}
+        List<Found> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                if (!file.getFileName().toString().endsWith(".png")) continue;
+                found.add(new Found(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+            }
+        } catch (IOException e) {
+            log.warn("Could not scan route images in {}, starting empty", dir, e);
+            return;
+        }
+        found.sort(Comparator.comparingLong(Found::modified));
+        List<Path> evicted;
+        synchronized (this) {
+            for (Found f : found) {
+                index.put(f.file(), f.size());
+                bytes += f.size();
+            }
+            evicted = evictOverflow();
+        }
+        evicted.forEach(RouteThumbnailService::deleteQuietly);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete evicted route image {}", file, e);
+        }
+    }
+
+    private static String profile(Tour tour) {
+        return tour.getTransportType() == null ? "" : tour.getTransportType();
+    }
+}
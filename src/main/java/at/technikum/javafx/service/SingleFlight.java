@@ -0,0 +1,117 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Coalesces identical in-flight calls: callers with the same key share one execution and one result
+public class SingleFlight<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final String name;
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        calls.incrementAndGet();
+        while (true) {
+            Flight<V> created = new Flight<>();
+            Flight<V> existing = inFlight.putIfAbsent(key, created);
+            Flight<V> flight = existing != null ? existing : created;
+
+            CompletableFuture<V> view = flight.join();
+            if (view == null) {
+                // Every waiter of that flight cancelled it, so it must not be joined anymore
+                inFlight.remove(key, flight);
+                continue;
+            }
+            if (existing != null) {
+                deduplicated.incrementAndGet();
+                log.debug("Joined in-flight call for '{}': {}", key, this);
+                return view;
+            }
+
+            executions.incrementAndGet();
+            CompletableFuture<V> source;
+            try {
+                source = call.get();
+            } catch (RuntimeException e) {
+                source = CompletableFuture.failedFuture(e);
+            }
+            source.whenComplete((v, ex) -> inFlight.remove(key, created));
+            created.start(source);
+            return view;
+        }
+    }
+
+    public long getCalls() { return calls.get(); }
+    public long getExecutions() { return executions.get(); }
+    public long getDeduplicated() { return deduplicated.get(); }
+    public int getInFlight() { return inFlight.size(); }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{" + name +
+                ", calls=" + calls.get() +
+                ", executions=" + executions.get() +
+                ", deduplicated=" + deduplicated.get() +
+                ", inFlight=" + inFlight.size() +
+                '}';
+    }
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> shared = new CompletableFuture<>();
+        private CompletableFuture<V> source;
+        private int waiters;
+        private boolean closed;
+
+        // Each caller gets its own copy, so cancelling it only detaches that caller
+        synchronized CompletableFuture<V> join() {
+            if (closed) return null;
+            waiters++;
+            CompletableFuture<V> view = shared.copy();
+            view.whenComplete((v, ex) -> {
+                if (view.isCancelled()) leave();
+            });
+            return view;
+        }
+
+        void start(CompletableFuture<V> source) {
+            synchronized (this) {
+                this.source = source;
+                if (closed) source.cancel(true);
+            }
+            source.whenComplete((v, ex) -> {
+                if (ex == null) {
+                    shared.complete(v);
+                } else {
+                    shared.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null
+                            ? ex.getCause() : ex);
+                }
+            });
+        }
+
+        // The underlying call is only aborted once nobody is waiting for it anymore
+        private synchronized void leave() {
+            waiters--;
+            if (waiters == 0 && !shared.isDone()) {
+                closed = true;
+                if (source != null) source.cancel(true);
+                shared.cancel(true);
+            }
+        }
+    }
+}
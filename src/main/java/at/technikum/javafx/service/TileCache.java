@@ -0,0 +1,279 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Size-capped disk cache for map tiles, one file per tile under <dir>/<z>/<x>/<y>.tile, so the zoom and
+// column directories shard the files. Each file starts with a small header (fetch time and ETag) that
+// revalidation needs, followed by the tile as served.
+//
+// Only the LRU index lives in memory. It is rebuilt from file sizes and modification times on start;
+// a hit moves the file's modification time forward so the order survives restarts.
+public class TileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TileCache.class);
+
+    private static final int MAGIC = 0x54505431; // "TPT1"
+    private static final String SUFFIX = ".tile";
+    static final int MAX_ZOOM = 22;
+
+    public static final class Tile {
+        private final byte[] data;
+        private final String etag;
+        private final long fetchedAt;
+        private final boolean fresh;
+
+        Tile(byte[] data, String etag, long fetchedAt, boolean fresh) {
+            this.data = data;
+            this.etag = etag;
+            this.fetchedAt = fetchedAt;
+            this.fresh = fresh;
+        }
+
+        public byte[] getData()    { return data; }
+        public String getEtag()    { return etag; }
+        public long getFetchedAt() { return fetchedAt; }
+        // Younger than the cache's max age; older tiles are revalidated before use, but still served offline
+        public boolean isFresh()   { return fresh; }
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final Clock clock;
+
+    // Access-ordered map of tile key to file size, so iteration starts at the least recently used tile
+    private final LinkedHashMap<Long, Long> index = new LinkedHashMap<>(1024, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TileCache(Path dir, long maxBytes, Duration maxAge, Clock clock) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.clock = clock;
+        scan();
+        log.info("TileCache initialized with {} tiles ({} KB) in {}", index.size(), bytes / 1024, dir);
+    }
+
+    public Optional<Tile> get(int z, int x, int y) {
+        long key = key(z, x, y);
+        synchronized (this) {
+            // get, not containsKey: only get moves the tile to the recently used end
+            if (index.get(key) == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+        Path file = file(z, x, y);
+        try {
+            byte[] content = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(clock.millis()));
+            Tile tile = decode(content);
+            hits.incrementAndGet();
+            return Optional.of(tile);
+        } catch (NoSuchFileException e) {
+            // Removed behind our back, or evicted between the index lookup and the read
+            forget(key);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Dropping unreadable tile {}/{}/{}", z, x, y, e);
+            forget(key);
+            deleteQuietly(file);
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    public void put(int z, int x, int y, byte[] data, String etag) {
+        byte[] tag = etag == null ? new byte[0] : etag.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer content = ByteBuffer.allocate(14 + tag.length + data.length)
+                .putInt(MAGIC).putLong(clock.millis()).putShort((short) tag.length).put(tag).put(data);
+
+        Path file = file(z, x, y);
+        try {
+            Files.createDirectories(file.getParent());
+            // Write to a sibling temp file first so a reader never sees a half-written tile
+            Path tmp = Files.createTempFile(file.getParent(), y + "-", ".tmp");
+            try {
+                Files.write(tmp, content.array());
+                Files.setLastModifiedTime(tmp, FileTime.fromMillis(clock.millis()));
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            log.warn("Could not store tile {}/{}/{} in {}", z, x, y, dir, e);
+            return;
+        }
+
+        List<Long> evicted;
+        synchronized (this) {
+            Long previous = index.put(key(z, x, y), (long) content.capacity());
+            bytes += content.capacity() - (previous == null ? 0 : previous);
+            evicted = evictOverflow();
+        }
+        evicted.forEach(key -> deleteQuietly(file(key)));
+    }
+
+    // Upstream answered 304: the stored tile is current again, only its fetch time changes
+    public void revalidated(int z, int x, int y) {
+        try (FileChannel channel = FileChannel.open(file(z, x, y), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putLong(0, clock.millis()), 4);
+        } catch (IOException e) {
+            log.debug("Could not mark tile {}/{}/{} as revalidated", z, x, y, e);
+        }
+    }
+
+    // Imports a z/x/y.png tree, e.g. fixture tiles for tests or a prepared offline area
+    public int importTiles(Path source) throws IOException {
+        int imported = 0;
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                int[] zxy = parse(source.relativize(file), ".png");
+                if (zxy == null) continue;
+                put(zxy[0], zxy[1], zxy[2], Files.readAllBytes(file), null);
+                imported++;
+            }
+        }
+        log.info("Imported {} tiles from {}", imported, source);
+        return imported;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+
+    // Tile coordinates outside the pyramid never reach the file system
+    public static boolean isValid(int z, int x, int y) {
+        return z >= 0 && z <= MAX_ZOOM && x >= 0 && y >= 0 && x < (1 << z) && y < (1 << z);
+    }
+
+    private Tile decode(byte[] content) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        if (in.readInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a cached tile");
+        }
+        long fetchedAt = in.readLong();
+        int tagLength = in.readUnsignedShort();
+        String etag = tagLength == 0 ? null : new String(in.readNBytes(tagLength), StandardCharsets.UTF_8);
+        byte[] data = in.readAllBytes();
+        return new Tile(data, etag, fetchedAt, clock.millis() - fetchedAt <= maxAgeMillis);
+    }
+
+    private List<Long> evictOverflow() {
+        List<Long> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Long, Long>> it = index.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Long, Long> lru = it.next();
+            bytes -= lru.getValue();
+            evicted.add(lru.getKey());
+            it.remove();
+            evictions.incrementAndGet();
+        }
+        return evicted;
+    }
+
+    private synchronized void forget(long key) {
+        Long size = index.remove(key);
+        if (size != null) bytes -= size;
+    }
+
+    private void scan() {
+        if (!Files.isDirectory(dir)) return;
+        record Found(long key, long size, long modified) {}
+        List<Found> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(dir, 3)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                int[] zxy = parse(dir.relativize(file), SUFFIX);
+                if (zxy == null) continue;
+                found.add(new Found(key(zxy[0], zxy[1], zxy[2]), Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+            }
+        } catch (IOException e) {
+            log.warn("Could not scan tile cache {}, starting empty", dir, e);
+            return;
+        }
+        found.sort(Comparator.comparingLong(Found::modified));
+        List<Long> evicted;
+        synchronized (this) {
+            for (Found f : found) {
+                index.put(f.key(), f.size());
+                bytes += f.size();
+            }
+            evicted = evictOverflow();
+        }
+        evicted.forEach(key -> deleteQuietly(file(key)));
+    }
+
+    // "z/x/y<suffix>" relative to a tile tree, or null for anything else (temp files, stray files)
+    private static int[] parse(Path relative, String suffix) {
+        if (relative.getNameCount() != 3) return null;
+        String name = relative.getFileName().toString();
+        if (!name.endsWith(suffix)) return null;
+        try {
+            int z = Integer.parseInt(relative.getName(0).toString());
+            int x = Integer.parseInt(relative.getName(1).toString());
+            int y = Integer.parseInt(name.substring(0, name.length() - suffix.length()));
+            return isValid(z, x, y) ? new int[]{z, x, y} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Path file(int z, int x, int y) {
+        return dir.resolve(Integer.toString(z)).resolve(Integer.toString(x)).resolve(y + SUFFIX);
+    }
+
+    private Path file(long key) {
+        return file((int) (key >>> 48), (int) ((key >>> 24) & 0xFFFFFF), (int) (key & 0xFFFFFF));
+    }
+
+    private static long key(int z, int x, int y) {
+        return ((long) z << 48) | ((long) x << 24) | y;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete evicted tile {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package at.technikum.javafx.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local HTTP server the map WebView points at, so the page, Leaflet and the tiles share one origin
+// and nothing is downloaded twice:
+//   /leaflet/...          leaflet.html and the Leaflet 1.5.1 dist files, both from the jar, so the map
+//                         works on a first start without network.
+//   /tiles/{z}/{x}/{y}.png  tiles from the TileCache; missing tiles are fetched from the upstream tile
+//                         server, stale ones revalidated with If-None-Match. Without network, stale
+//                         tiles are served as they are.
+public class TileServer implements ITileServer, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TileServer.class);
+
+    public static final String DEFAULT_UPSTREAM = "https://tile.openstreetmap.org/{z}/{x}/{y}.png";
+    // The OSM tile usage policy asks for an identifying User-Agent
+    private static final String USER_AGENT = "TourPlanner/1.0 (JavaFX desktop app)";
+    private static final Duration UPSTREAM_TIMEOUT = Duration.ofSeconds(15);
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "js", "application/javascript",
+            "css", "text/css",
+            "png", "image/png",
+            "svg", "image/svg+xml"
+    );
+
+    private final TileCache cache;
+    private final String upstream;
+    private final HttpClient httpClient;
+    private final SingleFlight<String, TileCache.Tile> flights = new SingleFlight<>("tiles");
+    private final ExecutorService executor;
+    private HttpServer server;
+
+    private final AtomicLong upstreamRequests = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+
+    public TileServer(TileCache cache, String upstream) {
+        this.cache = cache;
+        this.upstream = upstream;
+        // Leaflet asks for about six tiles at once; blocking handlers are fine on virtual threads
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    // Binds to a free loopback port; only this process is meant to talk to it
+    public synchronized TileServer start() throws IOException {
+        if (server != null) return this;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/leaflet/", this::handleAsset);
+        server.createContext("/tiles/", this::handleTile);
+        server.setExecutor(executor);
+        server.start();
+        log.info("Tile server listening on {} (upstream {})", getBaseUrl(), upstream);
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public String getMapUrl() {
+        return getBaseUrl() + "/leaflet/leaflet.html";
+    }
+
+    public long getUpstreamRequests() { return upstreamRequests.get(); }
+    public long getRevalidations() { return revalidations.get(); }
+    public long getStaleServed() { return staleServed.get(); }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        executor.shutdownNow();
+        log.info("Tile server stopped: {} cache hits, {} upstream requests, {} revalidations, {} stale tiles served",
+                cache.getHits(), upstreamRequests.get(), revalidations.get(), staleServed.get());
+    }
+
+    // A fresh cached tile is answered from disk; everything else goes upstream, once per tile at a time
+    @Override
+    public CompletableFuture<TileCache.Tile> tile(int z, int x, int y) {
+        Optional<TileCache.Tile> cached = cache.get(z, x, y);
+        if (cached.isPresent() && cached.get().isFresh()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        return flights.execute(z + "/" + x + "/" + y, () -> fetch(z, x, y, cached.orElse(null)));
+    }
+
+    private CompletableFuture<TileCache.Tile> fetch(int z, int x, int y, TileCache.Tile stale) {
+        String url = upstream.replace("{z}", Integer.toString(z))
+                .replace("{x}", Integer.toString(x))
+                .replace("{y}", Integer.toString(y));
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(UPSTREAM_TIMEOUT)
+                .header("User-Agent", USER_AGENT)
+                .GET();
+        if (stale != null && stale.getEtag() != null) {
+            request.header("If-None-Match", stale.getEtag());
+        }
+        upstreamRequests.incrementAndGet();
+
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()).handle((response, ex) -> {
+            if (ex == null && response.statusCode() == 304 && stale != null) {
+                revalidations.incrementAndGet();
+                cache.revalidated(z, x, y);
+                return stale;
+            }
+            if (ex == null && response.statusCode() == 200) {
+                String etag = response.headers().firstValue("ETag").orElse(null);
+                cache.put(z, x, y, response.body(), etag);
+                return new TileCache.Tile(response.body(), etag, System.currentTimeMillis(), true);
+            }
+            if (stale != null) {
+                staleServed.incrementAndGet();
+                log.debug("Serving stale tile {}/{}/{}: {}", z, x, y, ex != null ? ex.toString() : response.statusCode());
+                return stale;
+            }
+            throw new IllegalStateException("Tile " + z + "/" + x + "/" + y
+                    + (ex != null ? ": " + ex.getMessage() : ": upstream answered " + response.statusCode()));
+        });
+    }
+
+    private void handleTile(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int[] zxy = parseTile(exchange.getRequestURI().getPath());
+            if (zxy == null) {
+                send(exchange, 404, "text/plain", new byte[0]);
+                return;
+            }
+            try {
+                TileCache.Tile tile = tile(zxy[0], zxy[1], zxy[2])
+                        .get(UPSTREAM_TIMEOUT.toMillis() + 1_000, TimeUnit.MILLISECONDS);
+                exchange.getResponseHeaders().set("Cache-Control", "max-age=86400");
+                send(exchange, 200, CONTENT_TYPES.get("png"), tile.getData());
+            } catch (Exception e) {
+                // Leaflet leaves the square empty; the rest of the map still works
+                log.debug("Tile {} unavailable", exchange.getRequestURI().getPath(), e);
+                send(exchange, 404, "text/plain", new byte[0]);
+            }
+        }
+    }
+
+    private void handleAsset(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath().substring("/leaflet/".length());
+            if (path.isEmpty() || path.contains("..") || path.startsWith("/")) {
+                send(exchange, 404, "text/plain", new byte[0]);
+                return;
+            }
+            byte[] asset = asset(path);
+            if (asset == null) {
+                send(exchange, 404, "text/plain", new byte[0]);
+                return;
+            }
+            String extension = path.substring(path.lastIndexOf('.') + 1);
+            send(exchange, 200, CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"), asset);
+        }
+    }
+
+    private byte[] asset(String path) throws IOException {
+        try (InputStream in = TileServer.class.getResourceAsStream("/leaflet/" + path)) {
+            return in == null ? null : in.readAllBytes();
+        }
+    }
+
+    // "/tiles/z/x/y.png" to {z, x, y}, or null for anything outside the tile pyramid
+    static int[] parseTile(String path) {
+        String[] parts = path.split("/");
+        if (parts.length != 5 || !parts[4].endsWith(".png")) return null;
+        try {
+            int z = Integer.parseInt(parts[2]);
+            int x = Integer.parseInt(parts[3]);
+            int y = Integer.parseInt(parts[4].substring(0, parts[4].length() - 4));
+            return TileCache.isValid(z, x, y) ? new int[]{z, x, y} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
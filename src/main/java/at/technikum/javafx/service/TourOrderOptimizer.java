@@ -0,0 +1,239 @@
+package at.technikum.javafx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Orders the stops of a multi-stop tour so the total travel time is small. Index 0 of the cost matrix is
+// the start and the last index the destination; both stay fixed, the stops in between may move freely.
+// The matrix may be asymmetric (one-way streets), so every move is priced in its actual direction.
+//
+// Up to EXACT_STOPS stops the order is solved exactly with the Held-Karp recurrence. Beyond that, each
+// restart builds a tour with (randomised) nearest neighbour and improves it with 2-opt and Or-opt until
+// neither finds a better move; the restarts run in parallel on a fork-join pool and the cheapest result
+// wins. Restarts are seeded by their index, so the answer does not depend on thread scheduling.
+public final class TourOrderOptimizer {
+
+    private static final Logger log = LoggerFactory.getLogger(TourOrderOptimizer.class);
+
+    // Stands in for pairs the matrix could not route, so they are avoided but never break the search
+    static final double UNROUTABLE = 1e12;
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT = 3;
+    // 2^12 subsets x 12 x 12 is well under a millisecond; every extra stop doubles it
+    static final int EXACT_STOPS = 12;
+
+    private final ForkJoinPool pool;
+    private final int restarts;
+
+    public TourOrderOptimizer() {
+        this(ForkJoinPool.commonPool(), Math.max(8, ForkJoinPool.commonPool().getParallelism() * 2));
+    }
+
+    public TourOrderOptimizer(ForkJoinPool pool, int restarts) {
+        if (restarts < 1) {
+            throw new IllegalArgumentException("restarts must be at least 1");
+        }
+        this.pool = pool;
+        this.restarts = restarts;
+    }
+
+    // Visiting order as matrix indexes, starting with 0 and ending with cost.length - 1
+    public int[] optimize(double[][] cost) {
+        int n = cost.length;
+        for (double[] row : cost) {
+            if (row.length != n) throw new IllegalArgumentException("Cost matrix must be square");
+        }
+        if (n <= 3) return IntStream.range(0, n).toArray();
+
+        long start = System.nanoTime();
+        double[][] c = sanitize(cost);
+        int[] best = n - 2 <= EXACT_STOPS ? exact(c) : heuristic(c);
+        log.debug("Ordered {} stops in {} us (cost {})", n - 2, (System.nanoTime() - start) / 1_000, cost(c, best));
+        return best;
+    }
+
+    // Cheapest of the parallel local-search restarts
+    int[] heuristic(double[][] c) {
+        return pool.submit(() -> IntStream.range(0, restarts).parallel()
+                        .mapToObj(restart -> solve(c, restart))
+                        .reduce((a, b) -> cost(c, b) < cost(c, a) - EPSILON ? b : a)
+                        .orElseThrow())
+                .join();
+    }
+
+    // Held-Karp: best[set][last] is the cheapest path from the start through the stops in set, ending at last
+    static int[] exact(double[][] c) {
+        int n = c.length, stops = n - 2, full = (1 << stops) - 1;
+        double[][] best = new double[1 << stops][stops];
+        int[][] previous = new int[1 << stops][stops];
+        for (double[] row : best) Arrays.fill(row, Double.POSITIVE_INFINITY);
+        for (int s = 0; s < stops; s++) best[1 << s][s] = c[0][s + 1];
+
+        for (int set = 1; set <= full; set++) {
+            for (int last = 0; last < stops; last++) {
+                double here = best[set][last];
+                if ((set & (1 << last)) == 0 || here == Double.POSITIVE_INFINITY) continue;
+                for (int next = 0; next < stops; next++) {
+                    if ((set & (1 << next)) != 0) continue;
+                    int grown = set | (1 << next);
+                    double candidate = here + c[last + 1][next + 1];
+                    if (candidate < best[grown][next]) {
+                        best[grown][next] = candidate;
+                        previous[grown][next] = last;
+                    }
+                }
+            }
+        }
+
+        int last = 0;
+        for (int s = 1; s < stops; s++) {
+            if (best[full][s] + c[s + 1][n - 1] < best[full][last] + c[last + 1][n - 1]) last = s;
+        }
+        int[] order = new int[n];
+        order[n - 1] = n - 1;
+        for (int pos = n - 2, set = full; pos >= 1; pos--) {
+            order[pos] = last + 1;
+            int before = previous[set][last];
+            set &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    // Total cost of visiting the indexes in this order
+    public static double cost(double[][] cost, int[] order) {
+        double total = 0;
+        for (int i = 0; i + 1 < order.length; i++) {
+            double step = cost[order[i]][order[i + 1]];
+            total += Double.isNaN(step) ? UNROUTABLE : step;
+        }
+        return total;
+    }
+
+    private static int[] solve(double[][] c, int restart) {
+        int[] order = nearestNeighbour(c, restart == 0 ? null : new Random(restart));
+        improve(c, order);
+        return order;
+    }
+
+    // Greedy start: always go to the closest unvisited stop; with a Random, sometimes the second closest
+    static int[] nearestNeighbour(double[][] c, Random random) {
+        int n = c.length;
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        order[0] = 0;
+        order[n - 1] = n - 1;
+        visited[0] = visited[n - 1] = true;
+        for (int pos = 1; pos < n - 1; pos++) {
+            int from = order[pos - 1];
+            int first = -1, second = -1;
+            for (int next = 1; next < n - 1; next++) {
+                if (visited[next]) continue;
+                if (first < 0 || c[from][next] < c[from][first]) {
+                    second = first;
+                    first = next;
+                } else if (second < 0 || c[from][next] < c[from][second]) {
+                    second = next;
+                }
+            }
+            int chosen = random != null && second >= 0 && random.nextInt(3) == 0 ? second : first;
+            order[pos] = chosen;
+            visited[chosen] = true;
+        }
+        return order;
+    }
+
+    // Applies the best 2-opt or Or-opt move until no move improves the order
+    static void improve(double[][] c, int[] order) {
+        double[] forward = new double[order.length];
+        double[] backward = new double[order.length];
+        boolean improved;
+        do {
+            improved = twoOpt(c, order, forward, backward) || orOpt(c, order);
+        } while (improved);
+    }
+
+    // Reverses the stretch order[i..j]; prefix sums give the cost of a stretch in both directions in O(1)
+    private static boolean twoOpt(double[][] c, int[] p, double[] forward, double[] backward) {
+        int n = p.length;
+        for (int k = 1; k < n; k++) {
+            forward[k] = forward[k - 1] + c[p[k - 1]][p[k]];
+            backward[k] = backward[k - 1] + c[p[k]][p[k - 1]];
+        }
+        double bestDelta = -EPSILON;
+        int bestI = -1, bestJ = -1;
+        for (int i = 1; i < n - 2; i++) {
+            for (int j = i + 1; j < n - 1; j++) {
+                double before = c[p[i - 1]][p[i]] + (forward[j] - forward[i]) + c[p[j]][p[j + 1]];
+                double after = c[p[i - 1]][p[j]] + (backward[j] - backward[i]) + c[p[i]][p[j + 1]];
+                if (after - before < bestDelta) {
+                    bestDelta = after - before;
+                    bestI = i;
+                    bestJ = j;
+                }
+            }
+        }
+        if (bestI < 0) return false;
+        for (int i = bestI, j = bestJ; i < j; i++, j--) {
+            int t = p[i];
+            p[i] = p[j];
+            p[j] = t;
+        }
+        return true;
+    }
+
+    // Moves a run of 1..3 consecutive stops, unreversed, to another place in the order
+    private static boolean orOpt(double[][] c, int[] p) {
+        int n = p.length;
+        double bestDelta = -EPSILON;
+        int bestI = -1, bestLen = 0, bestK = -1;
+        for (int len = 1; len <= MAX_SEGMENT; len++) {
+            for (int i = 1; i + len < n; i++) {
+                int a = p[i - 1], first = p[i], last = p[i + len - 1], b = p[i + len];
+                double removed = c[a][first] + c[last][b] - c[a][b];
+                // Insert between p[k] and p[k + 1], both outside the run
+                for (int k = 0; k < n - 1; k++) {
+                    if (k >= i - 1 && k <= i + len - 1) continue;
+                    int x = p[k], y = p[k + 1];
+                    double delta = c[x][first] + c[last][y] - c[x][y] - removed;
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestI = i;
+                        bestLen = len;
+                        bestK = k;
+                    }
+                }
+            }
+        }
+        if (bestI < 0) return false;
+
+        int[] run = new int[bestLen];
+        System.arraycopy(p, bestI, run, 0, bestLen);
+        if (bestK < bestI) {
+            // Shift p[k+1 .. i-1] right by the run length, then drop the run in after p[k]
+            System.arraycopy(p, bestK + 1, p, bestK + 1 + bestLen, bestI - bestK - 1);
+            System.arraycopy(run, 0, p, bestK + 1, bestLen);
+        } else {
+            // Shift p[i+len .. k] left, then drop the run in before p[k + 1]
+            System.arraycopy(p, bestI + bestLen, p, bestI, bestK - bestI - bestLen + 1);
+            System.arraycopy(run, 0, p, bestK - bestLen + 1, bestLen);
+        }
+        return true;
+    }
+
+    private static double[][] sanitize(double[][] cost) {
+        double[][] c = new double[cost.length][];
+        for (int i = 0; i < cost.length; i++) {
+            c[i] = cost[i].clone();
+            for (int j = 0; j < c[i].length; j++) {
+                if (Double.isNaN(c[i][j]) || Double.isInfinite(c[i][j])) c[i][j] = UNROUTABLE;
+            }
+        }
+        return c;
+    }
+}
@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,13 +23,16 @@ public class TourService implements ITourService {
     private final TourRepository tourRepository;
     private final TourLogRepository tourLogRepository;
     private final EventManager eventManager;
+    private final IRouteThumbnailService routeThumbnailService;
 
     public TourService(TourRepository tourRepository,
                        TourLogRepository tourLogRepository,
-                       EventManager eventManager) {
+                       EventManager eventManager,
+                       IRouteThumbnailService routeThumbnailService) {
         this.tourRepository = tourRepository;
         this.tourLogRepository = tourLogRepository;
         this.eventManager = eventManager;
+        this.routeThumbnailService = routeThumbnailService;
         log.info("TourService initialized");
     }
 
@@ -58,8 +62,10 @@ public class TourService implements ITourService {
         });
 
         try {
+            recordThumbnail(tour);
             Tour created = tourRepository.save(tour);
             log.info("Successfully created tour (id={}): {}", created.getId(), created.getName());
+            routeThumbnailService.renderAsync(created);
 
             // Notify system that tours changed
             eventManager.publish(Events.TOURS_CHANGED, created);
@@ -71,6 +77,7 @@ public class TourService implements ITourService {
         }
     }
 
+    // Only persists; the caller routes the tour first (off the FX thread) when its route inputs changed
     @Override
     public Tour updateTour(Tour tour) {
         log.info("Updating tour (id={}): {}", tour.getId(), tour.getName());
@@ -84,8 +91,10 @@ public class TourService implements ITourService {
         validateTour(tour);
 
         try {
+            recordThumbnail(tour);
             Tour updated = tourRepository.save(tour);
             log.info("Successfully updated tour (id={}): {}", updated.getId(), updated.getName());
+            routeThumbnailService.renderAsync(updated);
 
             // Notify system that tours changed
             eventManager.publish(Events.TOURS_CHANGED, updated);
@@ -97,6 +106,36 @@ public class TourService implements ITourService {
         }
     }
 
+    // Stores distance/time computed in bulk; unlike updateTour this does not route stale tours one by one
+    @Override
+    public void saveRouteMetrics(List<Tour> tours) {
+        log.info("Saving distance/time of {} tours", tours.size());
+        if (tours.isEmpty()) return;
+
+        try {
+            tourRepository.saveAll(tours);
+            eventManager.publish(Events.TOURS_CHANGED, null);
+        } catch (Exception e) {
+            log.error("Failed to save distance/time of {} tours", tours.size(), e);
+            throw e;
+        }
+    }
+
+    // Keeps the route computed when a legacy tour is first shown, without reloading the tour list
+    @Override
+    public void saveRoute(Tour tour) {
+        log.info("Saving computed route of tour (id={}): {}", tour.getId(), tour.getName());
+
+        try {
+            recordThumbnail(tour);
+            Tour saved = tourRepository.save(tour);
+            routeThumbnailService.renderAsync(saved);
+        } catch (Exception e) {
+            log.error("Failed to save route of tour (id={}): {}", tour.getId(), tour.getName(), e);
+            throw e;
+        }
+    }
+
     @Override
     public void deleteTour(Tour tour) {
         log.info("Deleting tour (id={}): {}", tour.getId(), tour.getName());
@@ -126,6 +165,11 @@ public class TourService implements ITourService {
         return tourRepository.findByName(name);
     }
 
+    // The path only depends on the route, so it is stored right away and the image is drawn after the save
+    private void recordThumbnail(Tour tour) {
+        tour.setRouteImagePath(routeThumbnailService.pathFor(tour).map(Path::toString).orElse(null));
+    }
+
     // Ensures required fields are valid
     private void validateTour(Tour tour) {
         log.trace("Validating tour: {}", tour);
@@ -0,0 +1,94 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Immutable grid index over the start points of tours, for area queries over large catalogues.
+// Points are sorted by grid cell (latitude row first), so the cells of one row of a bounding box
+// are a contiguous run found with two binary searches; only tours in those cells are tested.
+public final class TourStartIndex {
+
+    // ~5 km cells: an isochrone of 15-60 minutes covers tens to hundreds of them
+    static final double CELL_SIZE = 0.05;
+
+    private final Tour[] tours;
+    private final double[] lon, lat;
+    private final long[] keys;
+
+    private TourStartIndex(Tour[] tours, double[] lon, double[] lat, long[] keys) {
+        this.tours = tours;
+        this.lon = lon;
+        this.lat = lat;
+        this.keys = keys;
+    }
+
+    // Tours that were never geocoded have no start point and are left out
+    public static TourStartIndex of(List<Tour> tours) {
+        List<Tour> located = new ArrayList<>(tours.size());
+        for (Tour tour : tours) {
+            if (tour.getFromLatitude() != null && tour.getFromLongitude() != null) located.add(tour);
+        }
+
+        int n = located.size();
+        long[] unsortedKeys = new long[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            Tour tour = located.get(i);
+            unsortedKeys[i] = key(cell(tour.getFromLatitude()), cell(tour.getFromLongitude()));
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(unsortedKeys[a], unsortedKeys[b]));
+
+        Tour[] sorted = new Tour[n];
+        double[] lon = new double[n], lat = new double[n];
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            Tour tour = located.get(order[i]);
+            sorted[i] = tour;
+            lon[i] = tour.getFromLongitude();
+            lat[i] = tour.getFromLatitude();
+            keys[i] = unsortedKeys[order[i]];
+        }
+        return new TourStartIndex(sorted, lon, lat, keys);
+    }
+
+    public int size() {
+        return tours.length;
+    }
+
+    // Tours whose start point lies inside the isochrone
+    public List<Tour> within(Isochrone area) {
+        double[] bbox = area.getBbox();
+        List<Tour> result = new ArrayList<>();
+        int lonFrom = cell(bbox[0]), lonTo = cell(bbox[2]);
+        for (int row = cell(bbox[1]), lastRow = cell(bbox[3]); row <= lastRow; row++) {
+            int end = lowerBound(key(row, lonTo) + 1);
+            for (int i = lowerBound(key(row, lonFrom)); i < end; i++) {
+                if (area.contains(lon[i], lat[i])) result.add(tours[i]);
+            }
+        }
+        return result;
+    }
+
+    private int lowerBound(long key) {
+        int low = 0, high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Row in the high half keeps keys ordered by row, then column; columns are offset to stay non-negative
+    static long key(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (((long) lonCell - Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE);
+    }
+}
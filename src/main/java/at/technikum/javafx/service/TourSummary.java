@@ -1,18 +1,22 @@
 package at.technikum.javafx.service;
 
+import java.awt.Image;
+
 public class TourSummary {
     private String tourName;
     private double avgDistance;
     private String avgTime;
     private double avgRating;
+    private Image routeImage;
 
     public TourSummary() { }
 
-    public TourSummary(String tourName, double avgDistance, String avgTime, double avgRating) {
+    public TourSummary(String tourName, double avgDistance, String avgTime, double avgRating, Image routeImage) {
         this.tourName = tourName;
         this.avgDistance = avgDistance;
         this.avgTime = avgTime;
         this.avgRating = avgRating;
+        this.routeImage = routeImage;
     }
 
     public String getTourName() {
@@ -30,4 +34,8 @@ public class TourSummary {
     public double getAvgRating() {
         return avgRating;
     }
+
+    public Image getRouteImage() {
+        return routeImage;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,338 @@
+package at.technikum.javafx.view;
+
+import at.technikum.javafx.service.ITileServer;
+import at.technikum.javafx.service.MapService;
+import at.technikum.javafx.service.MapViewport;
+import at.technikum.javafx.service.RouteGeometry;
+import at.technikum.javafx.service.RouteResult;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import javafx.scene.transform.Scale;
+import javafx.util.Duration;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Slippy map drawn on a Canvas: tiles come in-process from the tile server and its disk cache, routes are
+// drawn from their stored geometry. No browser engine, so it starts faster and needs far less memory than
+// the Leaflet page in a WebView. Shows single routes and profile comparisons; the overview stays in Leaflet.
+public class CanvasMapView extends Region {
+
+    // Decoded tiles kept in memory, 256 KB each
+    private static final int TILE_MEMORY = 256;
+    // How many zoom levels up to look for a cached tile to stretch over one that is still loading
+    private static final int FALLBACK_LEVELS = 4;
+    private static final double FIT_PADDING = 20;
+    // Scroll distance per zoom level; a mouse wheel notch is 40
+    private static final double SCROLL_PER_ZOOM = 120;
+    // A gesture is redrawn at the new zoom once it has paused this long
+    private static final Duration ZOOM_SETTLE = Duration.millis(120);
+    private static final Color BACKGROUND = Color.web("#f2efe9");
+    private static final Color START_MARKER = Color.web("#2e7d32");
+    private static final Color END_MARKER = Color.web("#c62828");
+    private static final Font ATTRIBUTION_FONT = Font.font(10);
+
+    // PNG decoding stays off the FX thread
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "map-tile-decoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ITileServer tileServer;
+    private final Canvas canvas = new Canvas();
+    private final MapViewport viewport = new MapViewport(0, 0);
+
+    // Only touched on the FX thread
+    private final Map<String, Image> tiles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > TILE_MEMORY;
+        }
+    };
+    private final Set<String> loading = new HashSet<>();
+    // Not asked for again until the map is moved
+    private final Set<String> failed = new HashSet<>();
+
+    private Map<String, RouteResult> routes = Map.of();
+    // Box to fit once the view has a size
+    private double[] pendingFit;
+    private boolean redrawQueued;
+
+    // Pan and zoom first only move and scale the canvas node, which is composited on the GPU without
+    // redrawing it; the viewport follows and the canvas is redrawn when the gesture ends
+    private double dragX;
+    private double dragY;
+    private double pendingZoom;
+    private final Scale zoomTransform = new Scale(1, 1);
+    private final PauseTransition zoomSettle = new PauseTransition(ZOOM_SETTLE);
+
+    private final long createdAt = System.nanoTime();
+    private long firstFrameAt;
+    private long frames;
+
+    public CanvasMapView(ITileServer tileServer) {
+        this.tileServer = tileServer;
+        getChildren().add(canvas);
+        canvas.getTransforms().add(zoomTransform);
+        setBackground(new Background(new BackgroundFill(BACKGROUND, null, null)));
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(widthProperty());
+        clip.heightProperty().bind(heightProperty());
+        setClip(clip);
+
+        zoomSettle.setOnFinished(e -> commitZoom());
+        setOnMousePressed(e -> {
+            commitZoom();
+            dragX = e.getX();
+            dragY = e.getY();
+        });
+        setOnMouseDragged(e -> {
+            canvas.setTranslateX(e.getX() - dragX);
+            canvas.setTranslateY(e.getY() - dragY);
+            // Long drags are committed on the way, so the uncovered edge fills with tiles
+            if (Math.abs(canvas.getTranslateX()) > getWidth() / 4 || Math.abs(canvas.getTranslateY()) > getHeight() / 4) {
+                commitPan();
+                dragX = e.getX();
+                dragY = e.getY();
+            }
+        });
+        setOnMouseReleased(e -> commitPan());
+        setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) zoomBy(1, e.getX(), e.getY());
+        });
+        setOnScroll(e -> {
+            if (e.getDeltaY() != 0) zoomBy(e.getDeltaY() / SCROLL_PER_ZOOM, e.getX(), e.getY());
+            e.consume();
+        });
+        setOnZoom(e -> {
+            zoomBy(Math.log(e.getZoomFactor()) / Math.log(2), e.getX(), e.getY());
+            e.consume();
+        });
+    }
+
+    // Routes by profile name, in the profile colours of the Leaflet map, fitted into the view
+    public void showRoutes(Map<String, RouteResult> routes, double[] bbox) {
+        this.routes = new LinkedHashMap<>(routes);
+        resetGestures();
+        if (getWidth() > 0 && getHeight() > 0) {
+            viewport.fit(bbox, FIT_PADDING);
+        } else {
+            pendingFit = bbox;
+        }
+        requestRedraw();
+    }
+
+    public void clearRoutes() {
+        routes = Map.of();
+        requestRedraw();
+    }
+
+    // Frames drawn so far and when the first one was, for comparing the renderers
+    public long getFrames() { return frames; }
+    public double getFirstFrameMillis() { return firstFrameAt == 0 ? -1 : (firstFrameAt - createdAt) / 1e6; }
+    public int getCachedTiles() { return tiles.size(); }
+    public boolean isLoading() { return !loading.isEmpty(); }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth(), height = getHeight();
+        if (width == canvas.getWidth() && height == canvas.getHeight()) return;
+        canvas.setWidth(width);
+        canvas.setHeight(height);
+        viewport.setSize(width, height);
+        if (pendingFit != null && width > 0 && height > 0) {
+            viewport.fit(pendingFit, FIT_PADDING);
+            pendingFit = null;
+        }
+        redraw();
+    }
+
+    // Tiles arriving in a burst are drawn together on the next pulse
+    private void requestRedraw() {
+        if (redrawQueued) return;
+        redrawQueued = true;
+        Platform.runLater(() -> {
+            redrawQueued = false;
+            redraw();
+        });
+    }
+
+    private void redraw() {
+        double width = canvas.getWidth(), height = canvas.getHeight();
+        if (width <= 0 || height <= 0) return;
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        // Clearing the whole canvas also drops the commands still buffered from the last frame
+        gc.clearRect(0, 0, width, height);
+        for (MapViewport.TileView tile : viewport.visibleTiles()) {
+            drawTile(gc, tile);
+        }
+        drawRoutes(gc);
+
+        gc.setFill(Color.rgb(0, 0, 0, 0.6));
+        gc.setFont(ATTRIBUTION_FONT);
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setTextBaseline(VPos.BOTTOM);
+        gc.fillText("© OpenStreetMap contributors", width - 4, height - 2);
+
+        frames++;
+        if (firstFrameAt == 0) firstFrameAt = System.nanoTime();
+    }
+
+    private void drawTile(GraphicsContext gc, MapViewport.TileView tile) {
+        Image image = tiles.get(key(tile.getZ(), tile.getX(), tile.getY()));
+        if (image != null) {
+            drawSnapped(gc, image, 0, 0, image.getWidth(), tile);
+            return;
+        }
+        load(tile.getZ(), tile.getX(), tile.getY());
+        // Until it arrives, the part of a coarser cached tile that covers it is stretched over the gap
+        for (int up = 1; up <= FALLBACK_LEVELS && up <= tile.getZ(); up++) {
+            Image parent = tiles.get(key(tile.getZ() - up, tile.getX() >> up, tile.getY() >> up));
+            if (parent == null) continue;
+            int mask = (1 << up) - 1;
+            double part = parent.getWidth() / (1 << up);
+            drawSnapped(gc, parent, (tile.getX() & mask) * part, (tile.getY() & mask) * part, part, tile);
+            return;
+        }
+    }
+
+    // Tile edges on whole pixels, so neighbouring tiles meet without hairline seams
+    private static void drawSnapped(GraphicsContext gc, Image image, double sx, double sy, double sourceSize,
+                                    MapViewport.TileView tile) {
+        double left = Math.floor(tile.getScreenX()), top = Math.floor(tile.getScreenY());
+        double right = Math.floor(tile.getScreenX() + tile.getSize()), bottom = Math.floor(tile.getScreenY() + tile.getSize());
+        gc.drawImage(image, sx, sy, sourceSize, sourceSize, left, top, right - left, bottom - top);
+    }
+
+    // Same level of detail and line style Leaflet would use at this zoom; start and end get the markers of
+    // the route images, drawn last so no line covers them
+    private void drawRoutes(GraphicsContext gc) {
+        int zoom = viewport.getTileZoom();
+        gc.setLineWidth(4);
+        gc.setLineCap(StrokeLineCap.ROUND);
+        gc.setLineJoin(StrokeLineJoin.ROUND);
+        double[] ends = new double[routes.size() * 4];
+        int drawn = 0;
+        for (Map.Entry<String, RouteResult> route : routes.entrySet()) {
+            RouteGeometry geometry = route.getValue().getLevels().forZoom(zoom);
+            if (geometry.isEmpty()) continue;
+            gc.beginPath();
+            RouteGeometry.Cursor c = geometry.cursor();
+            double x = 0, y = 0;
+            while (c.next()) {
+                x = viewport.screenX(c.lon());
+                y = viewport.screenY(c.lat());
+                if (c.index() == 0) {
+                    gc.moveTo(x, y);
+                    ends[drawn * 4] = x;
+                    ends[drawn * 4 + 1] = y;
+                } else {
+                    gc.lineTo(x, y);
+                }
+            }
+            ends[drawn * 4 + 2] = x;
+            ends[drawn * 4 + 3] = y;
+            drawn++;
+            gc.setStroke(Color.web(MapService.colorFor(route.getKey()), 0.8));
+            gc.stroke();
+        }
+        gc.setLineWidth(2);
+        gc.setStroke(Color.WHITE);
+        for (int i = 0; i < drawn; i++) {
+            marker(gc, ends[i * 4], ends[i * 4 + 1], START_MARKER);
+            marker(gc, ends[i * 4 + 2], ends[i * 4 + 3], END_MARKER);
+        }
+    }
+
+    private static void marker(GraphicsContext gc, double x, double y, Color color) {
+        gc.setFill(color);
+        gc.fillOval(x - 6, y - 6, 12, 12);
+        gc.strokeOval(x - 6, y - 6, 12, 12);
+    }
+
+    private void load(int z, int x, int y) {
+        String key = key(z, x, y);
+        if (failed.contains(key) || !loading.add(key)) return;
+        tileServer.tile(z, x, y)
+                .thenApplyAsync(tile -> new Image(new ByteArrayInputStream(tile.getData())), DECODER)
+                .whenCompleteAsync((image, ex) -> {
+                    loading.remove(key);
+                    if (ex != null || image.isError()) {
+                        failed.add(key);
+                        return;
+                    }
+                    tiles.put(key, image);
+                    requestRedraw();
+                }, Platform::runLater);
+    }
+
+    private void zoomBy(double delta, double x, double y) {
+        commitPan();
+        double current = viewport.getZoom();
+        double target = Math.max(MapViewport.MIN_ZOOM, Math.min(MapViewport.MAX_ZOOM, current + pendingZoom + delta));
+        // The first event of a gesture sets the point that stays under the mouse
+        if (pendingZoom == 0) {
+            zoomTransform.setPivotX(x);
+            zoomTransform.setPivotY(y);
+        }
+        pendingZoom = target - current;
+        double scale = Math.pow(2, pendingZoom);
+        zoomTransform.setX(scale);
+        zoomTransform.setY(scale);
+        zoomSettle.playFromStart();
+    }
+
+    private void commitZoom() {
+        zoomSettle.stop();
+        if (pendingZoom == 0) return;
+        viewport.zoomAt(viewport.getZoom() + pendingZoom, zoomTransform.getPivotX(), zoomTransform.getPivotY());
+        pendingZoom = 0;
+        zoomTransform.setX(1);
+        zoomTransform.setY(1);
+        failed.clear();
+        redraw();
+    }
+
+    private void commitPan() {
+        double dx = canvas.getTranslateX(), dy = canvas.getTranslateY();
+        if (dx == 0 && dy == 0) return;
+        viewport.panBy(dx, dy);
+        canvas.setTranslateX(0);
+        canvas.setTranslateY(0);
+        failed.clear();
+        redraw();
+    }
+
+    // A new route replaces whatever gesture was still in flight
+    private void resetGestures() {
+        zoomSettle.stop();
+        pendingZoom = 0;
+        zoomTransform.setX(1);
+        zoomTransform.setY(1);
+        canvas.setTranslateX(0);
+        canvas.setTranslateY(0);
+    }
+
+    private static String key(int z, int x, int y) {
+        return z + "/" + x + "/" + y;
+    }
+}
@@ -2,11 +2,14 @@ package at.technikum.javafx.view;
 
 import at.technikum.javafx.entity.Tour;
 import at.technikum.javafx.service.IReportService;
+import at.technikum.javafx.service.RouteEnrichmentResult;
 import at.technikum.javafx.viewmodel.MenuViewModel;
 import at.technikum.javafx.viewmodel.TourViewModel;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 
 import java.io.File;
@@ -20,21 +23,20 @@ public class MenuView implements Initializable {
     private final MenuViewModel menuViewModel;
     private final TourViewModel tourViewModel;
     private final IReportService reportService;
-    private final TourRouteView tourRouteView;
 
     @FXML private MenuItem importMenuItem;
+    @FXML private MenuItem importRoutesMenuItem;
     @FXML private MenuItem exportMenuItem;
+    @FXML private MenuItem refreshDistancesMenuItem;
     @FXML private MenuItem singleReportItem;
     @FXML private MenuItem summaryReportItem;
 
     public MenuView(MenuViewModel menuViewModel,
                     TourViewModel tourViewModel,
-                    IReportService reportService,
-                    TourRouteView tourRouteView) {
+                    IReportService reportService) {
         this.menuViewModel = menuViewModel;
         this.tourViewModel = tourViewModel;
         this.reportService = reportService;
-        this.tourRouteView = tourRouteView;
     }
 
     @Override
@@ -55,6 +57,18 @@ public class MenuView implements Initializable {
             }
         });
 
+        importRoutesMenuItem.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Import Tours JSON and compute routes");
+            chooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("JSON Files", "*.json")
+            );
+            File f = chooser.showOpenDialog(null);
+            if (f != null) {
+                importWithRoutes(f);
+            }
+        });
+
         exportMenuItem.setOnAction(e -> {
             FileChooser chooser = new FileChooser();
             chooser.setTitle("Export Tours JSON");
@@ -75,6 +89,8 @@ public class MenuView implements Initializable {
             }
         });
 
+        refreshDistancesMenuItem.setOnAction(e -> refreshDistances());
+
         singleReportItem.setOnAction(e -> {
             Tour selected = tourViewModel.selectedTourProperty().get();
             if (selected == null) {
@@ -91,11 +107,7 @@ public class MenuView implements Initializable {
             if (f == null) return;
 
             try {
-                reportService.generateTourReport(
-                        selected,
-                        tourRouteView.getMapView(),
-                        f
-                );
+                reportService.generateTourReport(selected, f);
             } catch (Exception ex) {
                 showException("Report error", ex);
             }
@@ -121,6 +133,94 @@ public class MenuView implements Initializable {
         });
     }
 
+    // Routing thousands of tours takes minutes, so it runs as a background task with a progress dialog
+    private void importWithRoutes(File file) {
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                updateMessage("Computing routes...");
+                menuViewModel.importAllTours(file, true, (done, total, failed) -> {
+                    updateProgress(done, total);
+                    updateMessage(String.format("Routed %d of %d tours (%d failed)", done, total, failed));
+                });
+                return null;
+            }
+        };
+
+        ProgressBar bar = new ProgressBar();
+        bar.setPrefWidth(300);
+        bar.progressProperty().bind(task.progressProperty());
+        Label status = new Label();
+        status.textProperty().bind(task.messageProperty());
+
+        Alert progress = new Alert(Alert.AlertType.INFORMATION);
+        progress.setTitle("Importing tours");
+        progress.setHeaderText(file.getName());
+        progress.getDialogPane().setContent(new VBox(8, bar, status));
+        progress.getButtonTypes().setAll(ButtonType.CANCEL);
+        progress.setOnCloseRequest(ev -> {
+            if (task.isRunning()) task.cancel(true);
+        });
+
+        task.setOnSucceeded(ev -> progress.close());
+        task.setOnFailed(ev -> {
+            progress.close();
+            showException("Import error", task.getException());
+        });
+
+        Thread worker = new Thread(task, "tour-import");
+        worker.setDaemon(true);
+        worker.start();
+        progress.show();
+    }
+
+    // Same progress dialog as the import; matrix calls finish in seconds, but geocoding new addresses may not
+    private void refreshDistances() {
+        Task<RouteEnrichmentResult> task = new Task<>() {
+            @Override
+            protected RouteEnrichmentResult call() throws Exception {
+                updateMessage("Computing distances...");
+                return menuViewModel.refreshDistances((done, total, failed) -> {
+                    updateProgress(done, total);
+                    updateMessage(String.format("Updated %d of %d tours (%d failed)", done - failed, total, failed));
+                });
+            }
+        };
+
+        ProgressBar bar = new ProgressBar();
+        bar.setPrefWidth(300);
+        bar.progressProperty().bind(task.progressProperty());
+        Label status = new Label();
+        status.textProperty().bind(task.messageProperty());
+
+        Alert progress = new Alert(Alert.AlertType.INFORMATION);
+        progress.setTitle("Refreshing distances");
+        progress.setHeaderText("Tours with outdated routes");
+        progress.getDialogPane().setContent(new VBox(8, bar, status));
+        progress.getButtonTypes().setAll(ButtonType.CANCEL);
+        progress.setOnCloseRequest(ev -> {
+            if (task.isRunning()) task.cancel(true);
+        });
+
+        task.setOnSucceeded(ev -> {
+            progress.close();
+            RouteEnrichmentResult result = task.getValue();
+            if (!result.getFailed().isEmpty()) {
+                showAlert("Some tours were not updated", result.getFailed().size()
+                        + " tours could not be geocoded or routed and keep their previous distance/time.");
+            }
+        });
+        task.setOnFailed(ev -> {
+            progress.close();
+            showException("Refresh error", task.getException());
+        });
+
+        Thread worker = new Thread(task, "tour-distance-refresh");
+        worker.setDaemon(true);
+        worker.start();
+        progress.show();
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR, message, ButtonType.OK);
         alert.setTitle(title);
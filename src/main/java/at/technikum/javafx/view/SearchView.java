@@ -1,9 +1,12 @@
 package at.technikum.javafx.view;
 
 import at.technikum.javafx.viewmodel.SearchViewModel;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TitledPane;
@@ -12,6 +15,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletionException;
 
 public class SearchView implements Initializable {
 
@@ -20,6 +24,11 @@ public class SearchView implements Initializable {
     @FXML
     private TextField searchInput;
 
+    @FXML private TextField reachFromInput;
+    @FXML private ComboBox<Integer> reachMinutesBox;
+    @FXML private ComboBox<String> reachProfileBox;
+    @FXML private Button reachButton;
+
     public SearchView(SearchViewModel viewModel) {
         this.viewModel = viewModel;
     }
@@ -34,6 +43,31 @@ public class SearchView implements Initializable {
         }
     }
 
+    @FXML
+    private void onSearchReachable() {
+        viewModel.reachFromProperty().set(reachFromInput.getText());
+        viewModel.reachMinutesProperty().set(reachMinutesBox.getValue());
+        viewModel.reachProfileProperty().set(reachProfileBox.getValue());
+
+        // Geocoding and the isochrone call run off the FX thread; the list is filtered back on it
+        reachButton.setDisable(true);
+        viewModel.reachableAreaAsync().whenCompleteAsync((area, ex) -> {
+            reachButton.setDisable(false);
+            if (ex != null) {
+                showException("Reachable tours search failed", ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+            } else {
+                viewModel.showReachableArea(area);
+            }
+        }, Platform::runLater);
+    }
+
+    @FXML
+    private void onClearReachable() {
+        reachFromInput.clear();
+        viewModel.clearReachableArea();
+    }
+
     private void showException(String title, Throwable ex) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -20,6 +20,7 @@ public class TourDialogView implements Initializable {
     @FXML private TextField nameField;
     @FXML private TextArea descriptionField;
     @FXML private TextField fromField;
+    @FXML private TextArea stopsField;
     @FXML private TextField toField;
     @FXML private ComboBox<String> transportCombo;
 
@@ -32,6 +33,7 @@ public class TourDialogView implements Initializable {
             nameField.textProperty().bindBidirectional(vm.nameProperty());
             descriptionField.textProperty().bindBidirectional(vm.descriptionProperty());
             fromField.textProperty().bindBidirectional(vm.fromLocationProperty());
+            stopsField.textProperty().bindBidirectional(vm.stopsProperty());
             toField.textProperty().bindBidirectional(vm.toLocationProperty());
             transportCombo.valueProperty().bindBidirectional(vm.transportTypeProperty());
         } catch (Exception ex) {
@@ -60,8 +62,9 @@ public class TourDialogView implements Initializable {
         try {
             return vm.updateTour(existing);
         } catch (Exception ex) {
+            // Like a cancelled dialog: nothing is saved
             showException("Error updating tour", ex);
-            return existing;
+            return null;
         }
     }
 
@@ -27,6 +27,7 @@ public class TourGeneralView implements Initializable {
     @FXML private Label popValue, cfValue;
 
     private final TourViewModel tourVm;
+    private ResourceBundle resources;
 
     public TourGeneralView(TourViewModel tourVm) {
         this.tourVm = tourVm;
@@ -34,6 +35,7 @@ public class TourGeneralView implements Initializable {
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        this.resources = resources;
         ChangeListener<Tour> listener = (obs, oldT, newT) -> {
             try {
                 if (newT == null) {
@@ -76,13 +78,10 @@ public class TourGeneralView implements Initializable {
         }
     }
 
+    // Same display names as the route comparison, from the i18n bundle
     private String readableTransport(String code) {
-        return switch (code) {
-            case "driving-car"     -> "Car";
-            case "foot-walking"    -> "Walking";
-            case "cycling-regular" -> "Bicycle";
-            default                -> code;
-        };
+        String key = "transport." + code;
+        return resources != null && resources.containsKey(key) ? resources.getString(key) : code;
     }
 
     private void showException(String title, Throwable ex) {
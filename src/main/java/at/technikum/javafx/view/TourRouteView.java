@@ -1,14 +1,16 @@
 package at.technikum.javafx.view;
 
 import at.technikum.javafx.entity.Tour;
-import at.technikum.javafx.service.GeocodeResult;
+import at.technikum.javafx.service.IRouteService;
+import at.technikum.javafx.service.ITileServer;
 import at.technikum.javafx.service.MapService;
-import at.technikum.javafx.service.OrsService;
+import at.technikum.javafx.service.RouteComparison;
 import at.technikum.javafx.service.RouteResult;
+import at.technikum.javafx.viewmodel.RouteDrawRequests;
 import at.technikum.javafx.viewmodel.TourViewModel;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
-import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
 import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -16,103 +18,337 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TitledPane;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
+import javafx.util.Duration;
+import netscape.javascript.JSObject;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 public class TourRouteView implements Initializable {
 
-    @FXML private WebView mapView;
+    // Leaflet in a WebView, or the lighter Canvas map without the overview of all tours
+    public enum MapRenderer { WEBVIEW, CANVAS }
+
+    @FXML private StackPane mapPane;
     @FXML private Label placeholderLabel;
+    @FXML private ToggleButton compareToggle;
+    @FXML private ToggleButton overviewToggle;
+    @FXML private HBox comparisonBox;
+
+    // Arrowing through the list only draws the tour the selection settles on
+    private static final Duration DRAW_DEBOUNCE = Duration.millis(150);
+    // Tours per addOverviewTours() call, so a large first overview reaches the page in several small steps
+    private static final int OVERVIEW_CHUNK = 500;
 
+    private WebView mapView;
     private WebEngine mapEngine;
-    private final OrsService orsService = new OrsService();
+    // Set instead of the WebView when the Canvas renderer is used
+    private CanvasMapView canvasMap;
+    // window of leaflet.html once it has loaded; the page stays loaded and routes are pushed into it
+    private JSObject mapWindow;
+    // Updates asked for before the page was ready, run in order once it is; overview chunks build on each other
+    private final List<Consumer<JSObject>> queuedUpdates = new ArrayList<>();
+    private final RouteDrawRequests draws = new RouteDrawRequests();
+    private final PauseTransition drawDebounce = new PauseTransition(DRAW_DEBOUNCE);
     private final MapService mapService = new MapService();
-    private final Path leafletDir = Paths.get(
-            System.getProperty("user.home"), ".tourplanner", "leaflet"
-    );
+    private ResourceBundle resources;
+
+    // Tour id -> route key of the overview data the page holds; only new or changed routes are sent again
+    private final Map<Long, String> overviewSent = new ConcurrentHashMap<>();
+    private final PauseTransition overviewDebounce = new PauseTransition(DRAW_DEBOUNCE);
+    // Read by the thread preparing the overview, so a newer filter stops an outdated preparation early
+    private final AtomicLong overviewGeneration = new AtomicLong();
 
     private final TourViewModel tourViewModel;
+    private final IRouteService routeService;
+    private final ITileServer tileServer;
+    private final MapRenderer renderer;
 
-    public TourRouteView(TourViewModel tourViewModel) {
+    public TourRouteView(TourViewModel tourViewModel, IRouteService routeService, ITileServer tileServer,
+                         MapRenderer renderer) {
         this.tourViewModel = tourViewModel;
+        this.routeService = routeService;
+        this.tileServer = tileServer;
+        this.renderer = renderer;
 
-        tourViewModel.selectedTourProperty().addListener((obs, oldT, newT) -> {
-            Platform.runLater(() -> {
-                if (newT != null) {
-                    placeholderLabel.setVisible(false);
-                    drawRoute(newT);
-                } else {
-                    placeholderLabel.setVisible(true);
-                    if (mapEngine != null) {
-                        mapEngine.loadContent("");
-                    }
-                }
-            });
-        });
+        drawDebounce.setOnFinished(e -> drawRoute(draws.getRequested(), draws.getGeneration()));
+        overviewDebounce.setOnFinished(e -> refreshOverview(false));
+        tourViewModel.selectedTourProperty().addListener((obs, oldT, newT) ->
+                Platform.runLater(() -> requestDraw(newT)));
     }
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        mapEngine = mapView.getEngine();
+        this.resources = resources;
         placeholderLabel.setVisible(true);
+        compareToggle.selectedProperty().addListener((obs, oldV, newV) -> requestDraw(draws.getRequested()));
+        if (renderer == MapRenderer.CANVAS) {
+            // No browser engine is started at all; the overview relies on Leaflet and is not offered
+            canvasMap = new CanvasMapView(tileServer);
+            mapPane.getChildren().add(0, canvasMap);
+            overviewToggle.setVisible(false);
+            overviewToggle.setManaged(false);
+            return;
+        }
+
+        mapView = new WebView();
+        mapPane.getChildren().add(0, mapView);
+        mapEngine = mapView.getEngine();
+        compareToggle.disableProperty().bind(overviewToggle.selectedProperty());
+        overviewToggle.selectedProperty().addListener((obs, oldV, newV) -> {
+            requestDraw(draws.getRequested());
+            if (newV) {
+                refreshOverview(true);
+            } else {
+                overviewGeneration.incrementAndGet();
+                overviewDebounce.stop();
+                updateMap(window -> window.eval("if (window.clearOverview) clearOverview();"));
+            }
+        });
+        // A new search filter only adds and removes lines, the view stays where it is
+        tourViewModel.getTours().addListener((ListChangeListener<Tour>) c -> {
+            if (overviewToggle.isSelected()) overviewDebounce.playFromStart();
+        });
+        mapEngine.getLoadWorker().stateProperty().addListener((obs, oldState, newState) -> {
+            if (newState == Worker.State.SUCCEEDED) {
+                mapWindow = (JSObject) mapEngine.executeScript("window");
+                List<Consumer<JSObject>> updates = List.copyOf(queuedUpdates);
+                queuedUpdates.clear();
+                for (Consumer<JSObject> update : updates) {
+                    try {
+                        update.accept(mapWindow);
+                    } catch (Exception ex) {
+                        showException("Route drawing error", ex);
+                    }
+                }
+            }
+        });
+        // Page, Leaflet and tiles all come from the local tile server and its disk cache
+        mapEngine.load(tileServer.getMapUrl());
+    }
+
+    // Runs on the FX thread: invalidates whatever the previous selection started, then debounces the new draw
+    private void requestDraw(Tour tour) {
+        RouteDrawRequests.Action action = draws.request(tour, overviewToggle.isSelected());
+        comparisonBox.getChildren().clear();
+        placeholderLabel.setVisible(action == RouteDrawRequests.Action.CLEAR);
+        switch (action) {
+            case DRAW_LATER -> drawDebounce.playFromStart();
+            // The overview stays while the selection changes; the chosen tour is drawn once it is left
+            case KEEP_OVERVIEW -> drawDebounce.stop();
+            case CLEAR -> {
+                drawDebounce.stop();
+                clearMap();
+            }
+        }
+    }
+
+    private void drawRoute(Tour tour, long generation) {
+        if (tour == null || !draws.isCurrent(generation)) return;
+        if (compareToggle.isSelected()) {
+            drawComparison(tour, generation);
+            return;
+        }
+
+        // Stored routes render without any ORS call; only legacy tours are routed in the background
+        Optional<RouteResult> stored = routeService.storedRoute(tour);
+        if (stored.isPresent()) {
+            showRoute(stored.get(), generation);
+            return;
+        }
+
+        // A copy is routed; the listed tour only changes here on the FX thread
+        CompletableFuture<Tour> call = routeService.routedCopyAsync(tour);
+        draws.started(call);
+        call.whenCompleteAsync((routed, ex) -> {
+            if (call.isCancelled()) return;
+            if (ex == null) {
+                tour.copyRouteFrom(routed);
+                // Stored with the tour, so it is only routed the first time it is shown
+                if (tour.getId() != null) tourViewModel.saveRoute(tour);
+            }
+            if (!draws.finished(call, generation)) return;
+            if (ex != null) {
+                clearMap();
+                showException("Route drawing error", ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+            } else {
+                routeService.storedRoute(tour).ifPresent(route -> showRoute(route, generation));
+            }
+        }, Platform::runLater);
+    }
+
+    // Only the filtered list is read on the FX thread. Decoding and JSON run in the background, and tours
+    // the page already holds are not sent again, so a filter change just passes the shown ids.
+    private void refreshOverview(boolean fit) {
+        long generation = overviewGeneration.incrementAndGet();
+        List<Tour> tours = List.copyOf(tourViewModel.getTours());
+        CompletableFuture.supplyAsync(() -> prepareOverview(tours, generation))
+                .whenCompleteAsync((ids, ex) -> {
+                    if (generation != overviewGeneration.get()) return;
+                    if (ex != null) {
+                        showException("Overview drawing error", ex instanceof CompletionException && ex.getCause() != null
+                                ? ex.getCause() : ex);
+                    } else {
+                        updateMap(window -> window.call("showOverview", ids, fit));
+                    }
+                }, Platform::runLater);
+    }
+
+    // Streams the missing tour data to the page while it is built and returns the ids to show as JSON;
+    // chunks are prepared in parallel, simplifying thousands of routes is the slow part
+    private String prepareOverview(List<Tour> tours, long generation) {
+        StringBuilder ids = new StringBuilder("[");
+        List<Tour> missing = new ArrayList<>();
+        for (Tour tour : tours) {
+            if (tour.getId() == null || routeService.needsRoute(tour)) continue;
+            if (!tour.getRouteKey().equals(overviewSent.get(tour.getId()))) missing.add(tour);
+            if (ids.length() > 1) ids.append(',');
+            ids.append(tour.getId());
+        }
+        IntStream.range(0, (missing.size() + OVERVIEW_CHUNK - 1) / OVERVIEW_CHUNK).parallel().forEach(i ->
+                sendOverviewChunk(missing.subList(i * OVERVIEW_CHUNK,
+                        Math.min(missing.size(), (i + 1) * OVERVIEW_CHUNK)), generation));
+        return ids.append(']').toString();
+    }
+
+    private void sendOverviewChunk(List<Tour> tours, long generation) {
+        if (generation != overviewGeneration.get()) return;
+        Map<Tour, RouteResult> routes = new LinkedHashMap<>();
+        Map<Long, String> keys = new HashMap<>();
+        for (Tour tour : tours) {
+            routeService.storedRoute(tour).ifPresent(route -> {
+                routes.put(tour, route);
+                keys.put(tour.getId(), tour.getRouteKey());
+            });
+        }
+        String json;
         try {
-            Files.createDirectories(leafletDir);
-        } catch (IOException ex) {
-            showException("Initialization error", ex);
+            json = mapService.overviewJson(routes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        // Marked as sent only once the page has it; while it is still loading the chunk waits in queuedUpdates
+        Platform.runLater(() -> {
+            if (generation != overviewGeneration.get()) return;
+            updateMap(window -> {
+                window.call("addOverviewTours", json);
+                overviewSent.putAll(keys);
+            });
+        });
     }
 
-    public WebView getMapView() {
-        return mapView;
+    // All profiles are requested at once, so this takes about as long as drawing a single uncached route
+    private void drawComparison(Tour tour, long generation) {
+        CompletableFuture<RouteComparison> call = routeService.compareProfilesAsync(tour, IRouteService.PROFILES);
+        draws.started(call);
+        call.whenCompleteAsync((comparison, ex) -> {
+            if (!draws.finished(call, generation)) return;
+            if (ex != null) {
+                clearMap();
+                showException("Route comparison error", ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+            } else {
+                showComparison(comparison, generation);
+            }
+        }, Platform::runLater);
     }
 
-    private void drawRoute(Tour tour) {
+    private void showComparison(RouteComparison comparison, long generation) {
+        if (!draws.isCurrent(generation)) return;
+        comparisonBox.getChildren().clear();
+        for (RouteComparison.Entry entry : comparison.getEntries()) {
+            Label label = new Label(comparisonText(entry));
+            label.setStyle("-fx-text-fill:" + (entry.isRouted() ? MapService.colorFor(entry.getProfile()) : "gray") + ";");
+            if (!entry.isRouted()) label.setTooltip(new Tooltip(entry.getError()));
+            comparisonBox.getChildren().add(label);
+        }
+
+        if (comparison.getRouted().isEmpty()) {
+            clearMap();
+            return;
+        }
         try {
-            GeocodeResult fromGeo = orsService.geocode(tour.getFromLocation())
-                    .orElseThrow(() -> new IllegalArgumentException("Could not geocode origin"));
-            GeocodeResult toGeo = orsService.geocode(tour.getToLocation())
-                    .orElseThrow(() -> new IllegalArgumentException("Could not geocode destination"));
-
-            RouteResult route = orsService.directions(
-                    tour.getTransportType().trim().toLowerCase(),
-                    fromGeo.getLongitude(), fromGeo.getLatitude(),
-                    toGeo.getLongitude(), toGeo.getLatitude()
-            ).orElseThrow(() -> new IllegalArgumentException("No route found"));
-
-            mapService.writeDirectionsJs(route, leafletDir);
-            Path htmlPath = leafletDir.resolve("leaflet.html");
-            String url = htmlPath.toUri().toString() + "?t=" + System.nanoTime();
-
-            ChangeListener<Worker.State> listener = new ChangeListener<>() {
-                @Override
-                public void changed(ObservableValue<? extends Worker.State> obs,
-                                    Worker.State oldState, Worker.State newState) {
-                    if (newState == Worker.State.SUCCEEDED) {
-                        mapEngine.executeScript("if(window.map) map.invalidateSize();");
-                        mapEngine.executeScript("setTimeout(()=>{ if(window.map) map.invalidateSize(); },200);");
-                        mapEngine.getLoadWorker().stateProperty().removeListener(this);
-                    }
-                }
-            };
+            if (canvasMap != null) {
+                Map<String, RouteResult> routes = new LinkedHashMap<>();
+                comparison.getRouted().forEach(entry -> routes.put(entry.getProfile(), entry.getRoute()));
+                canvasMap.showRoutes(routes, comparison.getBbox());
+            } else {
+                pushRoutes(mapService.comparisonJson(comparison));
+            }
+        } catch (Exception ex) {
+            clearMap();
+            showException("Route drawing error", ex);
+        }
+    }
+
+    private String comparisonText(RouteComparison.Entry entry) {
+        String profile = label("transport." + entry.getProfile(), entry.getProfile());
+        if (!entry.isRouted()) return profile + ": " + label("route.compare.noRoute", "no route");
+        long minutes = Math.round(entry.getRoute().getDuration() / 60);
+        return String.format("%s: %.1f km, %d:%02d h",
+                profile, entry.getRoute().getDistance() / 1000, minutes / 60, minutes % 60);
+    }
 
-            mapEngine.getLoadWorker().stateProperty().addListener(listener);
-            mapEngine.load(url);
-            mapEngine.reload();
+    private String label(String key, String fallback) {
+        return resources != null && resources.containsKey(key) ? resources.getString(key) : fallback;
+    }
 
+    private void showRoute(RouteResult route, long generation) {
+        if (!draws.isCurrent(generation)) return;
+        try {
+            if (canvasMap != null) {
+                canvasMap.showRoutes(Map.of("route", route), route.getBbox());
+            } else {
+                pushRoutes(mapService.directionsJson(route));
+            }
         } catch (Exception ex) {
-            Platform.runLater(() -> {
-                mapEngine.loadContent("");
-                showException("Route drawing error", ex);
-            });
+            clearMap();
+            showException("Route drawing error", ex);
+        }
+    }
+
+    // Swaps the route layers in the live page; the JSON goes over as a string, JSON.parse is cheaper than eval
+    private void pushRoutes(String json) {
+        updateMap(window -> window.call("showRoutes", json));
+    }
+
+    // Also used after errors, so it must not fail when leaflet.js itself could not be loaded
+    private void clearMap() {
+        if (canvasMap != null) {
+            canvasMap.clearRoutes();
+            return;
+        }
+        updateMap(window -> window.eval("if (window.clearRoutes) clearRoutes();"));
+    }
+
+    private void updateMap(Consumer<JSObject> update) {
+        if (mapWindow == null) {
+            queuedUpdates.add(update);
+        } else {
+            update.accept(mapWindow);
         }
     }
 
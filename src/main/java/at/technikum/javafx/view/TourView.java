@@ -1,52 +1,85 @@
 package at.technikum.javafx.view;
 
 import at.technikum.javafx.entity.Tour;
-import at.technikum.javafx.service.GeocodeResult;
-import at.technikum.javafx.service.MapService;
-import at.technikum.javafx.service.OrsService;
-import at.technikum.javafx.service.RouteResult;
+import at.technikum.javafx.service.IRoutePrefetcher;
+import at.technikum.javafx.service.IRouteService;
+import at.technikum.javafx.service.IRouteThumbnailService;
 import at.technikum.javafx.viewmodel.TourViewModel;
+import javafx.application.Platform;
 import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.ButtonBar.ButtonData;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 public class TourView implements Initializable {
 
     private final TourViewModel viewModel;
+    private final IRouteService routeService;
+    private final IRoutePrefetcher routePrefetcher;
+    private final IRouteThumbnailService routeThumbnailService;
+
+    // Decoded thumbnails by file, so scrolling back does not read them from disk again
+    private final Map<String, Image> thumbnails = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > 200;
+        }
+    };
 
     @FXML private ListView<Tour> tourList;
-    @FXML private Button newButton, editButton, deleteButton;
-
-    private final OrsService orsService = new OrsService();
-    private final MapService mapService = new MapService();
-    private final Path leafletDir = Paths.get(System.getProperty("user.home"), ".tourplanner", "leaflet");
+    @FXML private Button newButton, editButton, deleteButton, optimizeButton;
 
-    public TourView(TourViewModel viewModel) {
+    public TourView(TourViewModel viewModel, IRouteService routeService, IRoutePrefetcher routePrefetcher,
+                    IRouteThumbnailService routeThumbnailService) {
         this.viewModel = viewModel;
+        this.routeService = routeService;
+        this.routePrefetcher = routePrefetcher;
+        this.routeThumbnailService = routeThumbnailService;
     }
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         try {
             tourList.setCellFactory(lv -> new ListCell<>() {
+                private final ImageView thumbnail = new ImageView();
+
                 @Override
                 protected void updateItem(Tour tour, boolean empty) {
                     super.updateItem(tour, empty);
                     setText(empty || tour == null ? "" : tour.getName());
+                    thumbnail.setImage(null);
+                    setGraphic(empty || tour == null ? null : thumbnail);
+                    if (empty || tour == null) return;
+
+                    // An image decoded before is shown right away; anything else is looked up, or rendered,
+                    // in the background and only shown if this cell still displays the same tour
+                    String recorded = tour.getRouteImagePath();
+                    Image decoded = recorded == null ? null : thumbnails.get(recorded);
+                    if (decoded != null) {
+                        thumbnail.setImage(decoded);
+                        return;
+                    }
+                    routeThumbnailService.renderAsync(tour).thenAcceptAsync(path -> {
+                        if (getItem() == tour) path.ifPresent(p -> thumbnail.setImage(thumbnail(p.toString())));
+                    }, Platform::runLater);
                 }
             });
 
@@ -59,6 +92,15 @@ public class TourView implements Initializable {
                             viewModel.getSelectedTours().setAll(tourList.getSelectionModel().getSelectedItems())
             );
 
+            // Warm the routes around the selection so the next click renders from cache
+            tourList.getSelectionModel().selectedIndexProperty().addListener((obs, oldIdx, newIdx) -> {
+                if (newIdx.intValue() >= 0) {
+                    routePrefetcher.prefetchAround(List.copyOf(tourList.getItems()), newIdx.intValue());
+                } else {
+                    routePrefetcher.cancel();
+                }
+            });
+
             newButton.setOnAction(e -> onNewTour());
             editButton.setOnAction(e -> onEditTour());
             deleteButton.setOnAction(e -> onDeleteTour());
@@ -118,17 +160,46 @@ public class TourView implements Initializable {
             );
 
             Optional<Tour> maybe = dialog.showAndWait();
-            maybe.ifPresent(updated -> {
-                viewModel.updateTour(updated);
+            maybe.ifPresent(updated -> computeRouteAndSave(updated, t -> {
+                viewModel.updateTour(t);
                 tourList.getSelectionModel().clearSelection();
-                tourList.getSelectionModel().select(updated);
-            });
+                tourList.getSelectionModel().select(t);
+            }));
 
         } catch (IOException ex) {
             showException("Cannot open Edit Tour dialog", ex);
         }
     }
 
+    @FXML
+    private void onOptimizeStops() {
+        Tour selected = viewModel.selectedTourProperty().get();
+        if (selected == null) {
+            showAlert("Selection Error", "No tour selected to optimize.");
+            return;
+        }
+        if (selected.getStops().size() < 2) {
+            showAlert("Optimize Stops", "The tour needs at least two stops to reorder.");
+            return;
+        }
+
+        // Matrix, ordering and routing run off the FX thread on a copy; the tour only changes, back on the
+        // FX thread, once the new order has been routed
+        optimizeButton.setDisable(true);
+        routeService.optimizeStopsAsync(selected).whenCompleteAsync((optimized, ex) -> {
+            optimizeButton.setDisable(false);
+            if (ex != null) {
+                showException("Error optimizing stops", ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+            } else {
+                selected.copyRouteFrom(optimized);
+                viewModel.updateTour(selected);
+                tourList.getSelectionModel().clearSelection();
+                tourList.getSelectionModel().select(selected);
+            }
+        }, Platform::runLater);
+    }
+
     @FXML
     private void onDeleteTour() {
         Tour sel = viewModel.selectedTourProperty().get();
@@ -156,32 +227,27 @@ public class TourView implements Initializable {
     }
 
     private void computeRouteAndSave(Tour t, Consumer<Tour> saveAction) {
-        try {
-            GeocodeResult fromGeo = orsService.geocode(t.getFromLocation())
-                    .orElseThrow(() -> new IllegalArgumentException("Could not geocode origin"));
-            GeocodeResult toGeo = orsService.geocode(t.getToLocation())
-                    .orElseThrow(() -> new IllegalArgumentException("Could not geocode destination"));
-
-            RouteResult route = orsService.directions(
-                    t.getTransportType().trim().toLowerCase(),
-                    fromGeo.getLongitude(), fromGeo.getLatitude(),
-                    toGeo.getLongitude(), toGeo.getLatitude()
-            ).orElseThrow(() -> new IllegalArgumentException("No route found"));
-
-            t.setDistance(route.getDistance());
-            t.setEstimatedTime(formatDuration(route.getDuration()));
+        // Edits that keep profile, endpoints and stops keep the stored route
+        if (!routeService.needsRoute(t)) {
             saveAction.accept(t);
-        } catch (Exception ex) {
-            showException("Error computing route", ex);
+            return;
         }
+        // A copy is routed off the FX thread; the tour takes the route over, and is saved, back on it
+        routeService.routedCopyAsync(t).whenCompleteAsync((routed, ex) -> {
+            if (ex != null) {
+                showException("Error computing route", ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+            } else {
+                t.copyRouteFrom(routed);
+                saveAction.accept(t);
+            }
+        }, Platform::runLater);
     }
 
-    private String formatDuration(double seconds) {
-        long secs = Math.round(seconds);
-        long hrs = secs / 3600;
-        long min = (secs % 3600) / 60;
-        long sec = secs % 60;
-        return String.format("%02d:%02d:%02d", hrs, min, sec);
+    private Image thumbnail(String path) {
+        return thumbnails.computeIfAbsent(path, p -> new Image(Path.of(p).toUri().toString(),
+                IRouteThumbnailService.LIST_WIDTH / 2.0, IRouteThumbnailService.LIST_HEIGHT / 2.0,
+                true, true, true));
     }
 
     private void showAlert(String title, String msg) {
@@ -4,15 +4,20 @@ import at.technikum.javafx.entity.Tour;
 import at.technikum.javafx.entity.TourLog;
 import at.technikum.javafx.event.EventManager;
 import at.technikum.javafx.event.Events;
+import at.technikum.javafx.service.IRouteEnrichmentService;
 import at.technikum.javafx.service.ITourLogService;
 import at.technikum.javafx.service.ITourService;
+import at.technikum.javafx.service.RouteEnrichmentResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class MenuViewModel {
 
@@ -21,23 +26,44 @@ public class MenuViewModel {
     private final ITourService tourService;
     private final ITourLogService tourLogService;
     private final EventManager eventManager;
+    private final IRouteEnrichmentService routeEnrichmentService;
     private final ObjectMapper mapper = new ObjectMapper();
 
     public MenuViewModel(ITourService tourService,
                          ITourLogService tourLogService,
-                         EventManager eventManager) {
+                         EventManager eventManager,
+                         IRouteEnrichmentService routeEnrichmentService) {
         this.tourService = tourService;
         this.tourLogService = tourLogService;
         this.eventManager = eventManager;
+        this.routeEnrichmentService = routeEnrichmentService;
         log.info("MenuViewModel initialized");
     }
 
     public void importAllTours(File fromFile) throws Exception {
-        log.info("Importing all tours from '{}'", fromFile.getAbsolutePath());
+        importAllTours(fromFile, false, null);
+    }
+
+    // With computeRoutes, every imported tour is geocoded and routed in parallel before it is saved
+    public void importAllTours(File fromFile,
+                               boolean computeRoutes,
+                               IRouteEnrichmentService.ProgressListener progress) throws Exception {
+        log.info("Importing all tours from '{}' (computeRoutes={})", fromFile.getAbsolutePath(), computeRoutes);
         try {
             Tour[] importedTours = mapper.readValue(fromFile, Tour[].class);
             int count = importedTours.length;
 
+            if (computeRoutes) {
+                RouteEnrichmentResult result = routeEnrichmentService.enrichAll(List.of(importedTours), progress);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Import cancelled before any tour was saved");
+                }
+                if (!result.getFailed().isEmpty()) {
+                    log.warn("{} imported tours have no route and keep their imported distance/time",
+                            result.getFailed().size());
+                }
+            }
+
             for (Tour t : importedTours) {
                 t.setId(null);
                 Tour created = tourService.createTour(t);
@@ -59,6 +85,38 @@ public class MenuViewModel {
         }
     }
 
+    // Recomputes distance/time of every tour whose stored route is outdated with bulk ORS matrix calls
+    public RouteEnrichmentResult refreshDistances(IRouteEnrichmentService.ProgressListener progress) throws Exception {
+        log.info("Refreshing distance/time of all tours");
+        try {
+            List<Tour> all = tourService.getAllTours();
+            Map<Tour, List<Object>> before = new IdentityHashMap<>();
+            all.forEach(t -> before.put(t, routeMetrics(t)));
+
+            RouteEnrichmentResult result = routeEnrichmentService.refreshMetrics(all, progress);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Distance refresh cancelled before any tour was saved");
+            }
+
+            // Only tours whose values actually changed are written back
+            List<Tour> changed = all.stream()
+                    .filter(t -> !routeMetrics(t).equals(before.get(t)))
+                    .toList();
+            tourService.saveRouteMetrics(changed);
+            log.info("Refreshed distance/time of {} tours ({} failed)", changed.size(), result.getFailed().size());
+            return result;
+
+        } catch (Exception e) {
+            log.error("Failed to refresh tour distances", e);
+            throw e;
+        }
+    }
+
+    private static List<Object> routeMetrics(Tour tour) {
+        return Arrays.asList(tour.getDistance(), tour.getEstimatedTime(), tour.getRouteKey(),
+                tour.getFromLatitude(), tour.getFromLongitude(), tour.getToLatitude(), tour.getToLongitude());
+    }
+
     public void exportTours(List<Tour> tours, File toFile) throws Exception {
         log.info("Exporting {} tours to '{}'", tours.size(), toFile.getAbsolutePath());
         try {
@@ -0,0 +1,59 @@
+package at.technikum.javafx.viewmodel;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.util.concurrent.CompletableFuture;
+
+// Which selection the map is to draw and which background call belongs to it. Only used on the FX thread;
+// the debounce timer itself stays in the view.
+public class RouteDrawRequests {
+
+    public enum Action {
+        // Start (or restart) the debounce, the tour is drawn once the selection settles
+        DRAW_LATER,
+        // The overview is shown; nothing is drawn until it is left
+        KEEP_OVERVIEW,
+        // No tour selected
+        CLEAR
+    }
+
+    // Bumped on every selection change; results of an older generation are dropped
+    private long generation;
+    private Tour requested;
+    private CompletableFuture<?> pending;
+
+    // Invalidates whatever the previous selection started
+    public Action request(Tour tour, boolean overviewShown) {
+        generation++;
+        requested = tour;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        if (overviewShown) return Action.KEEP_OVERVIEW;
+        return tour == null ? Action.CLEAR : Action.DRAW_LATER;
+    }
+
+    public Tour getRequested() {
+        return requested;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public boolean isCurrent(long generation) {
+        return generation == this.generation;
+    }
+
+    public void started(CompletableFuture<?> call) {
+        pending = call;
+    }
+
+    // True when the result of the call is still wanted; it is then no longer pending
+    public boolean finished(CompletableFuture<?> call, long generation) {
+        if (call.isCancelled() || !isCurrent(generation)) return false;
+        if (pending == call) pending = null;
+        return true;
+    }
+}
@@ -2,20 +2,37 @@ package at.technikum.javafx.viewmodel;
 
 import at.technikum.javafx.event.EventManager;
 import at.technikum.javafx.event.Events;
+import at.technikum.javafx.service.IRouteService;
+import at.technikum.javafx.service.Isochrone;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+
 public class SearchViewModel {
 
     private static final Logger log = LoggerFactory.getLogger(SearchViewModel.class);
 
     private final EventManager eventManager;
+    private final IRouteService routeService;
     private final StringProperty searchText = new SimpleStringProperty("");
 
+    // "Reachable within N minutes of ..." area search
+    private final StringProperty reachFrom = new SimpleStringProperty("");
+    private final ObjectProperty<Integer> reachMinutes = new SimpleObjectProperty<>(30);
+    private final StringProperty reachProfile = new SimpleStringProperty(IRouteService.PROFILES.get(0));
+
     public SearchViewModel(EventManager eventManager) {
+        this(eventManager, null);
+    }
+
+    public SearchViewModel(EventManager eventManager, IRouteService routeService) {
         this.eventManager = eventManager;
+        this.routeService = routeService;
 
         searchText.addListener((obs, oldVal, newVal) -> {
             log.debug("Search text changed from '{}' to '{}'", oldVal, newVal);
@@ -33,6 +50,38 @@ public class SearchViewModel {
         }
     }
 
+    // Runs off the FX thread; the view passes the result to showReachableArea on the FX thread
+    public CompletableFuture<Isochrone> reachableAreaAsync() {
+        String from = reachFrom.get() == null ? "" : reachFrom.get().trim();
+        if (from.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Enter a start location"));
+        }
+        int minutes = reachMinutes.get() == null ? 30 : reachMinutes.get();
+        log.info("User searched tours reachable within {} min ({}) of '{}'", minutes, reachProfile.get(), from);
+        return routeService.isochroneAsync(from, reachProfile.get(), minutes);
+    }
+
+    public void showReachableArea(Isochrone area) {
+        eventManager.publish(Events.REACHABLE_AREA_SELECTED, area);
+    }
+
+    public void clearReachableArea() {
+        log.info("User cleared the reachable area filter");
+        eventManager.publish(Events.REACHABLE_AREA_SELECTED, null);
+    }
+
+    public StringProperty reachFromProperty() {
+        return reachFrom;
+    }
+
+    public ObjectProperty<Integer> reachMinutesProperty() {
+        return reachMinutes;
+    }
+
+    public StringProperty reachProfileProperty() {
+        return reachProfile;
+    }
+
     public StringProperty searchTextProperty() {
         return searchText;
     }
@@ -1,6 +1,7 @@
 package at.technikum.javafx.viewmodel;
 
 import at.technikum.javafx.entity.Tour;
+import at.technikum.javafx.service.IRouteService;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -10,6 +11,9 @@ import javafx.collections.ObservableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class TourDialogViewModel {
 
     private static final Logger log = LoggerFactory.getLogger(TourDialogViewModel.class);
@@ -18,10 +22,12 @@ public class TourDialogViewModel {
     private final StringProperty description = new SimpleStringProperty();
     private final StringProperty fromLocation = new SimpleStringProperty();
     private final StringProperty toLocation = new SimpleStringProperty();
+    // Intermediate stops, one per line
+    private final StringProperty stops = new SimpleStringProperty();
     private final ObjectProperty<String> transportType = new SimpleObjectProperty<>();
 
     private final ObservableList<String> transportOptions = FXCollections.observableArrayList(
-            "driving-car", "foot-walking", "cycling-regular"
+            IRouteService.PROFILES
     );
 
     public TourDialogViewModel() {
@@ -44,6 +50,10 @@ public class TourDialogViewModel {
         return fromLocation;
     }
 
+    public StringProperty stopsProperty() {
+        return stops;
+    }
+
     public StringProperty toLocationProperty() {
         return toLocation;
     }
@@ -57,29 +67,50 @@ public class TourDialogViewModel {
         description.set(t.getDescription());
         fromLocation.set(t.getFromLocation());
         toLocation.set(t.getToLocation());
+        stops.set(String.join("\n", t.getStops()));
         transportType.set(t.getTransportType());
         log.debug("TourDialogViewModel setTour: id={} name={}", t.getId(), t.getName());
     }
 
     public Tour createTour() {
+        List<String> parsedStops = parseStops();
         Tour t = new Tour();
         t.setName(name.get());
         t.setDescription(description.get());
         t.setFromLocation(fromLocation.get());
         t.setToLocation(toLocation.get());
+        t.setStops(parsedStops);
         t.setTransportType(transportType.get());
         log.info("Created Tour from dialog: name='{}', from='{}', to='{}', transport='{}'",
                 t.getName(), t.getFromLocation(), t.getToLocation(), t.getTransportType());
         return t;
     }
 
+    // Validated before anything is changed, so a rejected edit leaves the tour as it was
     public Tour updateTour(Tour existing) {
+        List<String> parsedStops = parseStops();
         existing.setName(name.get());
         existing.setDescription(description.get());
         existing.setFromLocation(fromLocation.get());
         existing.setToLocation(toLocation.get());
+        existing.setStops(parsedStops);
         existing.setTransportType(transportType.get());
         log.info("Updated Tour from dialog: id={}, name='{}'", existing.getId(), existing.getName());
         return existing;
     }
+
+    // Blank lines are ignored, so a trailing newline does not add an empty stop
+    private List<String> parseStops() {
+        String text = stops.get();
+        if (text == null) return List.of();
+        List<String> parsed = Arrays.stream(text.split("\\R"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        if (parsed.size() > IRouteService.MAX_STOPS) {
+            throw new IllegalArgumentException("A tour can have at most " + IRouteService.MAX_STOPS
+                    + " stops, got " + parsed.size());
+        }
+        return parsed;
+    }
 }
\ No newline at end of file
@@ -6,6 +6,8 @@ import at.technikum.javafx.event.EventManager;
 import at.technikum.javafx.event.Events;
 import at.technikum.javafx.service.ITourLogService;
 import at.technikum.javafx.service.ITourService;
+import at.technikum.javafx.service.Isochrone;
+import at.technikum.javafx.service.TourStartIndex;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -14,7 +16,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 public class TourViewModel {
 
@@ -32,6 +37,12 @@ public class TourViewModel {
     private final ObjectProperty<Tour> selectedTour = new SimpleObjectProperty<>();
     private final ListProperty<Tour> selectedTours = new SimpleListProperty<>(FXCollections.observableArrayList());
 
+    // Start points of all loaded tours, so an area search only tests tours near the area
+    private TourStartIndex startIndex = TourStartIndex.of(List.of());
+    private String searchTerm = "";
+    private Isochrone reachableArea;
+    private Set<Tour> reachableTours;
+
     public TourViewModel(ITourService tourService, ITourLogService tourLogService, EventManager eventManager) {
         this.tourService = tourService;
         this.tourLogService = tourLogService;
@@ -41,6 +52,7 @@ public class TourViewModel {
         log.info("TourViewModel initialized with {} tours", tours.size());
 
         eventManager.subscribe(Events.SEARCH_TERM_SELECTED, payload -> applyFilter((String) payload));
+        eventManager.subscribe(Events.REACHABLE_AREA_SELECTED, payload -> applyReachableArea((Isochrone) payload));
         eventManager.subscribe(Events.TOUR_LOGS_CHANGED, payload -> {
             if (payload instanceof Tour t && t.equals(selectedTour.get())) {
                 updateMetricsFor(t);
@@ -100,6 +112,15 @@ public class TourViewModel {
         }
     }
 
+    // A route computed for a tour that had none stored; the list keeps its objects and selection
+    public void saveRoute(Tour tour) {
+        try {
+            tourService.saveRoute(tour);
+        } catch (Exception e) {
+            log.error("Failed to save route of tour: {}", tour.getName(), e);
+        }
+    }
+
     public void deleteTour(Tour tour) {
         log.info("Deleting tour (id={}): {}", tour.getId(), tour.getName());
         try {
@@ -113,7 +134,11 @@ public class TourViewModel {
     }
 
     private void loadTours() {
-        tours.setAll(tourService.getAllTours());
+        List<Tour> all = tourService.getAllTours();
+        startIndex = TourStartIndex.of(all);
+        tours.setAll(all);
+        // Reloaded tours are new objects, so an active area filter has to be resolved again
+        if (reachableArea != null) applyReachableArea(reachableArea);
     }
 
     private void updateMetricsFor(Tour t) {
@@ -122,9 +147,26 @@ public class TourViewModel {
         childFriendliness.set(String.format("%.2f", computeChildFriendliness(logs)));
     }
 
+    // null clears the area filter
+    private void applyReachableArea(Isochrone area) {
+        reachableArea = area;
+        if (area == null) {
+            reachableTours = null;
+        } else {
+            Set<Tour> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+            reachable.addAll(startIndex.within(area));
+            reachableTours = reachable;
+            log.info("{} of {} tours start within {}", reachable.size(), startIndex.size(), area);
+        }
+        applyFilter(searchTerm);
+    }
+
     private void applyFilter(String term) {
-        String lower = term == null ? "" : term.toLowerCase();
+        searchTerm = term == null ? "" : term;
+        String lower = searchTerm.toLowerCase();
+        Set<Tour> reachable = reachableTours;
         filteredTour.setPredicate(tour -> {
+            if (reachable != null && !reachable.contains(tour)) return false;
             if (lower.isBlank()) return true;
             return containsIgnoreCase(tour.getName(), lower) ||
                     containsIgnoreCase(tour.getDescription(), lower) ||
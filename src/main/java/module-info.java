@@ -8,7 +8,9 @@ module at.technikum.javafx {
     // JDK modules
     requires java.desktop;
     requires java.net.http;
+    requires jdk.httpserver;
     requires java.sql;
+    requires java.xml;
 
     // Spring modules
     requires spring.boot;
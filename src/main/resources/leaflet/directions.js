@@ -1,4 +0,0 @@
-var directions = {
-    bbox: [ /* minLon, minLat, maxLon, maxLat */ ],
-    geometry: { /* GeoJSON geometry object from ORS */ }
-};
\ No newline at end of file
@@ -0,0 +1,88 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private long now = 0;
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofSeconds(10), () -> now);
+
+    @Test
+    void opensAfterConsecutiveFailuresAndFailsFast() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAllowsSingleTrialAndClosesOnSuccess() {
+        for (int i = 0; i < 3; i++) breaker.recordFailure();
+        now += Duration.ofSeconds(11).toNanos();
+
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void failedTrialReopens() {
+        for (int i = 0; i < 3; i++) breaker.recordFailure();
+        now += Duration.ofSeconds(11).toNanos();
+        breaker.allowRequest();
+
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void releasedTrialLetsTheNextRequestThrough() {
+        for (int i = 0; i < 3; i++) breaker.recordFailure();
+        now += Duration.ofSeconds(11).toNanos();
+        assertTrue(breaker.allowRequest());
+
+        breaker.releaseTrial();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void retryPolicy_honorsRetryAfterAndCapsBackoff() {
+        RetryPolicy policy = new RetryPolicy(4, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+        assertEquals(500, policy.delayMillis(1, Duration.ofMillis(500)));
+        assertTrue(policy.shouldRetry(3, Duration.ofSeconds(1)));
+        assertFalse(policy.shouldRetry(1, Duration.ofSeconds(5)));
+        assertFalse(policy.shouldRetry(4, null));
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long delay = policy.delayMillis(attempt, null);
+            assertTrue(delay >= 0 && delay <= Math.min(1_000, 100L << (attempt - 1)));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package at.technikum.javafx.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectionsParserTest {
+
+    private static final String RESPONSE = """
+            {"type":"FeatureCollection",
+             "bbox":[16.3,48.1,16.4,48.3],
+             "features":[{
+               "bbox":[0,0,0,0],
+               "type":"Feature",
+               "properties":{
+                 "segments":[{"distance":1234.5,"duration":321.0,
+                              "steps":[{"distance":1.0,"duration":2.0,"name":"Ring","way_points":[0,1]}]}],
+                 "summary":{"distance":9999,"duration":9999},
+                 "way_points":[0,2]
+               },
+               "geometry":{"coordinates":[[16.3,48.1],[16.35,48.2,180.5],[16.4,48.3]],"type":"LineString"}
+             }],
+             "metadata":{"attribution":"openrouteservice.org","query":{"coordinates":[[16.3,48.1],[16.4,48.3]]}}}
+            """;
+
+    @Test
+    void parse_extractsOnlyTheFieldsRouteResultNeeds() throws IOException {
+        RouteResult route = parse(RESPONSE).orElseThrow();
+
+        assertEquals(1234.5, route.getDistance(), 1e-9);
+        assertEquals(321.0, route.getDuration(), 1e-9);
+        assertArrayEquals(new double[]{16.3, 48.1, 16.35, 48.2, 16.4, 48.3}, route.getGeometry().toArray(), 1e-9);
+        assertArrayEquals(new double[]{16.3, 48.1, 16.4, 48.3}, route.getBbox(), 1e-9);
+        assertEquals(3, route.getPointCount());
+    }
+
+    @Test
+    void parse_fallsBackToSummaryAndComputedBbox() throws IOException {
+        RouteResult route = parse("""
+                {"features":[{"properties":{"summary":{"distance":10,"duration":20}},
+                 "geometry":{"type":"LineString","coordinates":[[1,5],[3,2]]}}]}
+                """).orElseThrow();
+
+        assertEquals(10, route.getDistance(), 1e-9);
+        assertEquals(20, route.getDuration(), 1e-9);
+        assertArrayEquals(new double[]{1, 2, 3, 5}, route.getBbox(), 1e-9);
+    }
+
+    @Test
+    void parse_returnsEmptyWithoutFeatures() throws IOException {
+        assertTrue(parse("{\"type\":\"FeatureCollection\",\"features\":[]}").isEmpty());
+    }
+
+    // OrsService only retries transport failures; a JsonProcessingException fails the call right away
+    @Test
+    void parse_rejectsANonObjectBodyAsParseError() {
+        assertThrows(JsonProcessingException.class, () -> parse("[]"));
+        assertThrows(JsonProcessingException.class, () -> parse("\"route\""));
+    }
+
+    private static Optional<RouteResult> parse(String json) throws IOException {
+        return DirectionsParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,100 @@
+package at.technikum.javafx.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// Compares the old String + readTree path with the streaming DirectionsParser on a synthetic long route.
+// Not a unit test; run the main method, e.g. with a few points: DirectionsParsingBenchmark 50000
+public class DirectionsParsingBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        int points = args.length > 0 ? Integer.parseInt(args[0]) : 60_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        byte[] body = syntheticResponse(points);
+        System.out.printf(Locale.ROOT, "Response: %d points, %.1f MB%n", points, body.length / 1e6);
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 10; i++) {
+            treePath(body);
+            streamingPath(body);
+        }
+
+        report("String + readTree", body, iterations, true);
+        report("JsonParser stream", body, iterations, false);
+
+        RouteGeometry geometry = DirectionsParser.parse(new ByteArrayInputStream(body)).orElseThrow().getGeometry();
+        System.out.printf(Locale.ROOT, "Retained geometry: %d bytes encoded vs %d bytes as double[]%n",
+                geometry.byteSize(), geometry.size() * 16);
+    }
+
+    private static void report(String name, byte[] body, int iterations, boolean tree) throws IOException {
+        long threadId = Thread.currentThread().threadId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        double checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += tree ? treePath(body) : streamingPath(body);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf(Locale.ROOT, "%-18s %8.2f ms/op %10.1f MB allocated/op (checksum %.1f)%n",
+                name, elapsed / 1e6 / iterations, allocated / 1e6 / iterations, checksum);
+    }
+
+    // What OrsService did before: buffer the body as a String, then build a full tree and copy the coordinates
+    private static double treePath(byte[] body) throws IOException {
+        String text = new String(body, StandardCharsets.UTF_8);
+        JsonNode root = MAPPER.readTree(text);
+        JsonNode feature = root.path("features").get(0);
+        double distance = feature.path("properties").path("segments").get(0).path("distance").asDouble();
+        double sum = distance;
+        for (JsonNode coord : feature.path("geometry").path("coordinates")) {
+            sum += coord.get(0).asDouble();
+        }
+        return sum;
+    }
+
+    private static double streamingPath(byte[] body) throws IOException {
+        RouteResult route = DirectionsParser.parse(new ByteArrayInputStream(body)).orElseThrow();
+        double[] sum = {route.getDistance()};
+        route.getGeometry().forEach((lon, lat) -> sum[0] += lon);
+        return sum[0];
+    }
+
+    // Shaped like an ORS geojson answer: one feature with steps, a long LineString and metadata
+    static byte[] syntheticResponse(int points) {
+        StringBuilder sb = new StringBuilder(points * 48);
+        sb.append("{\"type\":\"FeatureCollection\",\"bbox\":[14.0,47.0,16.5,48.5],\"features\":[{")
+                .append("\"bbox\":[14.0,47.0,16.5,48.5],\"type\":\"Feature\",\"properties\":{\"segments\":[{")
+                .append("\"distance\":").append(points * 12.5).append(",\"duration\":").append(points * 2.1)
+                .append(",\"steps\":[");
+        int steps = Math.max(1, points / 50);
+        for (int s = 0; s < steps; s++) {
+            if (s > 0) sb.append(',');
+            sb.append("{\"distance\":625.0,\"duration\":105.0,\"type\":1,\"instruction\":\"Turn left onto Hauptstraße\",")
+                    .append("\"name\":\"Hauptstraße\",\"way_points\":[").append(s * 50).append(',').append(s * 50 + 50).append("]}");
+        }
+        sb.append("]}],\"summary\":{\"distance\":").append(points * 12.5)
+                .append(",\"duration\":").append(points * 2.1).append("},\"way_points\":[0,").append(points - 1)
+                .append("]},\"geometry\":{\"coordinates\":[");
+        for (int i = 0; i < points; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('[').append(String.format(Locale.ROOT, "%.6f", 14.0 + 2.5 * i / points))
+                    .append(',').append(String.format(Locale.ROOT, "%.6f", 47.0 + 1.5 * Math.sin(i / 500.0)))
+                    .append(']');
+        }
+        sb.append("],\"type\":\"LineString\"}}],\"metadata\":{\"attribution\":\"openrouteservice.org\",")
+                .append("\"service\":\"routing\",\"query\":{\"profile\":\"cycling-regular\",\"format\":\"geojson\"}}}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
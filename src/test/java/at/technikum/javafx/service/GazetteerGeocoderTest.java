@@ -0,0 +1,91 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GazetteerGeocoderTest {
+
+    @TempDir Path tempDir;
+
+    private GazetteerIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path dump = tempDir.resolve("AT.txt");
+        Files.write(dump, List.of(
+                geonames(2761369, "Wien", "Wien", "Vienna,Vienne", 48.20849, 16.37208, "P", 1691468),
+                geonames(2778067, "Graz", "Graz", "", 47.06667, 15.45, "P", 222326),
+                geonames(2773913, "Klagenfurt am Wörthersee", "Klagenfurt am Woerthersee", "", 46.62472, 14.30528, "P", 90610),
+                // A hamlet sharing a name with a bigger town must not shadow it
+                geonames(1, "Neustadt", "Neustadt", "", 47.0, 13.0, "P", 120),
+                geonames(2, "Neustadt", "Neustadt", "", 49.35, 8.14, "P", 53000),
+                // Not a populated place
+                geonames(3, "Großglockner", "Grossglockner", "", 47.07, 12.69, "T", 0),
+                geonames(4, "A", "A", "", 1.0, 2.0, "P", 10)
+        ), StandardCharsets.UTF_8);
+
+        Path bin = tempDir.resolve("gazetteer.bin");
+        new GazetteerIndexBuilder(0, true).read(dump).write(bin);
+        index = GazetteerIndex.open(bin);
+    }
+
+    @Test
+    void lookup_findsNamesAsciiNamesAndAlternateNames() {
+        assertEquals(48.20849, index.lookup("Wien").orElseThrow().getLatitude(), 1e-7);
+        assertEquals(16.37208, index.lookup("  VIENNA ").orElseThrow().getLongitude(), 1e-7);
+        assertTrue(index.lookup("Klagenfurt am Wörthersee").isPresent());
+        assertTrue(index.lookup("klagenfurt am woerthersee").isPresent());
+        assertTrue(index.lookup("A").isPresent(), "single-byte keys use the padded bucket");
+    }
+
+    @Test
+    void lookup_prefersMostPopulousPlaceAndSkipsNonPlaces() {
+        assertEquals(49.35, index.lookup("Neustadt").orElseThrow().getLatitude(), 1e-7);
+        assertTrue(index.lookup("Großglockner").isEmpty());
+        assertTrue(index.lookup("Wie").isEmpty());
+        assertTrue(index.lookup("Wienerwald").isEmpty());
+        assertTrue(index.lookup("").isEmpty());
+    }
+
+    @Test
+    void geocoder_answersLocallyAndFallsBackOnMiss() {
+        List<String> fallbackCalls = new ArrayList<>();
+        IGeocoder fallback = address -> {
+            fallbackCalls.add(address);
+            return CompletableFuture.completedFuture(Optional.of(new GeocodeResult(1, 2, new double[]{2, 1, 2, 1})));
+        };
+        GazetteerGeocoder geocoder = new GazetteerGeocoder(index, fallback);
+
+        assertEquals(47.06667, geocoder.geocode("Graz").orElseThrow().getLatitude(), 1e-7);
+        assertEquals(1.0, geocoder.geocode("Stephansplatz 1, Wien").orElseThrow().getLatitude(), 1e-9);
+
+        assertEquals(List.of("Stephansplatz 1, Wien"), fallbackCalls);
+        assertEquals(1, geocoder.getHits());
+        assertEquals(1, geocoder.getMisses());
+    }
+
+    @Test
+    void open_rejectsFilesThatAreNotAnIndex() throws Exception {
+        Path bogus = Files.writeString(tempDir.resolve("bogus.bin"), "not an index at all");
+        assertThrows(IllegalArgumentException.class, () -> GazetteerIndex.open(bogus));
+    }
+
+    private static String geonames(long id, String name, String ascii, String alternates,
+                                   double lat, double lon, String featureClass, long population) {
+        // 19 tab-separated columns as in the GeoNames dumps
+        return String.join("\t", String.valueOf(id), name, ascii, alternates, String.valueOf(lat), String.valueOf(lon),
+                featureClass, "PPL", "AT", "", "", "", "", "", String.valueOf(population), "", "200",
+                "Europe/Vienna", "2024-01-01");
+    }
+}
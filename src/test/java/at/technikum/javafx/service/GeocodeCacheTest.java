@@ -0,0 +1,118 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeocodeCacheTest {
+
+    @TempDir Path tempDir;
+
+    private MutableClock clock;
+    private Path store;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        store = tempDir.resolve("geocode-cache.json");
+    }
+
+    @Test
+    void get_normalizesKeysAndCountsHitsAndMisses() {
+        GeocodeCache cache = new GeocodeCache(store, 10, Duration.ofHours(1), clock);
+
+        assertTrue(cache.get("Wien").isEmpty());
+        cache.put("  Wien ", new GeocodeResult(48.2, 16.37, null));
+
+        Optional<GeocodeResult> hit = cache.get("WIEN");
+        assertTrue(hit.isPresent());
+        assertEquals(48.2, hit.get().getLatitude(), 1e-9);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedWhenFull() {
+        GeocodeCache cache = new GeocodeCache(store, 2, Duration.ofHours(1), clock);
+        cache.put("a", new GeocodeResult(1, 1, null));
+        cache.put("b", new GeocodeResult(2, 2, null));
+        cache.get("a");
+        cache.put("c", new GeocodeResult(3, 3, null));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isEmpty());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void get_expiresEntriesAfterTtl_butKeepsThemForStaleReads() {
+        GeocodeCache cache = new GeocodeCache(store, 10, Duration.ofMinutes(5), clock);
+        cache.put("graz", new GeocodeResult(47.07, 15.44, null));
+
+        clock.advance(Duration.ofMinutes(6));
+
+        assertTrue(cache.get("graz").isEmpty());
+        assertEquals(1, cache.getMisses());
+        assertTrue(cache.getStale("Graz").isPresent());
+    }
+
+    @Test
+    void entriesSurviveRestart() {
+        GeocodeCache first = new GeocodeCache(store, 10, Duration.ofHours(1), clock);
+        first.put("Linz", new GeocodeResult(48.3, 14.29, new double[]{14.2, 48.2, 14.4, 48.4}));
+        first.close();
+
+        GeocodeCache second = new GeocodeCache(store, 10, Duration.ofHours(1), clock);
+
+        Optional<GeocodeResult> loaded = second.get("linz");
+        assertTrue(loaded.isPresent());
+        assertEquals(14.29, loaded.get().getLongitude(), 1e-9);
+        assertArrayEquals(new double[]{14.2, 48.2, 14.4, 48.4}, loaded.get().getBbox(), 1e-9);
+    }
+
+    @Test
+    void putsAreWrittenLaterAndTheNewestSnapshotWins() throws Exception {
+        GeocodeCache first = new GeocodeCache(store, 100, Duration.ofHours(1), clock);
+        first.put("Wien", new GeocodeResult(48.2, 16.37, null));
+        assertFalse(Files.exists(store), "a put does not write the store on the calling thread");
+
+        first.flush();
+        assertTrue(Files.exists(store));
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int offset = t * 20;
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 20; i++) first.put("place " + (offset + i), new GeocodeResult(i, i, null));
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) writer.join();
+        first.close();
+
+        GeocodeCache second = new GeocodeCache(store, 100, Duration.ofHours(1), clock);
+        assertEquals(81, second.size());
+        assertTrue(second.get("place 79").isPresent());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration d) { now = now.plus(d); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+}
@@ -0,0 +1,213 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphRouteProviderTest {
+
+    @TempDir Path tempDir;
+
+    private final List<String> fallbackCalls = Collections.synchronizedList(new ArrayList<>());
+    private final IRouteProvider fallback = (profile, fromLon, fromLat, toLon, toLat) -> {
+        fallbackCalls.add(profile);
+        return CompletableFuture.completedFuture(Optional.empty());
+    };
+
+    //                    2
+    //   primary (one-way) / \ primary      2 lies ~550 m north of the straight line
+    //                    1 --- 3           footway, 1482 m, closed to cars
+    //                    |
+    //                    4                 residential, 2 km south of 1
+    private static final String SMALL = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <osm version="0.6">
+              <node id="1" lat="48.2" lon="16.37"/>
+              <node id="2" lat="48.205" lon="16.38"/>
+              <node id="3" lat="48.2" lon="16.39"/>
+              <node id="4" lat="48.182" lon="16.37"/>
+              <way id="10"><nd ref="1"/><nd ref="2"/>
+                <tag k="highway" v="primary"/><tag k="oneway" v="yes"/></way>
+              <way id="11"><nd ref="2"/><nd ref="3"/><tag k="highway" v="primary"/></way>
+              <way id="12"><nd ref="1"/><nd ref="3"/><tag k="highway" v="footway"/></way>
+              <way id="13"><nd ref="4"/><nd ref="1"/><tag k="highway" v="residential"/></way>
+            </osm>
+            """;
+
+    @Test
+    void directions_followsAccessAndOneWayRulesPerProfile() throws Exception {
+        GraphRouteProvider provider = new GraphRouteProvider(build(SMALL), fallback, Runnable::run);
+
+        RouteResult car = provider.directions("driving-car", 16.37, 48.2, 16.39, 48.2).orElseThrow();
+        assertEquals(3, car.getGeometry().size(), "car drives via node 2");
+        assertTrue(car.getDistance() > 1800);
+        assertEquals(car.getDistance() / (70 / 3.6), car.getDuration(), 1.0);
+
+        RouteResult walk = provider.directions("foot-walking", 16.37, 48.2, 16.39, 48.2).orElseThrow();
+        assertEquals(2, walk.getGeometry().size(), "walkers may use the footway");
+        assertEquals(1482, walk.getDistance(), 1.0);
+        assertEquals(1482 / (5 / 3.6), walk.getDuration(), 1.0);
+
+        // Against the one-way, cars have no way back from 3 to 1; walkers do
+        assertTrue(provider.route("driving-car", 16.39, 48.2, 16.37, 48.2).isEmpty());
+        assertTrue(provider.route("foot-walking", 16.39, 48.2, 16.37, 48.2).isPresent());
+        assertTrue(fallbackCalls.isEmpty());
+        assertEquals(3, provider.getLocalRoutes());
+    }
+
+    @Test
+    void directions_fallsBackOutsideGraphAndForUnknownProfiles() throws Exception {
+        GraphRouteProvider provider = new GraphRouteProvider(build(SMALL), fallback, Runnable::run);
+
+        provider.directions("driving-hgv", 16.37, 48.2, 16.39, 48.2);
+        provider.directions("driving-car", 16.37, 48.2, 15.44, 47.07);    // Graz is not in the extract
+        provider.directions("driving-car", 16.39, 48.2, 16.37, 48.2);     // one-way blocks the car
+
+        assertEquals(List.of("driving-hgv", "driving-car", "driving-car"), fallbackCalls);
+        assertEquals(3, provider.getFallbacks());
+        assertEquals(0, provider.getLocalRoutes());
+    }
+
+    @Test
+    void directions_snapsToNearestUsableNode() throws Exception {
+        GraphRouteProvider provider = new GraphRouteProvider(build(SMALL), fallback, Runnable::run);
+
+        // ~100 m off node 4 and node 3
+        RouteResult car = provider.directions("driving-car", 16.3701, 48.1829, 16.3901, 48.2009).orElseThrow();
+        assertEquals(4, car.getGeometry().size());
+        assertEquals(48.182, car.getGeometry().toArray()[1], 1e-5);
+        assertEquals(48.205, car.getBbox()[3], 1e-5);
+    }
+
+    @Test
+    void directions_matchesPlainDijkstraOnRandomGrid() throws Exception {
+        Random random = new Random(17);
+        int size = 25;
+        RoadGraph graph = build(randomGrid(random, size));
+        GraphRouteProvider provider = new GraphRouteProvider(graph, fallback, Runnable::run);
+
+        String[] profiles = {"driving-car", "cycling-regular", "foot-walking"};
+        int[] access = {RoadGraph.ACCESS_CAR, RoadGraph.ACCESS_BIKE, RoadGraph.ACCESS_FOOT};
+        int routed = 0;
+        for (int q = 0; q < 60; q++) {
+            int p = q % profiles.length;
+            int s = random.nextInt(graph.nodeCount()), t = random.nextInt(graph.nodeCount());
+            if (s == t) continue;
+            double expected = dijkstra(graph, s, t, access[p], p);
+            Optional<RouteResult> route = provider.route(profiles[p], graph.lon(s), graph.lat(s), graph.lon(t), graph.lat(t));
+            if (Double.isInfinite(expected) || !route.isPresent()) {
+                continue; // snapping may pick a different node when s or t has no usable edge
+            }
+            assertEquals(expected, route.get().getDuration(), 1e-6 * Math.max(1, expected), profiles[p] + " " + s + "->" + t);
+            routed++;
+        }
+        assertTrue(routed > 30, "most random pairs are connected");
+    }
+
+    @Test
+    void concurrentQueries_getTheSameRoutesAsSequentialOnes() throws Exception {
+        Random random = new Random(29);
+        RoadGraph graph = build(randomGrid(random, 20));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            GraphRouteProvider provider = new GraphRouteProvider(graph, fallback, pool);
+            List<int[]> pairs = new ArrayList<>();
+            for (int q = 0; q < 200; q++) {
+                pairs.add(new int[]{random.nextInt(graph.nodeCount()), random.nextInt(graph.nodeCount())});
+            }
+
+            List<CompletableFuture<Optional<RouteResult>>> calls = new ArrayList<>();
+            for (int[] pair : pairs) {
+                calls.add(provider.directionsAsync("foot-walking", graph.lon(pair[0]), graph.lat(pair[0]),
+                        graph.lon(pair[1]), graph.lat(pair[1])));
+            }
+            for (int q = 0; q < pairs.size(); q++) {
+                int[] pair = pairs.get(q);
+                Optional<RouteResult> expected = provider.route("foot-walking", graph.lon(pair[0]), graph.lat(pair[0]),
+                        graph.lon(pair[1]), graph.lat(pair[1]));
+                Optional<RouteResult> actual = calls.get(q).get();
+                if (expected.isEmpty()) continue; // answered by the fallback
+                assertEquals(expected.get().getDuration(), actual.orElseThrow().getDuration(), 1e-9);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String randomGrid(Random random, int size) {
+        StringBuilder osm = new StringBuilder("<osm version=\"0.6\">\n");
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                double lat = 47.0 + r * 0.002 + random.nextDouble() * 0.0005;
+                double lon = 15.0 + c * 0.003 + random.nextDouble() * 0.0005;
+                osm.append("<node id=\"").append(r * size + c + 1).append("\" lat=\"").append(lat)
+                        .append("\" lon=\"").append(lon).append("\"/>\n");
+            }
+        }
+        String[] types = {"primary", "secondary", "residential", "living_street", "footway"};
+        int wayId = 1;
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int id = r * size + c + 1;
+                if (c + 1 < size) osm.append(way(wayId++, id, id + 1, types[random.nextInt(types.length)], random.nextInt(5) == 0));
+                if (r + 1 < size) osm.append(way(wayId++, id, id + size, types[random.nextInt(types.length)], random.nextInt(5) == 0));
+            }
+        }
+        osm.append("</osm>\n");
+        return osm.toString();
+    }
+
+    // Reference: unidirectional Dijkstra over the out edges, same cost model as the provider
+    private static double dijkstra(RoadGraph graph, int s, int t, int bit, int profile) {
+        double[] dist = new double[graph.nodeCount()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[s] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[]{0, s});
+        while (!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int u = (int) top[1];
+            if (top[0] > dist[u]) continue;
+            if (u == t) return dist[u];
+            for (int e = graph.firstOut(u); e < graph.firstOut(u + 1); e++) {
+                if ((graph.access(e) & bit) == 0) continue;
+                double kmh = profile == 0 ? graph.carSpeedKmh(e) : profile == 1 ? 18 : 5;
+                double d = dist[u] + graph.length(e) / (kmh / 3.6);
+                int v = graph.target(e);
+                if (d < dist[v]) {
+                    dist[v] = d;
+                    queue.add(new double[]{d, v});
+                }
+            }
+        }
+        return dist[t];
+    }
+
+    private static String way(int id, int from, int to, String highway, boolean oneway) {
+        return "<way id=\"" + id + "\"><nd ref=\"" + from + "\"/><nd ref=\"" + to + "\"/>"
+                + "<tag k=\"highway\" v=\"" + highway + "\"/>"
+                + (oneway ? "<tag k=\"oneway\" v=\"yes\"/>" : "") + "</way>\n";
+    }
+
+    private RoadGraph build(String osm) throws Exception {
+        Path extract = Files.writeString(tempDir.resolve("extract.osm"), osm, StandardCharsets.UTF_8);
+        Path graph = tempDir.resolve("graph.bin");
+        new RoadGraphBuilder().read(extract).write(graph);
+        return RoadGraph.open(graph);
+    }
+}
@@ -0,0 +1,98 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final MapService mapService = new MapService();
+
+    @Test
+    void directionsJson_hasBboxAndLevelsCoarseToFine() throws Exception {
+        JsonNode json = MAPPER.readTree(mapService.directionsJson(route(16.37, 48.2, 2000)));
+
+        assertEquals(4, json.path("bbox").size());
+        assertEquals(16.37, json.path("bbox").path(0).asDouble(), 1e-5);
+        JsonNode route = json.path("routes").path(0);
+        assertEquals(1, json.path("routes").size());
+        assertEquals("#3388ff", route.path("color").asText());
+
+        JsonNode levels = route.path("levels");
+        assertTrue(levels.size() >= 1);
+        for (int i = 1; i < levels.size(); i++) {
+            assertTrue(levels.path(i).path("maxZoom").asInt() > levels.path(i - 1).path("maxZoom").asInt());
+        }
+        JsonNode finest = levels.path(levels.size() - 1).path("geometry");
+        assertEquals("LineString", finest.path("type").asText());
+        assertEquals(2000, finest.path("coordinates").size());
+    }
+
+    @Test
+    void comparisonJson_drawsOnlyRoutedProfilesInTheirColours() throws Exception {
+        RouteComparison comparison = new RouteComparison(List.of(
+                new RouteComparison.Entry("foot-walking", route(16.37, 48.2, 50), null),
+                new RouteComparison.Entry("cycling-regular", null, "no route"),
+                new RouteComparison.Entry("driving-car", route(16.0, 48.0, 50), null)));
+
+        JsonNode json = MAPPER.readTree(mapService.comparisonJson(comparison));
+
+        JsonNode routes = json.path("routes");
+        assertEquals(2, routes.size());
+        assertEquals("foot-walking", routes.path(0).path("name").asText());
+        assertEquals(MapService.colorFor("foot-walking"), routes.path(0).path("color").asText());
+        assertEquals("driving-car", routes.path(1).path("name").asText());
+        assertEquals(16.0, json.path("bbox").path(0).asDouble(), 1e-5);
+    }
+
+    @Test
+    void overviewJson_sendsOnlyCoarseLevelsAsFlatRoundedCoordinates() throws Exception {
+        Tour car = new Tour("Car", "", "A", "B", "driving-car", 0, null, null);
+        car.setId(3L);
+        Tour bike = new Tour("Bike", "", "C", "D", "cycling-regular", 0, null, null);
+        bike.setId(4L);
+        Map<Tour, RouteResult> routes = new LinkedHashMap<>();
+        routes.put(car, route(16.37, 48.2, 2000));
+        routes.put(bike, route(15.4, 47.1, 2000));
+
+        JsonNode json = MAPPER.readTree(mapService.overviewJson(routes));
+
+        assertEquals(2, json.size());
+        JsonNode first = json.path(0);
+        assertEquals(3, first.path("id").asLong());
+        assertEquals("Car", first.path("name").asText());
+        assertEquals(MapService.colorFor("cycling-regular"), json.path(1).path("color").asText());
+
+        JsonNode levels = first.path("levels");
+        JsonNode last = levels.path(levels.size() - 1);
+        assertEquals(RouteLevels.FULL_DETAIL_ZOOM, last.path("maxZoom").asInt(), "the finest level serves every deeper zoom");
+        JsonNode coordinates = last.path("coordinates");
+        RouteGeometry detail = RouteSimplifier.simplify(routes.get(car).getGeometry(),
+                RouteSimplifier.pixelSizeDegrees(MapService.OVERVIEW_DETAIL_ZOOM));
+        assertEquals(2 * detail.size(), coordinates.size());
+        assertTrue(coordinates.size() < 2 * 2000, "full detail is never sent");
+        assertEquals(16.37, coordinates.path(0).asDouble(), 1e-9);
+        assertEquals(48.2, coordinates.path(1).asDouble(), 1e-9);
+        for (JsonNode v : coordinates) {
+            assertEquals(v.asDouble(), Math.round(v.asDouble() * 1e5) / 1e5, 1e-12);
+        }
+    }
+
+    private static RouteResult route(double lon, double lat, int points) {
+        RouteGeometry.Builder builder = new RouteGeometry.Builder(points);
+        for (int i = 0; i < points; i++) {
+            builder.add(lon + i * 1e-4, lat + Math.sin(i / 20.0) * 1e-3);
+        }
+        RouteGeometry geometry = builder.build();
+        return new RouteResult(points * 10.0, points, geometry, geometry.bbox());
+    }
+}
@@ -0,0 +1,94 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapViewportTest {
+
+    // Vienna to Graz
+    private static final double[] BBOX = {15.43, 47.07, 16.37, 48.21};
+
+    @Test
+    void fit_showsTheWholeBoxCentred() {
+        MapViewport viewport = new MapViewport(800, 600);
+
+        viewport.fit(BBOX, 20);
+
+        assertTrue(viewport.screenX(BBOX[0]) >= 20 - 1e-6 && viewport.screenX(BBOX[2]) <= 780 + 1e-6);
+        assertTrue(viewport.screenY(BBOX[3]) >= 20 - 1e-6 && viewport.screenY(BBOX[1]) <= 580 + 1e-6);
+        assertEquals(400, (viewport.screenX(BBOX[0]) + viewport.screenX(BBOX[2])) / 2, 1e-6);
+        assertEquals(300, (viewport.screenY(BBOX[1]) + viewport.screenY(BBOX[3])) / 2, 1e-6);
+        // A quarter zoom step further and the height no longer fits
+        MapViewport closer = new MapViewport(800, 600);
+        closer.fit(BBOX, 20);
+        closer.zoomAt(closer.getZoom() + 0.25, 400, 300);
+        assertTrue(closer.screenY(BBOX[1]) - closer.screenY(BBOX[3]) > 560);
+    }
+
+    @Test
+    void zoomAt_keepsThePlaceUnderTheMouse() {
+        MapViewport viewport = new MapViewport(800, 600);
+        double lon = viewport.lon(120), lat = viewport.lat(450);
+
+        viewport.zoomAt(9.6, 120, 450);
+
+        assertEquals(9.6, viewport.getZoom(), 1e-12);
+        assertEquals(120, viewport.screenX(lon), 1e-6);
+        assertEquals(450, viewport.screenY(lat), 1e-6);
+
+        viewport.zoomAt(40, 0, 0);
+        assertEquals(MapViewport.MAX_ZOOM, viewport.getZoom());
+    }
+
+    @Test
+    void panBy_movesTheContentWithTheMouse() {
+        MapViewport viewport = new MapViewport(800, 600);
+        double x = viewport.screenX(16.37), y = viewport.screenY(48.21);
+
+        viewport.panBy(35, -12);
+
+        assertEquals(x + 35, viewport.screenX(16.37), 1e-6);
+        assertEquals(y - 12, viewport.screenY(48.21), 1e-6);
+    }
+
+    @Test
+    void visibleTiles_coverTheScreenWithoutGaps() {
+        MapViewport viewport = new MapViewport(800, 600);
+        viewport.zoomAt(7.4, 400, 300);
+
+        List<MapViewport.TileView> tiles = viewport.visibleTiles();
+
+        assertEquals(7, tiles.get(0).getZ());
+        double size = tiles.get(0).getSize();
+        assertEquals(256 * Math.pow(2, 0.4), size, 1e-9);
+        for (int sx = 0; sx < 800; sx += 37) {
+            for (int sy = 0; sy < 600; sy += 37) {
+                final int px = sx, py = sy;
+                assertEquals(1, tiles.stream().filter(t -> px >= t.getScreenX() && px < t.getScreenX() + t.getSize()
+                        && py >= t.getScreenY() && py < t.getScreenY() + t.getSize()).count());
+            }
+        }
+        // Vienna is drawn from tile 7/69/44
+        double x = viewport.screenX(16.37), y = viewport.screenY(48.21);
+        MapViewport.TileView vienna = tiles.stream().filter(t -> x >= t.getScreenX() && x < t.getScreenX() + t.getSize()
+                && y >= t.getScreenY() && y < t.getScreenY() + t.getSize()).findFirst().orElseThrow();
+        assertEquals(69, vienna.getX());
+        assertEquals(44, vienna.getY());
+    }
+
+    @Test
+    void visibleTiles_wrapAroundTheDateLineAndStopAtThePoles() {
+        MapViewport viewport = new MapViewport(1200, 900);
+        viewport.zoomAt(1, 600, 450);
+        viewport.panBy(-viewport.screenX(180) + 600, 0);
+
+        List<MapViewport.TileView> tiles = viewport.visibleTiles();
+
+        assertTrue(tiles.stream().allMatch(t -> t.getX() >= 0 && t.getX() < 2 && t.getY() >= 0 && t.getY() < 2));
+        assertTrue(tiles.stream().anyMatch(t -> t.getX() == 0 && t.getScreenX() >= 600 - 1e-6),
+                "east of the date line the map starts over");
+    }
+}
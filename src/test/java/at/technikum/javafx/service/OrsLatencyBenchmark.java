@@ -0,0 +1,136 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+// End-to-end route benchmarks against OrsStubServer, so they run offline and without an API key.
+// Not a unit test; run the main method. Scenarios:
+//  latency     one route at a time (geocode x2 + directions), cold geocode cache
+//  throughput  RouteEnrichmentService importing a batch of tours
+//  quota       30 % of ORS answers are 429 with Retry-After
+//  outage      ORS answers 503 for every request until the breaker opens
+public class OrsLatencyBenchmark {
+
+    private static final long STUB_LATENCY_MS = 40;
+    private static final long STUB_JITTER_MS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int tours = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Path tmp = Files.createTempDirectory("ors-bench");
+
+        try (OrsStubServer stub = new OrsStubServer()) {
+            stub.latency(STUB_LATENCY_MS, STUB_JITTER_MS).syntheticRoutePoints(2_000);
+
+            latency(stub, tmp, Math.min(tours, 50));
+            throughput(stub, tmp, tours);
+            quota(stub, tmp, tours);
+            outage(stub, tmp);
+        }
+    }
+
+    private static void latency(OrsStubServer stub, Path tmp, int tours) throws IOException {
+        RouteService routes = new RouteService(service(stub, tmp, "latency", 1_000, 1_000));
+        long[] samples = new long[tours];
+        for (int i = 0; i < tours; i++) {
+            Tour tour = tour("latency", i);
+            long start = System.nanoTime();
+            routes.applyRoute(tour);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        System.out.printf(Locale.ROOT, "latency     %d routes, stub %d-%d ms: p50 %.1f ms, p95 %.1f ms, max %.1f ms%n",
+                tours, STUB_LATENCY_MS, STUB_LATENCY_MS + STUB_JITTER_MS,
+                samples[tours / 2] / 1e6, samples[(int) (tours * 0.95)] / 1e6, samples[tours - 1] / 1e6);
+    }
+
+    private static void throughput(OrsStubServer stub, Path tmp, int tours) throws IOException {
+        stub.resetStats();
+        RouteEnrichmentService enrichment = new RouteEnrichmentService(
+                new RouteService(service(stub, tmp, "throughput", 1_000, 1_000)), 8);
+        List<Tour> batch = tours("throughput", tours);
+
+        long start = System.nanoTime();
+        RouteEnrichmentResult result = enrichment.enrichAll(batch, null);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "throughput  %d tours in %.2f s: %.1f tours/s, %d failed, max %d concurrent ORS requests%n",
+                tours, seconds, tours / seconds, result.getFailed().size(), stub.getMaxConcurrent());
+    }
+
+    private static void quota(OrsStubServer stub, Path tmp, int tours) throws IOException {
+        stub.resetStats();
+        stub.errorRate(0.3, 429, 1);
+        try {
+            OrsService ors = service(stub, tmp, "quota", 1_000, 1_000);
+            RouteEnrichmentService enrichment = new RouteEnrichmentService(new RouteService(ors), 8);
+
+            long start = System.nanoTime();
+            RouteEnrichmentResult result = enrichment.enrichAll(tours("quota", tours), null);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long requests = stub.getRequests("geocode") + stub.getRequests("directions");
+            System.out.printf(Locale.ROOT, "quota       %d tours in %.2f s with 30%% 429s: %d enriched, %d failed, "
+                            + "%d requests (%d rejected), breaker %s%n",
+                    tours, seconds, result.getEnriched(), result.getFailed().size(),
+                    requests, stub.getErrors(), ors.getCircuitState());
+        } finally {
+            stub.errorRate(0, 503, null);
+        }
+    }
+
+    private static void outage(OrsStubServer stub, Path tmp) throws IOException {
+        stub.resetStats();
+        stub.errorRate(1.0, 503, null);
+        try {
+            OrsService ors = service(stub, tmp, "outage", 1_000, 1_000);
+            RouteService routes = new RouteService(ors);
+            List<String> timings = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                long start = System.nanoTime();
+                try {
+                    routes.applyRoute(tour("outage", i));
+                } catch (RuntimeException expected) {
+                    // every call fails, only how fast it fails matters
+                }
+                timings.add(String.format(Locale.ROOT, "%.0f ms", (System.nanoTime() - start) / 1e6));
+            }
+            System.out.printf(Locale.ROOT, "outage      failing routes took %s, %d requests reached ORS, breaker %s%n",
+                    timings, stub.getRequests("geocode") + stub.getRequests("directions"), ors.getCircuitState());
+        } finally {
+            stub.errorRate(0, 503, null);
+        }
+    }
+
+    // Rates far above the stub's capacity so the stub, not the limiter, is what gets measured
+    private static OrsService service(OrsStubServer stub, Path tmp, String name,
+                                      double geocodeRate, double directionsRate) {
+        Properties config = new Properties();
+        config.setProperty("ors.rate.geocode", String.valueOf(geocodeRate));
+        config.setProperty("ors.rate.geocode.burst", String.valueOf(geocodeRate));
+        config.setProperty("ors.rate.directions", String.valueOf(directionsRate));
+        config.setProperty("ors.rate.directions.burst", String.valueOf(directionsRate));
+        config.setProperty("ors.retry.base-delay-ms", "50");
+        config.setProperty("ors.retry.max-delay-ms", "2000");
+        GeocodeCache cache = new GeocodeCache(tmp.resolve(name + "-geocode.json"), 10_000, Duration.ofDays(1), Clock.systemUTC());
+        return new OrsService(stub.getBaseUrl(), "bench-key", config, cache);
+    }
+
+    private static List<Tour> tours(String prefix, int count) {
+        List<Tour> tours = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) tours.add(tour(prefix, i));
+        return tours;
+    }
+
+    private static Tour tour(String prefix, int i) {
+        return new Tour(prefix + " " + i, "", prefix + " start " + i, prefix + " end " + i,
+                "cycling-regular", 0, null, null);
+    }
+}
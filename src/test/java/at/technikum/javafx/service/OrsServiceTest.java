@@ -0,0 +1,261 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrsServiceTest {
+
+    @TempDir Path tempDir;
+
+    private OrsStubServer stub;
+    // Closed after each test, also when it fails
+    private final List<OrsService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new OrsStubServer().loadRecordings(OrsStubServer.DEFAULT_RECORDINGS).syntheticFallback(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(OrsService::close);
+        stub.close();
+    }
+
+    @Test
+    void geocode_replaysRecordingAndServesRepeatsFromCache() {
+        OrsService ors = service(cache(Duration.ofHours(1)));
+
+        Optional<GeocodeResult> first = ors.geocode("Wien");
+        Optional<GeocodeResult> second = ors.geocode(" wien ");
+
+        assertTrue(first.isPresent());
+        assertEquals(48.208354, first.get().getLatitude(), 1e-9);
+        assertEquals(16.372504, second.orElseThrow().getLongitude(), 1e-9);
+        assertEquals(1, stub.getRequests("geocode"));
+    }
+
+    @Test
+    void geocode_returnsEmptyWhenNothingMatches() {
+        assertTrue(service(cache(Duration.ofHours(1))).geocode("Nowhere Special").isEmpty());
+    }
+
+    @Test
+    void directions_parsesRecordedRoute() {
+        RouteResult route = service(cache(Duration.ofHours(1)))
+                .directions("driving-car", 16.372504, 48.208354, 15.438279, 47.07087)
+                .orElseThrow();
+
+        assertEquals(199461.4, route.getDistance(), 1e-6);
+        assertEquals(7531.2, route.getDuration(), 1e-6);
+        assertEquals(7, route.getPointCount());
+        assertArrayEquals(new double[]{15.438279, 47.07087, 16.372504, 48.208354}, route.getBbox(), 1e-9);
+        assertEquals(1, stub.getGzipResponses());
+    }
+
+    @Test
+    void geocodeAsync_completesWithTheResult() throws Exception {
+        CompletableFuture<Optional<GeocodeResult>> call = service(cache(Duration.ofHours(1))).geocodeAsync("Wien");
+
+        assertEquals(48.208354, call.get(5, TimeUnit.SECONDS).orElseThrow().getLatitude(), 1e-9);
+        assertEquals(1, stub.getRequests("geocode"));
+    }
+
+    @Test
+    void cancellingAsyncCall_abortsTheRequestWithoutRetrying() throws Exception {
+        stub.latency(1000, 0);
+        OrsService ors = service(cache(Duration.ofHours(1)));
+        CompletableFuture<Optional<RouteResult>> call =
+                ors.directionsAsync("driving-car", 16.372504, 48.208354, 15.438279, 47.07087);
+        while (stub.getRequests("directions") == 0) Thread.sleep(10);
+
+        long start = System.nanoTime();
+        call.cancel(true);
+
+        assertThrows(CancellationException.class, call::join);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        Thread.sleep(1200);
+        assertEquals(1, stub.getRequests("directions"));
+        assertEquals(CircuitBreaker.State.CLOSED, ors.getCircuitState());
+    }
+
+    @Test
+    void cancelUpstream_cancelsTheCallTheResultWasDerivedFrom() {
+        CompletableFuture<String> http = new CompletableFuture<>();
+        CompletableFuture<Integer> parsed = OrsService.cancelUpstream(http, http.thenApply(String::length));
+
+        parsed.cancel(true);
+
+        assertTrue(http.isCancelled());
+    }
+
+    @Test
+    void await_rethrowsTheCauseInsteadOfCompletionException() {
+        OrsException failure = new OrsException("ORS geocode failed: HTTP 403", 403, null);
+
+        OrsException thrown = assertThrows(OrsException.class,
+                () -> OrsService.await(CompletableFuture.failedFuture(failure)));
+
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    void isochrone_parsesPolygonAndCachesNearbyRepeats() {
+        stub.syntheticFallback(true);
+        OrsService ors = service(cache(Duration.ofHours(1)));
+
+        Isochrone area = ors.isochrone("driving-car", 16.372504, 48.208354, 600).orElseThrow();
+        // A few metres away rounds to the same request
+        ors.isochrone("driving-car", 16.37251, 48.20836, 600).orElseThrow();
+
+        assertEquals(600, area.getSeconds());
+        assertEquals(1, area.getRings().size());
+        assertTrue(area.contains(16.372504, 48.208354));
+        assertFalse(area.contains(16.6, 48.208354));
+        assertEquals(1, stub.getRequests("isochrones"));
+    }
+
+    @Test
+    void requestTimeout_isRetriedAsTransportFailure() {
+        stub.latency(300, 0);
+        Properties config = config();
+        config.setProperty("ors.http.request-timeout-ms", "100");
+        config.setProperty("ors.retry.max-attempts", "2");
+        OrsService ors = service(config, cache(Duration.ofHours(1)));
+
+        OrsException e = assertThrows(OrsException.class, () -> ors.geocode("Wien"));
+
+        assertEquals(-1, e.getStatusCode());
+        assertEquals(2, stub.getRequests("geocode"));
+    }
+
+    @Test
+    void retriesQuotaAndServerErrorsUntilSuccess() {
+        stub.failNext(503, 429).retryAfter(0);
+
+        Optional<GeocodeResult> result = service(cache(Duration.ofHours(1))).geocode("Graz");
+
+        assertTrue(result.isPresent());
+        assertEquals(3, stub.getRequests("geocode"));
+    }
+
+    @Test
+    void retryAfterLongerThanTheMaxDelay_failsInsteadOfRetryingEarly() {
+        stub.failNext(429).retryAfter(60);
+        Properties config = config();
+        config.setProperty("ors.retry.max-delay-ms", "1000");
+        OrsService ors = service(config, cache(Duration.ofHours(1)));
+
+        OrsException e = assertThrows(OrsException.class, () -> ors.geocode("Graz"));
+
+        assertEquals(429, e.getStatusCode());
+        assertEquals(Duration.ofSeconds(60), e.getRetryAfter());
+        assertEquals(1, stub.getRequests("geocode"));
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        OrsService ors = service(cache(Duration.ofHours(1)));
+
+        OrsException e = assertThrows(OrsException.class,
+                () -> ors.directions("foot-walking", 16.372504, 48.208354, 15.438279, 47.07087));
+
+        assertEquals(404, e.getStatusCode());
+        assertEquals(1, stub.getRequests("directions"));
+        assertEquals(CircuitBreaker.State.CLOSED, ors.getCircuitState());
+    }
+
+    @Test
+    void unexpectedDirectionsBodyIsNotRetried() throws Exception {
+        Path recordings = tempDir.resolve("array-body.json");
+        Files.writeString(recordings, """
+                [{"method":"POST","path":"/v2/directions/driving-car/geojson",
+                  "body":{"coordinates":[[16.0,48.0],[15.0,47.0]]},"status":200,"response":[]}]
+                """);
+        stub.loadRecordings(recordings);
+        OrsService ors = service(cache(Duration.ofHours(1)));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> ors.directions("driving-car", 16.0, 48.0, 15.0, 47.0));
+
+        assertFalse(e instanceof OrsException);
+        assertEquals(1, stub.getRequests("directions"));
+    }
+
+    @Test
+    void outage_opensBreakerAndFallsBackToStaleCache() throws Exception {
+        GeocodeCache cache = cache(Duration.ofMillis(1));
+        OrsService ors = service(cache);
+        ors.geocode("Wien");
+        Thread.sleep(10);
+
+        stub.errorRate(1.0, 503, null);
+        Optional<GeocodeResult> stale = ors.geocode("Wien");
+        OrsException e = assertThrows(OrsException.class, () -> ors.geocode("Graz"));
+
+        assertEquals(48.208354, stale.orElseThrow().getLatitude(), 1e-9);
+        assertEquals(503, e.getStatusCode());
+        assertEquals(CircuitBreaker.State.OPEN, ors.getCircuitState());
+    }
+
+    @Test
+    void cancelledHalfOpenTrial_doesNotBlockLaterRequests() {
+        Properties config = config();
+        config.setProperty("ors.breaker.open-seconds", "0");
+        OrsService ors = service(config, cache(Duration.ofHours(1)));
+        stub.errorRate(1.0, 503, null);
+        assertThrows(OrsException.class, () -> ors.geocode("Graz"));
+        assertEquals(CircuitBreaker.State.OPEN, ors.getCircuitState());
+
+        stub.errorRate(0, 503, null).latency(500, 0);
+        ors.matrixAsync("driving-car", List.of(new double[]{16.372504, 48.208354}),
+                List.of(new double[]{15.438279, 47.07087})).cancel(true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, ors.getCircuitState());
+
+        stub.latency(0, 0);
+        assertTrue(ors.geocode("Wien").isPresent());
+        assertEquals(CircuitBreaker.State.CLOSED, ors.getCircuitState());
+    }
+
+    private OrsService service(GeocodeCache cache) {
+        return service(config(), cache);
+    }
+
+    private OrsService service(Properties config, GeocodeCache cache) {
+        OrsService ors = new OrsService(stub.getBaseUrl(), "test-key", config, cache);
+        services.add(ors);
+        return ors;
+    }
+
+    private static Properties config() {
+        Properties config = new Properties();
+        config.setProperty("ors.rate.geocode", "1000");
+        config.setProperty("ors.rate.directions", "1000");
+        config.setProperty("ors.rate.isochrones", "1000");
+        config.setProperty("ors.retry.max-attempts", "3");
+        config.setProperty("ors.retry.base-delay-ms", "5");
+        config.setProperty("ors.retry.max-delay-ms", "20");
+        config.setProperty("ors.breaker.failure-threshold", "3");
+        return config;
+    }
+
+    private GeocodeCache cache(Duration ttl) {
+        return new GeocodeCache(tempDir.resolve("geocode-cache.json"), 100, ttl, Clock.systemUTC());
+    }
+}
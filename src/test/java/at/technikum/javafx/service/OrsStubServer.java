@@ -0,0 +1,465 @@
+package at.technikum.javafx.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+// Local stand-in for the ORS endpoints OrsService uses (/geocode/search, /v2/directions/{profile}/geojson,
+// /v2/matrix/{profile}, /v2/isochrones/{profile}).
+//
+// Modes:
+//  - replay: answers from recorded exchanges (see /ors-stub/recordings.json); unknown requests get a
+//    synthetic answer, or 404 when synthetic answers are disabled
+//  - record: forwards to a real ORS instance and keeps every exchange, so save() can write a new recording
+// On top of both, a fixed + random latency and scripted or random 429/5xx answers can be injected.
+//
+// Run main() to point the app at it: set ors.base.url=http://localhost:8089 in ors.properties.
+public class OrsStubServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OrsStubServer.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final String DEFAULT_RECORDINGS = "/ors-stub/recordings.json";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Recording> recordings = new ConcurrentHashMap<>();
+    private final List<ObjectNode> recorded = new ArrayList<>();
+
+    private volatile String upstreamUrl;
+    private volatile String upstreamKey;
+    private volatile boolean syntheticFallback = true;
+    private volatile int syntheticRoutePoints = 500;
+    private volatile long latencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile Integer retryAfterSeconds;
+    private final ConcurrentLinkedQueue<Integer> scriptedStatuses = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong gzipResponses = new AtomicLong();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    private final HttpClient upstream = HttpClient.newHttpClient();
+
+    public OrsStubServer() throws IOException {
+        this(0);
+    }
+
+    // Port 0 picks a free port
+    public OrsStubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        log.info("ORS stub listening on {}", getBaseUrl());
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // --- Configuration ---
+
+    public OrsStubServer loadRecordings(String resource) throws IOException {
+        try (InputStream in = OrsStubServer.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IOException("Recording " + resource + " not found on classpath");
+            addRecordings(MAPPER.readTree(in));
+        }
+        return this;
+    }
+
+    public OrsStubServer loadRecordings(Path file) throws IOException {
+        addRecordings(MAPPER.readTree(file.toFile()));
+        return this;
+    }
+
+    public OrsStubServer record(String upstreamUrl, String apiKey) {
+        this.upstreamUrl = upstreamUrl;
+        this.upstreamKey = apiKey;
+        return this;
+    }
+
+    public OrsStubServer syntheticFallback(boolean enabled) {
+        this.syntheticFallback = enabled;
+        return this;
+    }
+
+    public OrsStubServer syntheticRoutePoints(int points) {
+        this.syntheticRoutePoints = points;
+        return this;
+    }
+
+    public OrsStubServer latency(long millis, long jitterMillis) {
+        this.latencyMillis = millis;
+        this.latencyJitterMillis = jitterMillis;
+        return this;
+    }
+
+    // Every request fails with the given status with this probability
+    public OrsStubServer errorRate(double rate, int status, Integer retryAfterSeconds) {
+        this.errorRate = rate;
+        this.errorStatus = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    // The next requests answer with these statuses in order (200 lets a request through)
+    public OrsStubServer failNext(int... statuses) {
+        for (int status : statuses) scriptedStatuses.add(status);
+        return this;
+    }
+
+    public OrsStubServer retryAfter(Integer seconds) {
+        this.retryAfterSeconds = seconds;
+        return this;
+    }
+
+    public void resetStats() {
+        requests.clear();
+        errors.set(0);
+        gzipResponses.set(0);
+        maxConcurrent.set(0);
+    }
+
+    // --- Statistics ---
+
+    public long getRequests(String endpoint) {
+        AtomicLong count = requests.get(endpoint);
+        return count == null ? 0 : count.get();
+    }
+
+    public long getErrors() { return errors.get(); }
+    public long getGzipResponses() { return gzipResponses.get(); }
+    public int getMaxConcurrent() { return maxConcurrent.get(); }
+
+    public void save(Path file) throws IOException {
+        ArrayNode root = MAPPER.createArrayNode();
+        synchronized (recorded) {
+            root.addAll(recorded);
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+        log.info("Saved {} recorded ORS exchanges to {}", root.size(), file);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    // --- Request handling ---
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int now = concurrent.incrementAndGet();
+        maxConcurrent.accumulateAndGet(now, Math::max);
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String endpoint = path.startsWith("/geocode") ? "geocode"
+                    : path.startsWith("/v2/directions") ? "directions"
+                    : path.startsWith("/v2/matrix") ? "matrix"
+                    : path.startsWith("/v2/isochrones") ? "isochrones" : "other";
+            requests.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+            byte[] body = exchange.getRequestBody().readAllBytes();
+
+            sleep(latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis) : 0));
+
+            Integer scripted = scriptedStatuses.poll();
+            int injected = scripted != null ? scripted
+                    : errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate ? errorStatus : 200;
+            if (injected != 200) {
+                errors.incrementAndGet();
+                if (retryAfterSeconds != null && (injected == 429 || injected == 503)) {
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                }
+                send(exchange, injected, "{\"error\":{\"code\":" + injected + ",\"message\":\"injected by stub\"}}");
+                return;
+            }
+
+            String key = key(exchange.getRequestMethod(), path, exchange.getRequestURI().getRawQuery(), body);
+            if (upstreamUrl != null) {
+                forward(exchange, path, body, key);
+                return;
+            }
+
+            Recording recording = recordings.get(key);
+            if (recording != null) {
+                send(exchange, recording.status, recording.body);
+            } else if (syntheticFallback) {
+                send(exchange, 200, endpoint.equals("geocode") ? syntheticGeocode(exchange)
+                        : endpoint.equals("directions") ? syntheticDirections(body)
+                        : endpoint.equals("matrix") ? syntheticMatrix(body)
+                        : endpoint.equals("isochrones") ? syntheticIsochrone(body) : "{}");
+            } else {
+                send(exchange, 404, "{\"error\":\"no recording for " + key.replace("\"", "'") + "\"}");
+            }
+        } catch (Exception e) {
+            log.warn("ORS stub failed to answer {}", exchange.getRequestURI(), e);
+            send(exchange, 500, "{\"error\":\"stub failure\"}");
+        } finally {
+            concurrent.decrementAndGet();
+        }
+    }
+
+    private void forward(HttpExchange exchange, String path, byte[] body, String key) throws IOException, InterruptedException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) query = query.replaceAll("api_key=[^&]*", "api_key=" + upstreamKey);
+
+        HttpRequest.Builder req = HttpRequest.newBuilder()
+                .uri(URI.create(upstreamUrl + path + (query != null ? "?" + query : "")))
+                .header("Accept", "application/json, application/geo+json");
+        if (exchange.getRequestMethod().equals("POST")) {
+            req.header("Authorization", upstreamKey)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        }
+        HttpResponse<String> resp = upstream.send(req.build(), HttpResponse.BodyHandlers.ofString());
+
+        ObjectNode exchangeNode = MAPPER.createObjectNode();
+        exchangeNode.put("method", exchange.getRequestMethod());
+        exchangeNode.put("path", path);
+        exchangeNode.put("query", stripKey(exchange.getRequestURI().getRawQuery()));
+        if (body.length > 0) exchangeNode.set("body", MAPPER.readTree(body));
+        exchangeNode.put("status", resp.statusCode());
+        exchangeNode.set("response", MAPPER.readTree(resp.body()));
+        synchronized (recorded) {
+            recorded.add(exchangeNode);
+        }
+        recordings.put(key, new Recording(resp.statusCode(), resp.body()));
+        send(exchange, resp.statusCode(), resp.body());
+    }
+
+    // Compresses like ORS does whenever the client accepts gzip
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (accept != null && accept.toLowerCase(Locale.ROOT).contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            gzipResponses.incrementAndGet();
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void addRecordings(JsonNode root) throws IOException {
+        for (JsonNode node : root) {
+            byte[] body = node.hasNonNull("body") ? MAPPER.writeValueAsBytes(node.get("body")) : new byte[0];
+            String key = key(node.path("method").asText("GET"), node.path("path").asText(),
+                    node.path("query").isNull() ? null : node.path("query").asText(null), body);
+            recordings.put(key, new Recording(node.path("status").asInt(200), MAPPER.writeValueAsString(node.get("response"))));
+        }
+        log.info("ORS stub loaded {} recordings", recordings.size());
+    }
+
+    // Method, path, decoded query without api_key (sorted) and the JSON body in canonical form
+    private static String key(String method, String path, String rawQuery, byte[] body) throws IOException {
+        Map<String, String> params = new TreeMap<>();
+        String query = stripKey(rawQuery);
+        if (query != null && !query.isEmpty()) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                params.put(name, name.equals("text") ? GeocodeCache.normalize(value) : value);
+            }
+        }
+        String canonicalBody = body.length == 0 ? "" : MAPPER.writeValueAsString(MAPPER.readTree(body));
+        return method + " " + path + " " + params + " " + canonicalBody;
+    }
+
+    private static String stripKey(String rawQuery) {
+        if (rawQuery == null) return null;
+        return rawQuery.replaceAll("(^|&)api_key=[^&]*", "").replaceFirst("^&", "");
+    }
+
+    // --- Synthetic answers: deterministic, so repeated runs hit the same coordinates ---
+
+    private static String syntheticGeocode(HttpExchange exchange) {
+        String text = "";
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("text=")) text = URLDecoder.decode(pair.substring(5), StandardCharsets.UTF_8);
+            }
+        }
+        int h = GeocodeCache.normalize(text).hashCode();
+        // Somewhere in Austria
+        double lon = 9.6 + (Math.floorMod(h, 7_000) / 1_000.0);
+        double lat = 46.5 + (Math.floorMod(h >>> 8, 2_400) / 1_000.0);
+        return String.format(Locale.ROOT,
+                "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\"," +
+                        "\"geometry\":{\"type\":\"Point\",\"coordinates\":[%.6f,%.6f]}," +
+                        "\"properties\":{\"label\":\"%s\"},\"bbox\":[%.6f,%.6f,%.6f,%.6f]}]}",
+                lon, lat, text.replace("\"", "'"), lon - 0.01, lat - 0.01, lon + 0.01, lat + 0.01);
+    }
+
+    // One wiggly leg per pair of consecutive waypoints, each with its own segment
+    private String syntheticDirections(byte[] body) throws IOException {
+        JsonNode coords = MAPPER.readTree(body).path("coordinates");
+        int points = Math.max(2, syntheticRoutePoints);
+
+        StringBuilder line = new StringBuilder(points * 24 * Math.max(1, coords.size() - 1));
+        StringBuilder segments = new StringBuilder();
+        double total = 0;
+        double minLon = Double.POSITIVE_INFINITY, minLat = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        for (int leg = 0; leg + 1 < coords.size(); leg++) {
+            double fromLon = coords.path(leg).path(0).asDouble(), fromLat = coords.path(leg).path(1).asDouble();
+            double toLon = coords.path(leg + 1).path(0).asDouble(), toLat = coords.path(leg + 1).path(1).asDouble();
+            // Legs share their join point, so every leg after the first skips its own start
+            for (int i = leg == 0 ? 0 : 1; i < points; i++) {
+                double t = i / (double) (points - 1);
+                double wiggle = Math.sin(t * Math.PI * 12) * 0.01 * Math.sin(t * Math.PI);
+                if (line.length() > 0) line.append(',');
+                line.append(String.format(Locale.ROOT, "[%.6f,%.6f]",
+                        fromLon + (toLon - fromLon) * t + wiggle, fromLat + (toLat - fromLat) * t));
+            }
+            double distance = syntheticDistance(fromLon, fromLat, toLon, toLat);
+            if (segments.length() > 0) segments.append(',');
+            segments.append(String.format(Locale.ROOT, "{\"distance\":%.1f,\"duration\":%.1f}", distance, distance / 15));
+            total += distance;
+            minLon = Math.min(minLon, Math.min(fromLon, toLon));
+            minLat = Math.min(minLat, Math.min(fromLat, toLat));
+            maxLon = Math.max(maxLon, Math.max(fromLon, toLon));
+            maxLat = Math.max(maxLat, Math.max(fromLat, toLat));
+        }
+        return String.format(Locale.ROOT,
+                "{\"type\":\"FeatureCollection\",\"bbox\":[%.6f,%.6f,%.6f,%.6f],\"features\":[{" +
+                        "\"type\":\"Feature\",\"properties\":{\"segments\":[%s]," +
+                        "\"summary\":{\"distance\":%.1f,\"duration\":%.1f}}," +
+                        "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[%s]}}]}",
+                minLon - 0.01, minLat, maxLon + 0.01, maxLat, segments, total, total / 15, line);
+    }
+
+    // Same numbers as syntheticDirections for every source/destination pair
+    private static String syntheticMatrix(byte[] body) throws IOException {
+        JsonNode request = MAPPER.readTree(body);
+        JsonNode locations = request.path("locations");
+        ObjectNode response = MAPPER.createObjectNode();
+        ArrayNode distances = response.putArray("distances");
+        ArrayNode durations = response.putArray("durations");
+        for (JsonNode source : request.path("sources")) {
+            JsonNode from = locations.path(source.asInt());
+            ArrayNode distanceRow = distances.addArray();
+            ArrayNode durationRow = durations.addArray();
+            for (JsonNode destination : request.path("destinations")) {
+                JsonNode to = locations.path(destination.asInt());
+                double distance = syntheticDistance(from.path(0).asDouble(), from.path(1).asDouble(),
+                        to.path(0).asDouble(), to.path(1).asDouble());
+                distanceRow.add(Math.round(distance * 10) / 10.0);
+                durationRow.add(Math.round(distance / 15 * 10) / 10.0);
+            }
+        }
+        return MAPPER.writeValueAsString(response);
+    }
+
+    // Polygon of the points syntheticDistance puts within the time budget: an ellipse around the location
+    private static String syntheticIsochrone(byte[] body) throws IOException {
+        JsonNode request = MAPPER.readTree(body);
+        double lon = request.path("locations").path(0).path(0).asDouble();
+        double lat = request.path("locations").path(0).path(1).asDouble();
+        double seconds = request.path("range").path(0).asDouble();
+        double metres = seconds * 15 / 1.3;
+
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("type", "FeatureCollection");
+        ObjectNode feature = response.putArray("features").addObject();
+        feature.put("type", "Feature");
+        feature.putObject("properties").put("value", seconds).putArray("center").add(lon).add(lat);
+        ObjectNode geometry = feature.putObject("geometry");
+        geometry.put("type", "Polygon");
+        ArrayNode ring = geometry.putArray("coordinates").addArray();
+        for (int i = 0; i <= 64; i++) {
+            double angle = 2 * Math.PI * (i % 64) / 64;
+            ring.addArray()
+                    .add(lon + Math.cos(angle) * metres / 75_000)
+                    .add(lat + Math.sin(angle) * metres / 111_000);
+        }
+        return MAPPER.writeValueAsString(response);
+    }
+
+    private static double syntheticDistance(double fromLon, double fromLat, double toLon, double toLat) {
+        return Math.hypot((toLon - fromLon) * 75_000, (toLat - fromLat) * 111_000) * 1.3;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) Thread.sleep(millis);
+    }
+
+    private static final class Recording {
+        private final int status;
+        private final String body;
+
+        private Recording(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    // Usage: OrsStubServer [port] [recordings.json] | OrsStubServer <port> --record <upstream> <apiKey> <out.json>
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        OrsStubServer stub = new OrsStubServer(port);
+        if (args.length > 1 && args[1].equals("--record")) {
+            Path out = Path.of(args[4]);
+            stub.record(args[2], args[3]);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    stub.save(out);
+                } catch (IOException e) {
+                    log.error("Could not save recording", e);
+                }
+            }));
+        } else if (args.length > 1) {
+            stub.loadRecordings(Path.of(args[1]));
+        } else {
+            stub.loadRecordings(DEFAULT_RECORDINGS);
+        }
+        System.out.println("ORS stub running on " + stub.getBaseUrl() + ", Ctrl+C to stop");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,72 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Cost of preparing the overview map for many tours, as TourRouteView does on its first overview: decode the
+// stored geometry, simplify it and write the overview JSON in parallel chunks of 500. Not a unit test; run the
+// main method, e.g. OverviewDataBenchmark 10000 2000
+public class OverviewDataBenchmark {
+
+    public static void main(String[] args) {
+        int tours = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int points = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        List<Tour> stored = tours(tours, points);
+        MapService mapService = new MapService();
+        System.out.printf(Locale.ROOT, "%d tours with %d points each%n", tours, points);
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            AtomicLong chars = new AtomicLong();
+            int chunks = (stored.size() + 499) / 500;
+            IntStream.range(0, chunks).parallel().forEach(i -> {
+                Map<Tour, RouteResult> chunk = new LinkedHashMap<>();
+                for (Tour tour : stored.subList(i * 500, Math.min(stored.size(), (i + 1) * 500))) {
+                    RouteGeometry geometry = RouteGeometry.fromBytes(tour.getRouteGeometry());
+                    chunk.put(tour, new RouteResult(0, 0, geometry, geometry.bbox()));
+                }
+                try {
+                    chars.addAndGet(mapService.overviewJson(chunk).length());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            System.out.printf(Locale.ROOT, "round %d: %d ms, %d chunks on %d cores, %.1f MB of JSON%n",
+                    round, (System.nanoTime() - start) / 1_000_000, chunks,
+                    Runtime.getRuntime().availableProcessors(), chars.get() / 1e6);
+        }
+    }
+
+    // Wiggly routes of 20 to 200 km scattered over Austria
+    private static List<Tour> tours(int count, int points) {
+        Random random = new Random(1);
+        List<Tour> tours = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double lon = 9.5 + random.nextDouble() * 7.5, lat = 46.5 + random.nextDouble() * 2.5;
+            double length = 0.2 + random.nextDouble() * 1.8, heading = random.nextDouble() * 2 * Math.PI;
+            RouteGeometry.Builder b = new RouteGeometry.Builder(points);
+            for (int p = 0; p < points; p++) {
+                double t = p / (double) points;
+                heading += (random.nextDouble() - 0.5) * 0.3;
+                lon += Math.cos(heading) * length / points;
+                lat += Math.sin(heading) * length / points * 0.7;
+                b.add(lon, lat + Math.sin(t * 40) * 1e-3);
+            }
+            Tour tour = new Tour("Tour " + i, "", "A" + i, "B" + i, "driving-car", 0, null, null);
+            tour.setId((long) i);
+            tour.setRouteGeometry(b.build().toBytes());
+            tours.add(tour);
+        }
+        return tours;
+    }
+}
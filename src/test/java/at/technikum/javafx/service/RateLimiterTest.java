@@ -0,0 +1,33 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private long now = 0;
+
+    @Test
+    void reserve_allowsBurstThenAsksCallersToWait() {
+        RateLimiter limiter = new RateLimiter(2, 2, () -> now);
+
+        assertEquals(0, limiter.reserve(1));
+        assertEquals(0, limiter.reserve(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), limiter.reserve(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), limiter.reserve(1));
+    }
+
+    @Test
+    void reserve_refillsOverTimeUpToBurst() {
+        RateLimiter limiter = new RateLimiter(1, 3, () -> now);
+        limiter.reserve(3);
+
+        now += TimeUnit.SECONDS.toNanos(10);
+
+        assertEquals(0, limiter.reserve(3));
+        assertTrue(limiter.reserve(1) > 0);
+    }
+}
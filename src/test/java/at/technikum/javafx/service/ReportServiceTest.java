@@ -18,7 +18,7 @@ class ReportServiceHelperTest {
 
     @BeforeAll
     static void init() throws Exception {
-        svc = new ReportService(null);
+        svc = new ReportService(null, null, null, null);
 
         Class<?> cls = ReportService.class;
         safeParse = cls.getDeclaredMethod("safeParseSeconds", String.class);
@@ -0,0 +1,44 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCacheTest {
+
+    @Test
+    void put_evictsLeastRecentlyUsedRoutesOverBudget() {
+        RouteResult route = route(1_000);
+        long weight = RouteCache.weigh(route);
+        RouteCache cache = new RouteCache(weight * 2);
+
+        cache.put("a", route);
+        cache.put("b", route(1_000));
+        cache.get("a");
+        cache.put("c", route(1_000));
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getBytes() <= cache.getMaxBytes());
+    }
+
+    @Test
+    void put_skipsRoutesLargerThanTheWholeBudget() {
+        RouteCache cache = new RouteCache(100);
+
+        cache.put("huge", route(10_000));
+
+        assertEquals(0, cache.size());
+        assertTrue(cache.get("huge").isEmpty());
+        assertEquals(1, cache.getMisses());
+    }
+
+    private static RouteResult route(int points) {
+        RouteGeometry.Builder builder = new RouteGeometry.Builder(points);
+        for (int i = 0; i < points; i++) builder.add(16 + i * 0.0001, 48 + i * 0.0001);
+        RouteGeometry geometry = builder.build();
+        return new RouteResult(1, 1, geometry, geometry.bbox());
+    }
+}
@@ -0,0 +1,64 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteGeometryTest {
+
+    @Test
+    void of_quantizesToFiveDecimals() {
+        RouteGeometry geometry = RouteGeometry.of(16.3738189, 48.2081743, -0.1275, 51.50722);
+
+        assertArrayEquals(new double[]{16.37382, 48.20817, -0.1275, 51.50722}, geometry.toArray(), 1e-9);
+        assertArrayEquals(new double[]{-0.1275, 48.20817, 16.37382, 51.50722}, geometry.bbox(), 1e-9);
+    }
+
+    @Test
+    void fromBytes_roundTripsAndIteratesWithoutCopying() {
+        RouteGeometry original = RouteGeometry.of(16.3, 48.1, 16.31, 48.12, 16.2, 48.0);
+
+        RouteGeometry restored = RouteGeometry.fromBytes(original.toBytes());
+
+        assertEquals(original, restored);
+        assertEquals(3, restored.size());
+        List<Double> lats = new ArrayList<>();
+        restored.forEach((lon, lat) -> lats.add(lat));
+        assertEquals(List.of(48.1, 48.12, 48.0), lats);
+
+        RouteGeometry.Cursor cursor = restored.cursor();
+        assertTrue(cursor.next());
+        assertTrue(cursor.next());
+        assertEquals(16.31, cursor.lon(), 1e-9);
+        assertTrue(cursor.next());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void fromBytes_rejectsCorruptData() {
+        byte[] bytes = RouteGeometry.of(16.3, 48.1, 16.4, 48.2).toBytes();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> RouteGeometry.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> RouteGeometry.fromBytes(new byte[]{9, 5, 0}));
+    }
+
+    @Test
+    void tenThousandPointRoute_fitsInFourBytesPerPoint() {
+        double[] coords = new double[20_000];
+        for (int i = 0; i < 10_000; i++) {
+            // ~10-30 m between consecutive points, like an ORS cycling route
+            coords[2 * i] = 14.0 + i * 0.0002;
+            coords[2 * i + 1] = 47.0 + Math.sin(i / 40.0) * 0.05;
+        }
+
+        RouteGeometry geometry = RouteGeometry.of(coords);
+
+        assertEquals(10_000, geometry.size());
+        assertTrue(geometry.byteSize() <= 40_000, "encoded size was " + geometry.byteSize());
+    }
+}
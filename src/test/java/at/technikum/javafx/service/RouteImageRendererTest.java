@@ -0,0 +1,97 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteImageRendererTest {
+
+    @TempDir Path tempDir;
+
+    @BeforeAll
+    static void headless() {
+        // Reports are generated without a display, so the renderer must work headless
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    void fitZoom_picksTheHighestZoomThatFits() {
+        // Vienna to Graz: about 340 x 500 px at zoom 9
+        double[] bbox = {15.43, 47.07, 16.37, 48.21};
+        int zoom = RouteImageRenderer.fitZoom(bbox, 672, 672);
+
+        assertEquals(9, zoom);
+        assertTrue(RouteImageRenderer.worldY(bbox[1], zoom + 1) - RouteImageRenderer.worldY(bbox[3], zoom + 1) > 672,
+                "one zoom further the box no longer fits");
+        assertEquals(0, RouteImageRenderer.fitZoom(new double[]{-180, -85, 180, 85}, 200, 200));
+    }
+
+    @Test
+    void mercator_matchesTheTilePyramid() {
+        assertEquals(128, RouteImageRenderer.worldX(0, 0), 1e-9);
+        assertEquals(128, RouteImageRenderer.worldY(0, 0), 1e-9);
+        assertEquals(0, RouteImageRenderer.worldX(-180, 3), 1e-9);
+        assertEquals(0, RouteImageRenderer.worldY(90, 3), 1e-6, "poles are clamped to the square map");
+        // Vienna lies in tile 8/139/88
+        assertEquals(139, (int) (RouteImageRenderer.worldX(16.37, 8) / 256));
+        assertEquals(88, (int) (RouteImageRenderer.worldY(48.21, 8) / 256));
+    }
+
+    @Test
+    void render_drawsRouteOnCachedTiles() throws Exception {
+        TileCache cache = new TileCache(tempDir.resolve("tiles"), 10_000_000, Duration.ofDays(7), Clock.systemUTC());
+        cache.importTiles(Path.of(getClass().getResource("/tiles").toURI()));
+        // Spans most of the world, so the fixture tiles at zoom 1 are the background
+        RouteResult route = route(-120, -50, 120, 50);
+
+        BufferedImage image = new RouteImageRenderer(cache).render(route, "driving-car", 400, 400);
+
+        assertEquals(400, image.getWidth());
+        assertEquals(400, image.getHeight());
+        Color line = Color.decode(MapService.colorFor("driving-car"));
+        assertTrue(countColor(image, line) > 100, "route line is drawn in the profile colour");
+        assertTrue(countColor(image, new Color(0xF2EFE9)) < 400 * 400 / 2, "cached tiles cover the background");
+    }
+
+    @Test
+    void render_withoutCacheDrawsOnPlainBackground() {
+        RouteResult route = route(16.37, 48.21, 15.43, 47.07);
+
+        BufferedImage image = new RouteImageRenderer(null).render(route, "cycling-regular", 300, 200);
+
+        assertEquals(300, image.getWidth());
+        assertEquals(200, image.getHeight());
+        assertEquals(new Color(0xF2EFE9).getRGB(), image.getRGB(0, 0));
+        assertTrue(countColor(image, Color.decode(MapService.colorFor("cycling-regular"))) > 100);
+        // Start and end markers sit inside the padding, never on the border
+        assertEquals(new Color(0xF2EFE9).getRGB(), image.getRGB(299, 199));
+    }
+
+    private static RouteResult route(double fromLon, double fromLat, double toLon, double toLat) {
+        RouteGeometry.Builder b = new RouteGeometry.Builder(21);
+        for (int i = 0; i <= 20; i++) {
+            double t = i / 20.0;
+            b.add(fromLon + (toLon - fromLon) * t, fromLat + (toLat - fromLat) * t);
+        }
+        RouteGeometry geometry = b.build();
+        return new RouteResult(100_000, 3_600, geometry, geometry.bbox());
+    }
+
+    private static int countColor(BufferedImage image, Color color) {
+        int count = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) == (color.getRGB() & 0xFFFFFF)) count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,60 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteLevelsTest {
+
+    @Test
+    void simplify_dropsCollinearPointsButKeepsCorners() {
+        RouteGeometry geometry = RouteGeometry.of(
+                16.0, 48.0,
+                16.1, 48.0,
+                16.2, 48.0,
+                16.2, 48.1,
+                16.2, 48.2
+        );
+
+        RouteGeometry simplified = RouteSimplifier.simplify(geometry, 0.001);
+
+        assertArrayEquals(new double[]{16.0, 48.0, 16.2, 48.0, 16.2, 48.2}, simplified.toArray(), 1e-9);
+    }
+
+    @Test
+    void build_createsCoarseToFinePyramidEndingInFullGeometry() {
+        RouteGeometry geometry = wigglyRoute(10_000);
+
+        RouteLevels levels = RouteLevels.build(geometry);
+
+        List<RouteLevels.Level> all = levels.getLevels();
+        assertTrue(all.size() > 1);
+        assertSame(geometry, all.get(all.size() - 1).getGeometry());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getMaxZoom() < all.get(i).getMaxZoom());
+            assertTrue(all.get(i - 1).getGeometry().size() < all.get(i).getGeometry().size());
+        }
+        assertTrue(levels.forZoom(5).size() < geometry.size() / 10);
+        assertSame(geometry, levels.forZoom(18));
+    }
+
+    @Test
+    void build_keepsSingleLevelForShortRoutes() {
+        RouteGeometry geometry = RouteGeometry.of(16.0, 48.0, 16.1, 48.1);
+
+        RouteLevels levels = RouteLevels.build(geometry);
+
+        assertEquals(1, levels.getLevels().size());
+        assertSame(geometry, levels.forZoom(3));
+    }
+
+    private static RouteGeometry wigglyRoute(int points) {
+        RouteGeometry.Builder builder = new RouteGeometry.Builder(points);
+        for (int i = 0; i < points; i++) {
+            builder.add(14.0 + i * 0.0002, 47.0 + Math.sin(i / 40.0) * 0.05 + Math.sin(i / 3.0) * 0.0001);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,91 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoutePrefetcherTest {
+
+    @Mock IRouteService routeService;
+
+    private RoutePrefetcher prefetcher;
+    private final List<Tour> tours = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        prefetcher = new RoutePrefetcher(routeService, 2, Duration.ofMillis(1));
+        for (int i = 0; i < 7; i++) {
+            Tour tour = new Tour();
+            tour.setName("Tour " + i);
+            tours.add(tour);
+        }
+        when(routeService.needsRoute(any())).thenReturn(true);
+    }
+
+    @Test
+    void prefetchAround_warmsNearestNeighboursFirstAlternatingDownAndUp() {
+        when(routeService.prefetchAsync(any())).thenReturn(CompletableFuture.completedFuture(true));
+
+        prefetcher.prefetchAround(tours, 3);
+
+        verify(routeService, timeout(1000).times(4)).prefetchAsync(any());
+        InOrder order = inOrder(routeService);
+        order.verify(routeService).prefetchAsync(tours.get(4));
+        order.verify(routeService).prefetchAsync(tours.get(2));
+        order.verify(routeService).prefetchAsync(tours.get(5));
+        order.verify(routeService).prefetchAsync(tours.get(1));
+    }
+
+    @Test
+    void newSelection_cancelsTheCallInFlight() {
+        CompletableFuture<Boolean> inFlight = new CompletableFuture<>();
+        when(routeService.prefetchAsync(tours.get(4))).thenReturn(inFlight);
+        when(routeService.prefetchAsync(tours.get(1))).thenReturn(CompletableFuture.completedFuture(true));
+        when(routeService.prefetchAsync(tours.get(2))).thenReturn(CompletableFuture.completedFuture(true));
+
+        prefetcher.prefetchAround(tours, 3);
+        verify(routeService, timeout(1000)).prefetchAsync(tours.get(4));
+        prefetcher.prefetchAround(tours, 0);
+
+        assertTrue(inFlight.isCancelled());
+        verify(routeService, timeout(1000)).prefetchAsync(tours.get(2));
+        verify(routeService, never()).prefetchAsync(tours.get(5));
+    }
+
+    @Test
+    void failedNeighbour_doesNotStopTheOthers() {
+        when(routeService.prefetchAsync(any())).thenReturn(CompletableFuture.completedFuture(true));
+        doReturn(CompletableFuture.failedFuture(new IllegalArgumentException("No route found")))
+                .when(routeService).prefetchAsync(tours.get(4));
+
+        prefetcher.prefetchAround(tours, 3);
+
+        verify(routeService, timeout(1000)).prefetchAsync(tours.get(1));
+        verify(routeService).prefetchAsync(tours.get(2));
+        verify(routeService).prefetchAsync(tours.get(5));
+    }
+
+    @Test
+    void noSpareQuota_waitsThenGivesUpOnTheRemainingNeighbours() {
+        when(routeService.prefetchAsync(any())).thenReturn(CompletableFuture.completedFuture(false));
+
+        prefetcher.prefetchAround(tours, 3);
+
+        verify(routeService, timeout(1000).times(RoutePrefetcher.QUOTA_WAIT_ROUNDS)).prefetchAsync(tours.get(4));
+        verify(routeService, after(100).times(RoutePrefetcher.QUOTA_WAIT_ROUNDS)).prefetchAsync(any());
+    }
+}
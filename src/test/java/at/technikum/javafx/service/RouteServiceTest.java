@@ -0,0 +1,203 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteServiceTest {
+
+    @TempDir Path tempDir;
+
+    private OrsStubServer stub;
+    private OrsService orsService;
+    private RouteService routeService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new OrsStubServer().loadRecordings(OrsStubServer.DEFAULT_RECORDINGS);
+        Properties config = new Properties();
+        config.setProperty("ors.rate.geocode", "1000");
+        config.setProperty("ors.rate.directions", "1000");
+        config.setProperty("ors.rate.matrix", "1000");
+        config.setProperty("ors.matrix.max-elements", "100");
+        GeocodeCache cache = new GeocodeCache(tempDir.resolve("cache.json"), 100, Duration.ofHours(1), Clock.systemUTC());
+        orsService = new OrsService(stub.getBaseUrl(), "test-key", config, cache);
+        routeService = new RouteService(orsService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orsService.close();
+        stub.close();
+    }
+
+    @Test
+    void applyRoute_storesEndpointsDistanceTimeAndGeometry() {
+        Tour tour = new Tour("Trip", "", "Wien", "Graz", "Driving-Car", 0, null, null);
+
+        routeService.applyRoute(tour);
+
+        assertEquals(48.208354, tour.getFromLatitude(), 1e-9);
+        assertEquals(15.438279, tour.getToLongitude(), 1e-9);
+        assertEquals(199461.4, tour.getDistance(), 1e-6);
+        assertEquals("02:05:31", tour.getEstimatedTime());
+        assertFalse(routeService.needsRoute(tour));
+        assertEquals(7, routeService.storedRoute(tour).orElseThrow().getPointCount());
+    }
+
+    @Test
+    void needsRoute_whenEndpointsChange() {
+        Tour tour = new Tour("Trip", "", "Wien", "Graz", "driving-car", 0, null, null);
+        routeService.applyRoute(tour);
+
+        tour.setToLocation("Linz");
+
+        assertTrue(routeService.needsRoute(tour));
+        assertTrue(routeService.storedRoute(tour).isEmpty());
+    }
+
+    @Test
+    void routedCopyAsync_leavesTheTourUntilTheCopyIsTakenOver() throws Exception {
+        Tour tour = new Tour("Trip", "", "Wien", "Graz", "driving-car", 0, null, null);
+
+        Tour routed = routeService.routedCopyAsync(tour).get();
+
+        assertNotSame(tour, routed);
+        assertNull(tour.getRouteGeometry());
+        assertTrue(routeService.needsRoute(tour));
+        tour.copyRouteFrom(routed);
+        assertFalse(routeService.needsRoute(tour));
+        assertEquals(199461.4, tour.getDistance(), 1e-6);
+        assertEquals(7, routeService.storedRoute(tour).orElseThrow().getPointCount());
+    }
+
+    @Test
+    void prefetchAsync_warmsCachesWithoutTouchingTheTour() throws Exception {
+        Tour tour = new Tour("Trip", "", "Wien", "Graz", "driving-car", 0, null, null);
+
+        assertTrue(routeService.prefetchAsync(tour).get());
+        long requests = stub.getRequests("geocode") + stub.getRequests("directions");
+
+        assertNull(tour.getRouteGeometry());
+        routeService.applyRoute(tour);
+        assertEquals(requests, stub.getRequests("geocode") + stub.getRequests("directions"));
+        assertEquals(199461.4, tour.getDistance(), 1e-6);
+    }
+
+    @Test
+    void compareProfilesAsync_geocodesOnceAndRoutesProfilesConcurrently() throws Exception {
+        Tour tour = new Tour("Trip", "", "Wien", "Graz", "driving-car", 0, null, null);
+        stub.latency(200, 0);
+
+        RouteComparison comparison = routeService.compareProfilesAsync(tour, IRouteService.PROFILES).get();
+
+        assertEquals(2, stub.getRequests("geocode"));
+        assertEquals(3, stub.getRequests("directions"));
+        assertEquals(3, stub.getMaxConcurrent(), "all profiles are requested at the same time");
+        assertEquals(List.of("driving-car", "foot-walking", "cycling-regular"),
+                comparison.getEntries().stream().map(RouteComparison.Entry::getProfile).toList());
+        assertEquals(199461.4, comparison.getEntries().get(0).getRoute().getDistance(), 1e-6);
+        // The recording answers 404 for walking, which must not sink the other profiles
+        assertFalse(comparison.getEntries().get(1).isRouted());
+        assertTrue(comparison.getEntries().get(2).isRouted());
+        assertNotNull(comparison.getBbox());
+        assertNull(tour.getRouteGeometry(), "comparing does not change the tour");
+    }
+
+    @Test
+    void applyMetricsAsync_packsToursIntoFewMatrixCalls() throws Exception {
+        // 10 starts x 20 ends: at most 100 elements per call means two calls for all 200 tours
+        List<Tour> tours = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tours.add(new Tour("Trip " + i, "", "Town " + (i % 10), "Village " + (i / 10), "driving-car", 0, null, null));
+        }
+        tours.add(new Tour("Lost", "", "Nowhere Special", "Graz", "driving-car", 0, null, null));
+
+        List<Tour> failed = routeService.applyMetricsAsync(tours).get();
+
+        assertEquals(List.of(tours.get(200)), failed);
+        assertEquals(2, stub.getRequests("matrix"));
+        assertEquals(0, stub.getRequests("directions"));
+        assertTrue(routeService.needsRoute(tours.get(0)), "geometry is still fetched on demand");
+        assertFalse(routeService.needsMetrics(tours.get(0)));
+        assertTrue(routeService.needsMetrics(tours.get(200)));
+
+        Tour check = new Tour("Check", "", "Town 7", "Village 13", "driving-car", 0, null, null);
+        routeService.applyRoute(check);
+        Tour matrixTour = tours.get(137);
+        assertEquals(check.getDistance(), matrixTour.getDistance(), 0.1);
+        assertEquals(check.getEstimatedTime(), matrixTour.getEstimatedTime());
+        assertEquals(check.getFromLatitude(), matrixTour.getFromLatitude());
+    }
+
+    @Test
+    void applyMetricsAsync_usesStoredCoordinatesWhileTheEndpointsStayTheSame() throws Exception {
+        // Stored before route keys existed; the address itself would not geocode
+        Tour legacy = new Tour("Legacy", "", "Nowhere Special", "Graz", "driving-car", 0, null, null);
+        legacy.setFromLatitude(48.2);
+        legacy.setFromLongitude(16.37);
+        legacy.setToLatitude(47.07);
+        legacy.setToLongitude(15.44);
+
+        assertEquals(List.of(), routeService.applyMetricsAsync(List.of(legacy)).get());
+        assertEquals(0, stub.getRequests("geocode"));
+        assertEquals(1, stub.getRequests("matrix"));
+        assertFalse(routeService.needsMetrics(legacy));
+
+        legacy.setTransportType("cycling-regular");
+        assertTrue(routeService.needsMetrics(legacy));
+        assertEquals(List.of(), routeService.applyMetricsAsync(List.of(legacy)).get());
+        assertEquals(0, stub.getRequests("geocode"), "a new profile keeps the coordinates");
+
+        legacy.setFromLocation("Wien");
+        assertEquals(List.of(), routeService.applyMetricsAsync(List.of(legacy)).get());
+        assertEquals(2, stub.getRequests("geocode"), "a new address is looked up, with the other endpoint");
+        assertEquals(48.208354, legacy.getFromLatitude(), 1e-9);
+    }
+
+    @Test
+    void optimizeStopsAsync_reordersStopsWithOneMatrixCallAndRoutesThroughThem() throws Exception {
+        List<String> stops = List.of("Melk", "Tulln", "Krems", "Ybbs", "Stockerau", "Amstetten");
+        Tour given = new Tour("Loop", "", "Wien", "Linz", "driving-car", 0, null, null);
+        given.setStops(stops);
+        routeService.applyRoute(given);
+        long directionsBefore = stub.getRequests("directions");
+
+        Tour tour = new Tour("Loop", "", "Wien", "Linz", "driving-car", 0, null, null);
+        tour.setStops(stops);
+        Tour optimized = routeService.optimizeStopsAsync(tour).get();
+
+        assertEquals(1, stub.getRequests("matrix"));
+        assertEquals(directionsBefore + 1, stub.getRequests("directions"), "one directions call for all legs");
+        assertEquals(stops, tour.getStops(), "the tour itself is left alone");
+        assertNull(tour.getRouteGeometry());
+        assertEquals(Set.copyOf(stops), Set.copyOf(optimized.getStops()));
+        assertEquals(stops.size(), optimized.getStops().size());
+        // The stub's durations are proportional to distance, so a faster order is also a shorter one
+        assertTrue(optimized.getDistance() <= given.getDistance() + 1, "never worse than the given order");
+
+        tour.copyRouteFrom(optimized);
+        assertEquals(optimized.getStops(), tour.getStops());
+        assertEquals(optimized.getDistance(), tour.getDistance(), 1e-6);
+        assertFalse(routeService.needsRoute(tour));
+
+        // The stored route belongs to the stop order it was computed for
+        List<String> reversed = new ArrayList<>(tour.getStops());
+        Collections.reverse(reversed);
+        tour.setStops(reversed);
+        assertTrue(routeService.needsRoute(tour));
+    }
+}
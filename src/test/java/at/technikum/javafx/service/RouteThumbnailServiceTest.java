@@ -0,0 +1,143 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteThumbnailServiceTest {
+
+    @TempDir Path tempDir;
+
+    private OrsStubServer stub;
+    private OrsService orsService;
+    private RouteService routeService;
+    private RouteThumbnailService thumbnails;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        stub = new OrsStubServer().loadRecordings(OrsStubServer.DEFAULT_RECORDINGS);
+        Properties config = new Properties();
+        config.setProperty("ors.rate.geocode", "1000");
+        config.setProperty("ors.rate.directions", "1000");
+        GeocodeCache cache = new GeocodeCache(tempDir.resolve("cache.json"), 100, Duration.ofHours(1), Clock.systemUTC());
+        orsService = new OrsService(stub.getBaseUrl(), "test-key", config, cache);
+        routeService = new RouteService(orsService);
+        thumbnails = new RouteThumbnailService(routeService, new RouteImageRenderer(null),
+                tempDir.resolve("thumbnails"), 64L * 1024 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orsService.close();
+        stub.close();
+    }
+
+    @Test
+    void renderAsync_writesThePngOnceUnderItsRecordedPath() throws Exception {
+        Tour tour = routed("Wien", "Graz");
+        Path expected = thumbnails.pathFor(tour).orElseThrow();
+        assertTrue(expected.startsWith(tempDir.resolve("thumbnails")));
+        assertFalse(Files.exists(expected), "the path is known before anything is drawn");
+
+        List<CompletableFuture<Optional<Path>>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) calls.add(thumbnails.renderAsync(tour));
+        for (CompletableFuture<Optional<Path>> call : calls) assertEquals(expected, call.get().orElseThrow());
+
+        BufferedImage png = ImageIO.read(expected.toFile());
+        assertEquals(IRouteThumbnailService.LIST_WIDTH, png.getWidth());
+        assertEquals(IRouteThumbnailService.LIST_HEIGHT, png.getHeight());
+        assertEquals(expected, thumbnails.renderAsync(tour).get().orElseThrow());
+        assertEquals(1, thumbnails.getRendered());
+    }
+
+    @Test
+    void pathFor_isSharedBySameRouteAndChangesWithIt() {
+        Tour tour = routed("Wien", "Graz");
+        Tour copy = routed("Wien", "Graz");
+        Path path = thumbnails.pathFor(tour).orElseThrow();
+        assertEquals(path, thumbnails.pathFor(copy).orElseThrow());
+
+        tour.setToLocation("Linz");
+        assertTrue(thumbnails.pathFor(tour).isEmpty(), "no image for a route that is out of date");
+        routeService.applyRoute(tour);
+        assertNotEquals(path, thumbnails.pathFor(tour).orElseThrow());
+
+        copy.setTransportType("cycling-regular");
+        routeService.applyRoute(copy);
+        assertNotEquals(path, thumbnails.pathFor(copy).orElseThrow(), "the line colour depends on the profile");
+    }
+
+    @Test
+    void render_keepsReportImagesApartFromListThumbnails() throws Exception {
+        Tour tour = routed("Wien", "Graz");
+
+        Path report = thumbnails.render(tour, 720, 720).orElseThrow();
+
+        assertNotEquals(thumbnails.pathFor(tour).orElseThrow(), report);
+        assertEquals(720, ImageIO.read(report.toFile()).getWidth());
+        assertEquals(report, thumbnails.render(tour, 720, 720).orElseThrow());
+        assertEquals(1, thumbnails.getRendered());
+    }
+
+    @Test
+    void toursWithoutRoute_haveNoImage() throws Exception {
+        Tour tour = new Tour("Trip", "", "Wien", "Graz", "driving-car", 0, null, null);
+
+        assertTrue(thumbnails.pathFor(tour).isEmpty());
+        assertTrue(thumbnails.renderAsync(tour).get().isEmpty());
+        assertTrue(thumbnails.render(tour, 720, 720).isEmpty());
+        assertEquals(0, thumbnails.getRendered());
+    }
+
+    @Test
+    void leastRecentlyUsedImages_areDeletedBeyondTheCap() throws Exception {
+        Tour first = routed("Wien", "Graz");
+        Tour second = routed("Wien", "Linz");
+        Tour third = routed("Wien", "Graz");
+        third.setTransportType("cycling-regular");
+        routeService.applyRoute(third);
+        Path firstPath = thumbnails.renderAsync(first).get().orElseThrow();
+        Path secondPath = thumbnails.renderAsync(second).get().orElseThrow();
+        Path thirdPath = thumbnails.renderAsync(third).get().orElseThrow();
+        // Room for the first image and one of the others
+        long cap = Files.size(firstPath) + Math.max(Files.size(secondPath), Files.size(thirdPath));
+        Files.delete(thirdPath);
+
+        // A restart rebuilds the index from the directory; the first image is used again after that
+        RouteThumbnailService capped = new RouteThumbnailService(routeService, new RouteImageRenderer(null),
+                tempDir.resolve("thumbnails"), cap);
+        assertEquals(2, capped.size());
+        assertEquals(firstPath, capped.renderAsync(first).get().orElseThrow());
+
+        assertEquals(thirdPath, capped.renderAsync(third).get().orElseThrow());
+
+        assertTrue(Files.exists(firstPath));
+        assertFalse(Files.exists(secondPath), "the least recently used image makes room");
+        assertTrue(Files.exists(thirdPath));
+        assertEquals(2, capped.size());
+        assertTrue(capped.getBytes() <= cap);
+    }
+
+    private Tour routed(String from, String to) {
+        Tour tour = new Tour("Trip", "", from, to, "driving-car", 0, null, null);
+        routeService.applyRoute(tour);
+        return tour;
+    }
+}
@@ -0,0 +1,73 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>("test");
+
+    @Test
+    void execute_sharesOneCallBetweenConcurrentCallers() {
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flights.execute("wien", () -> {
+            executions.incrementAndGet();
+            return source;
+        });
+        CompletableFuture<String> second = flights.execute("wien", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        source.complete("result");
+
+        assertEquals("result", first.join());
+        assertEquals("result", second.join());
+        assertEquals(1, executions.get());
+        assertEquals(2, flights.getCalls());
+        assertEquals(1, flights.getDeduplicated());
+        assertEquals(0, flights.getInFlight());
+    }
+
+    @Test
+    void execute_startsNewCallOnceThePreviousOneCompleted() {
+        flights.execute("graz", () -> CompletableFuture.completedFuture("a")).join();
+        String second = flights.execute("graz", () -> CompletableFuture.completedFuture("b")).join();
+
+        assertEquals("b", second);
+        assertEquals(2, flights.getExecutions());
+        assertEquals(0, flights.getDeduplicated());
+    }
+
+    @Test
+    void cancellingOneCaller_keepsTheSharedCallAlive() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.execute("linz", () -> source);
+        CompletableFuture<String> second = flights.execute("linz", () -> source);
+
+        first.cancel(true);
+
+        assertFalse(source.isCancelled());
+        source.complete("ok");
+        assertEquals("ok", second.join());
+    }
+
+    @Test
+    void cancellingAllCallers_cancelsTheSharedCall() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.execute("salzburg", () -> source);
+        CompletableFuture<String> second = flights.execute("salzburg", () -> source);
+
+        first.cancel(true);
+        second.cancel(true);
+
+        assertTrue(source.isCancelled());
+        assertEquals(0, flights.getInFlight());
+    }
+}
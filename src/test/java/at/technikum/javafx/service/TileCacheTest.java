@@ -0,0 +1,132 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileCacheTest {
+
+    @TempDir Path tempDir;
+
+    private MutableClock clock;
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        dir = tempDir.resolve("tiles");
+    }
+
+    @Test
+    void get_returnsStoredTileWithEtagUntilItGoesStale() {
+        TileCache cache = new TileCache(dir, 1_000_000, Duration.ofDays(7), clock);
+        assertTrue(cache.get(3, 4, 2).isEmpty());
+
+        cache.put(3, 4, 2, tile(100, 7), "\"abc\"");
+
+        TileCache.Tile hit = cache.get(3, 4, 2).orElseThrow();
+        assertArrayEquals(tile(100, 7), hit.getData());
+        assertEquals("\"abc\"", hit.getEtag());
+        assertTrue(hit.isFresh());
+        assertTrue(Files.isRegularFile(dir.resolve("3/4/2.tile")), "sharded by zoom and column");
+
+        clock.advance(Duration.ofDays(8));
+        TileCache.Tile stale = cache.get(3, 4, 2).orElseThrow();
+        assertFalse(stale.isFresh(), "old tiles are still returned, but must be revalidated");
+
+        cache.revalidated(3, 4, 2);
+        assertTrue(cache.get(3, 4, 2).orElseThrow().isFresh());
+        assertEquals("\"abc\"", cache.get(3, 4, 2).orElseThrow().getEtag());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedTilesOverTheSizeCap() {
+        // Room for three 1000-byte tiles plus their headers
+        TileCache cache = new TileCache(dir, 3 * 1_020, Duration.ofDays(7), clock);
+        cache.put(5, 0, 0, tile(1_000, 0), null);
+        cache.put(5, 0, 1, tile(1_000, 1), null);
+        cache.put(5, 0, 2, tile(1_000, 2), null);
+        cache.get(5, 0, 0);
+
+        cache.put(5, 0, 3, tile(1_000, 3), null);
+
+        assertTrue(cache.get(5, 0, 1).isEmpty(), "least recently used tile goes first");
+        assertFalse(Files.exists(dir.resolve("5/0/1.tile")));
+        assertTrue(cache.get(5, 0, 0).isPresent());
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getBytes() <= 3 * 1_020);
+    }
+
+    @Test
+    void reopen_rebuildsIndexInUsageOrderAndSkipsStrayFiles() throws Exception {
+        TileCache cache = new TileCache(dir, 3 * 1_020, Duration.ofDays(7), clock);
+        cache.put(5, 0, 0, tile(1_000, 0), null);
+        clock.advance(Duration.ofMinutes(1));
+        cache.put(5, 0, 1, tile(1_000, 1), null);
+        clock.advance(Duration.ofMinutes(1));
+        cache.get(5, 0, 0);
+        Files.writeString(dir.resolve("5/0/notes.txt"), "not a tile");
+        Files.writeString(dir.resolve("5/0/9-123.tmp"), "half written");
+
+        TileCache reopened = new TileCache(dir, 3 * 1_020, Duration.ofDays(7), clock);
+        assertEquals(2, reopened.size());
+        reopened.put(5, 0, 2, tile(1_000, 2), null);
+        reopened.put(5, 0, 3, tile(1_000, 3), null);
+
+        assertTrue(reopened.get(5, 0, 1).isEmpty(), "5/0/1 was used least recently before the restart");
+        assertArrayEquals(tile(1_000, 0), reopened.get(5, 0, 0).orElseThrow().getData());
+    }
+
+    @Test
+    void get_dropsCorruptFiles() throws Exception {
+        TileCache cache = new TileCache(dir, 1_000_000, Duration.ofDays(7), clock);
+        cache.put(2, 1, 1, tile(10, 0), null);
+        Files.write(dir.resolve("2/1/1.tile"), new byte[]{1, 2, 3});
+
+        assertTrue(cache.get(2, 1, 1).isEmpty());
+        assertEquals(0, cache.size());
+        assertFalse(Files.exists(dir.resolve("2/1/1.tile")));
+    }
+
+    @Test
+    void importTiles_seedsFixtureTiles() throws Exception {
+        TileCache cache = new TileCache(dir, 1_000_000, Duration.ofDays(7), clock);
+
+        assertEquals(5, cache.importTiles(Path.of(getClass().getResource("/tiles").toURI())));
+
+        byte[] png = cache.get(1, 1, 0).orElseThrow().getData();
+        assertEquals((byte) 0x89, png[0]);
+        assertEquals('P', png[1]);
+        assertTrue(TileCache.isValid(1, 1, 1));
+        assertFalse(TileCache.isValid(1, 2, 0));
+        assertFalse(TileCache.isValid(-1, 0, 0));
+    }
+
+    private static byte[] tile(int size, int seed) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) data[i] = (byte) (i * 31 + seed);
+        return data;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration d) { now = now.plus(d); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+}
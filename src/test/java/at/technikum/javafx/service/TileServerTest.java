@@ -0,0 +1,169 @@
+package at.technikum.javafx.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileServerTest {
+
+    @TempDir Path tempDir;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final MutableClock clock = new MutableClock();
+    private HttpServer upstream;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private TileCache cache;
+    private TileServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Fake tile server: every tile is its own path as text, with a fixed ETag
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.createContext("/", exchange -> {
+            upstreamCalls.incrementAndGet();
+            try (exchange) {
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                Thread.sleep(100);
+                byte[] body = exchange.getRequestURI().getPath().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        upstream.start();
+        cache = new TileCache(tempDir.resolve("tiles"), 10_000_000, Duration.ofDays(7), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.close();
+        upstream.stop(0);
+    }
+
+    @Test
+    void seededTiles_areServedWithoutNetwork() throws Exception {
+        cache.importTiles(Path.of(getClass().getResource("/tiles").toURI()));
+        // Nothing listens on port 1, so any upstream request would fail
+        server = new TileServer(cache, "http://127.0.0.1:1/{z}/{x}/{y}.png").start();
+
+        HttpResponse<byte[]> tile = get("/tiles/1/0/1.png");
+        assertEquals(200, tile.statusCode());
+        assertEquals("image/png", tile.headers().firstValue("Content-Type").orElseThrow());
+        assertArrayEquals(Files.readAllBytes(Path.of(getClass().getResource("/tiles/1/0/1.png").toURI())), tile.body());
+
+        assertEquals(404, get("/tiles/2/0/0.png").statusCode(), "not cached and unreachable");
+        assertEquals(404, get("/tiles/1/2/0.png").statusCode(), "outside the tile pyramid");
+        assertEquals(1, server.getUpstreamRequests());
+    }
+
+    @Test
+    void missingTiles_areFetchedOnceAndThenServedFromDisk() throws Exception {
+        server = new TileServer(cache, upstreamUrl()).start();
+
+        List<CompletableFuture<HttpResponse<byte[]>>> concurrent = new ArrayList<>();
+        for (int i = 0; i < 6; i++) concurrent.add(getAsync("/tiles/12/2232/1420.png"));
+        for (CompletableFuture<HttpResponse<byte[]>> response : concurrent) {
+            assertEquals("/12/2232/1420.png", new String(response.get().body(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, upstreamCalls.get(), "concurrent requests for one tile share one download");
+
+        assertEquals(200, get("/tiles/12/2232/1420.png").statusCode());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("\"v1\"", cache.get(12, 2232, 1420).orElseThrow().getEtag());
+    }
+
+    @Test
+    void staleTiles_areRevalidatedAndServedWhileOffline() throws Exception {
+        server = new TileServer(cache, upstreamUrl()).start();
+        get("/tiles/3/1/2.png");
+        clock.advance(Duration.ofDays(8));
+
+        HttpResponse<byte[]> revalidated = get("/tiles/3/1/2.png");
+        assertEquals("/3/1/2.png", new String(revalidated.body(), StandardCharsets.UTF_8));
+        assertEquals(1, notModified.get());
+        assertEquals(1, server.getRevalidations());
+        assertTrue(cache.get(3, 1, 2).orElseThrow().isFresh());
+
+        clock.advance(Duration.ofDays(8));
+        upstream.stop(0);
+        HttpResponse<byte[]> offline = get("/tiles/3/1/2.png");
+        assertEquals(200, offline.statusCode());
+        assertEquals("/3/1/2.png", new String(offline.body(), StandardCharsets.UTF_8));
+        assertEquals(1, server.getStaleServed());
+    }
+
+    @Test
+    void leafletPage_isServedFromTheJarWithoutLeavingTheAssetRoot() throws Exception {
+        server = new TileServer(cache, upstreamUrl()).start();
+
+        HttpResponse<byte[]> page = client.send(HttpRequest.newBuilder(URI.create(server.getMapUrl())).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, page.statusCode());
+        assertTrue(page.headers().firstValue("Content-Type").orElseThrow().startsWith("text/html"));
+        assertTrue(new String(page.body(), StandardCharsets.UTF_8).contains("/tiles/{z}/{x}/{y}.png"));
+
+        // Bundled by the build, not fetched from a CDN
+        HttpResponse<byte[]> leaflet = get("/leaflet/dist/leaflet.js");
+        assertEquals(200, leaflet.statusCode());
+        assertEquals("application/javascript", leaflet.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(200, get("/leaflet/dist/images/marker-icon.png").statusCode());
+
+        assertEquals(404, get("/leaflet/../ors.properties").statusCode());
+        assertEquals(404, get("/leaflet/missing.js").statusCode());
+    }
+
+    private String upstreamUrl() {
+        return "http://127.0.0.1:" + upstream.getAddress().getPort() + "/{z}/{x}/{y}.png";
+    }
+
+    private HttpResponse<byte[]> get(String path) throws Exception {
+        return getAsync(path).get();
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> getAsync(String path) {
+        return client.sendAsync(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration d) { now = now.plus(d); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+}
@@ -0,0 +1,62 @@
+package at.technikum.javafx.service;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Time and tour cost of the stop order optimizer against plain nearest neighbour, on random city-like
+// instances with a one-way bias. Not a unit test; run the main method, e.g. TourOrderOptimizerBenchmark 50 200
+public class TourOrderOptimizerBenchmark {
+
+    public static void main(String[] args) {
+        int stops = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int instances = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Random random = new Random(1);
+        double[][][] costs = new double[instances][][];
+        for (int i = 0; i < instances; i++) costs[i] = instance(random, stops + 2);
+        System.out.printf(Locale.ROOT, "%d instances with %d stops, %d cores%n",
+                instances, stops, Runtime.getRuntime().availableProcessors());
+
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        report("1 thread, 1 restart", new TourOrderOptimizer(new ForkJoinPool(1), 1), costs);
+        report("1 thread, 16 restarts", new TourOrderOptimizer(new ForkJoinPool(1), 16), costs);
+        report("common pool (" + parallelism + "), 16 restarts", new TourOrderOptimizer(ForkJoinPool.commonPool(), 16), costs);
+        report("default", new TourOrderOptimizer(), costs);
+    }
+
+    private static void report(String name, TourOrderOptimizer optimizer, double[][][] costs) {
+        // Warm up before measuring
+        for (int i = 0; i < Math.min(20, costs.length); i++) optimizer.optimize(costs[i]);
+
+        double greedy = 0, optimized = 0;
+        long worst = 0, total = 0;
+        for (double[][] cost : costs) {
+            long start = System.nanoTime();
+            int[] order = optimizer.optimize(cost);
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            worst = Math.max(worst, elapsed);
+            greedy += TourOrderOptimizer.cost(cost, TourOrderOptimizer.nearestNeighbour(cost, null));
+            optimized += TourOrderOptimizer.cost(cost, order);
+        }
+        System.out.printf(Locale.ROOT, "%-28s %8.2f ms/op %8.2f ms worst   %5.1f%% shorter than nearest neighbour%n",
+                name, total / 1e6 / costs.length, worst / 1e6, 100 * (1 - optimized / greedy));
+    }
+
+    // Travel times in seconds between random points in a 20 km square, 30 km/h, up to 30% one-way detour
+    private static double[][] instance(Random random, int n) {
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * 20_000;
+            y[i] = random.nextDouble() * 20_000;
+        }
+        double[][] cost = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double metres = Math.abs(x[i] - x[j]) + Math.abs(y[i] - y[j]);
+                cost[i][j] = i == j ? 0 : metres / (30 / 3.6) * (1 + random.nextDouble() * 0.3);
+            }
+        }
+        return cost;
+    }
+}
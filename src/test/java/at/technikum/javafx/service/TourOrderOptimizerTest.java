@@ -0,0 +1,141 @@
+package at.technikum.javafx.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourOrderOptimizerTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final TourOrderOptimizer optimizer = new TourOrderOptimizer(pool, 8);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void optimize_keepsStartAndDestinationAndVisitsEveryStopOnce() {
+        double[][] cost = euclidean(randomPoints(new Random(3), 20));
+
+        int[] order = optimizer.optimize(cost);
+
+        assertEquals(0, order[0]);
+        assertEquals(19, order[19]);
+        assertArrayEquals(IntStream.range(0, 20).toArray(), IntStream.of(order).sorted().toArray());
+    }
+
+    @Test
+    void optimize_findsTheOptimumOfSmallAsymmetricInstances() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            int n = 4 + random.nextInt(5);
+            double[][] cost = euclidean(randomPoints(random, n));
+            // One-way detours make the matrix asymmetric
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) cost[i][j] *= 1 + random.nextDouble() * 0.5;
+            }
+
+            double best = bruteForce(cost);
+            assertEquals(best, TourOrderOptimizer.cost(cost, optimizer.optimize(cost)), 1e-6, "round " + round);
+        }
+    }
+
+    @Test
+    void heuristic_staysCloseToTheOptimumJustAboveTheExactLimit() {
+        Random random = new Random(23);
+        for (int round = 0; round < 10; round++) {
+            double[][] cost = euclidean(randomPoints(random, TourOrderOptimizer.EXACT_STOPS + 2));
+
+            double exact = TourOrderOptimizer.cost(cost, TourOrderOptimizer.exact(cost));
+            double heuristic = TourOrderOptimizer.cost(cost, optimizer.heuristic(cost));
+            assertTrue(heuristic <= exact * 1.03, "round " + round + ": " + heuristic + " vs " + exact);
+        }
+    }
+
+    @Test
+    void optimize_avoidsUnroutablePairs() {
+        // Straight line 0..5; the direct hop from 1 to 2 cannot be routed
+        double[][] cost = euclidean(new double[][]{{0, 0}, {3, 0}, {1, 0}, {4, 0}, {2, 0}, {5, 0}});
+        cost[2][4] = Double.NaN;
+        cost[4][1] = Double.POSITIVE_INFINITY;
+
+        int[] order = optimizer.optimize(cost);
+
+        assertTrue(TourOrderOptimizer.cost(cost, order) < TourOrderOptimizer.UNROUTABLE);
+    }
+
+    @Test
+    void optimize_returnsShortInputsUnchanged() {
+        assertArrayEquals(new int[]{0, 1, 2}, optimizer.optimize(new double[][]{{0, 9, 1}, {1, 0, 9}, {9, 1, 0}}));
+        assertArrayEquals(new int[0], optimizer.optimize(new double[0][0]));
+        assertThrows(IllegalArgumentException.class, () -> optimizer.optimize(new double[][]{{0, 1}, {1}}));
+    }
+
+    @Test
+    void optimize_fiftyStopsInWellUnderASecondAndBeatsNearestNeighbour() {
+        double[][] cost = euclidean(randomPoints(new Random(42), 52));
+        optimizer.optimize(cost); // warm up
+
+        long start = System.nanoTime();
+        int[] order = optimizer.optimize(cost);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(millis < 500, "took " + millis + " ms");
+        double greedy = TourOrderOptimizer.cost(cost, TourOrderOptimizer.nearestNeighbour(cost, null));
+        assertTrue(TourOrderOptimizer.cost(cost, order) < greedy);
+    }
+
+    @Test
+    void optimize_isDeterministic() {
+        double[][] cost = euclidean(randomPoints(new Random(5), 40));
+
+        assertArrayEquals(optimizer.optimize(cost), new TourOrderOptimizer(ForkJoinPool.commonPool(), 8).optimize(cost));
+    }
+
+    static double[][] randomPoints(Random random, int n) {
+        double[][] points = new double[n][];
+        for (int i = 0; i < n; i++) points[i] = new double[]{random.nextDouble() * 100, random.nextDouble() * 100};
+        return points;
+    }
+
+    static double[][] euclidean(double[][] points) {
+        int n = points.length;
+        double[][] cost = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                cost[i][j] = Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]);
+            }
+        }
+        return cost;
+    }
+
+    // Tries every order of the stops between the fixed start and destination
+    private static double bruteForce(double[][] cost) {
+        int n = cost.length;
+        int[] order = IntStream.range(0, n).toArray();
+        return permute(cost, order, 1);
+    }
+
+    private static double permute(double[][] cost, int[] order, int k) {
+        if (k >= order.length - 2) return TourOrderOptimizer.cost(cost, order);
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = k; i < order.length - 1; i++) {
+            swap(order, k, i);
+            best = Math.min(best, permute(cost, order, k + 1));
+            swap(order, k, i);
+        }
+        return best;
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
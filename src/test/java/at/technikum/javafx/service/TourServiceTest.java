@@ -1,5 +1,6 @@
 package at.technikum.javafx.service;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -26,6 +28,8 @@ class TourServiceTest {
     private TourRepository tourRepo;
     @Mock
     private EventManager eventManager;
+    @Mock
+    private IRouteThumbnailService routeThumbnailService;
 
     @InjectMocks
     private TourService service;
@@ -103,6 +107,35 @@ class TourServiceTest {
         verify(eventManager).publish(Events.TOURS_CHANGED, t);
     }
 
+    @Test
+    void saveRoute_persistsWithoutReloadingTheList() {
+        t.setId(7L);
+        t.setRouteKey("driving-car|a|b");
+        when(routeThumbnailService.pathFor(t)).thenReturn(Optional.of(Path.of("thumbs", "ab", "abcd.png")));
+        when(tourRepo.save(t)).thenReturn(t);
+
+        service.saveRoute(t);
+
+        assertEquals(Path.of("thumbs", "ab", "abcd.png").toString(), t.getRouteImagePath());
+        verify(tourRepo).save(t);
+        verify(routeThumbnailService).renderAsync(t);
+        verify(eventManager, never()).publish(any(), any());
+    }
+
+    @Test
+    void updateTour_recordsThumbnailPathAndRendersItAfterSaving() {
+        t.setId(7L);
+        when(routeThumbnailService.pathFor(t)).thenReturn(Optional.of(Path.of("thumbs", "ab", "abcd.png")));
+        when(tourRepo.save(t)).thenReturn(t);
+
+        service.updateTour(t);
+
+        assertEquals(Path.of("thumbs", "ab", "abcd.png").toString(), t.getRouteImagePath());
+        InOrder order = inOrder(tourRepo, routeThumbnailService);
+        order.verify(tourRepo).save(t);
+        order.verify(routeThumbnailService).renderAsync(t);
+    }
+
     @Test
     void deleteTour_callsRepoAndPublishes() {
         t.setId(8L);
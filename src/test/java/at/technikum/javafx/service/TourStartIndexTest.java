@@ -0,0 +1,90 @@
+package at.technikum.javafx.service;
+
+import at.technikum.javafx.entity.Tour;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourStartIndexTest {
+
+    // Square with a square hole, around Vienna
+    private static final Isochrone DONUT = new Isochrone(16.4, 48.2, 1800, List.of(
+            new double[]{16.2, 48.0, 16.6, 48.0, 16.6, 48.4, 16.2, 48.4, 16.2, 48.0},
+            new double[]{16.35, 48.15, 16.45, 48.15, 16.45, 48.25, 16.35, 48.25}
+    ));
+
+    @Test
+    void isochrone_containsFollowsEvenOddRule() {
+        assertTrue(DONUT.contains(16.25, 48.05));
+        assertFalse(DONUT.contains(16.4, 48.2), "inside the hole");
+        assertFalse(DONUT.contains(16.7, 48.2));
+        assertFalse(DONUT.contains(16.4, 47.9));
+        assertArrayEquals(new double[]{16.2, 48.0, 16.6, 48.4}, DONUT.getBbox(), 1e-12);
+    }
+
+    @Test
+    void within_skipsToursWithoutCoordinates() {
+        Tour located = tour(1, 16.25, 48.05);
+        Tour unknown = new Tour();
+        unknown.setId(2L);
+
+        TourStartIndex index = TourStartIndex.of(List.of(located, unknown));
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(located), index.within(DONUT));
+    }
+
+    @Test
+    void within_matchesBruteForceOnLargeCatalogue() {
+        Random random = new Random(3);
+        // Irregular star-shaped polygon with many edges, like an ORS isochrone
+        double[] ring = new double[2 * 400];
+        for (int i = 0; i < 400; i++) {
+            double angle = 2 * Math.PI * i / 400;
+            double radius = 0.3 + 0.2 * random.nextDouble();
+            ring[2 * i] = 15.4 + Math.cos(angle) * radius * 1.5;
+            ring[2 * i + 1] = 47.1 + Math.sin(angle) * radius;
+        }
+        Isochrone area = new Isochrone(15.4, 47.1, 3600, List.of(ring));
+
+        List<Tour> tours = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            // Spread over Austria
+            tours.add(tour(i, 9.5 + random.nextDouble() * 7.5, 46.4 + random.nextDouble() * 2.6));
+        }
+        TourStartIndex index = TourStartIndex.of(tours);
+
+        List<Tour> expected = tours.stream()
+                .filter(t -> area.contains(t.getFromLongitude(), t.getFromLatitude()))
+                .toList();
+        List<Tour> actual = new ArrayList<>(index.within(area));
+        actual.sort(Comparator.comparing(Tour::getId));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void within_handlesNegativeCoordinates() {
+        Isochrone area = new Isochrone(-0.1, 51.5, 900, List.of(new double[]{-0.2, 51.4, 0.1, 51.4, 0.1, 51.6, -0.2, 51.6}));
+        Tour west = tour(1, -0.15, 51.5), east = tour(2, 0.05, 51.55), outside = tour(3, -0.25, 51.5);
+
+        List<Tour> found = TourStartIndex.of(List.of(west, east, outside)).within(area);
+
+        assertEquals(2, found.size());
+        assertTrue(found.containsAll(List.of(west, east)));
+    }
+
+    private static Tour tour(long id, double lon, double lat) {
+        Tour tour = new Tour();
+        tour.setId(id);
+        tour.setFromLongitude(lon);
+        tour.setFromLatitude(lat);
+        return tour;
+    }
+}
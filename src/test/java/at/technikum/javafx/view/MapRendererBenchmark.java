@@ -0,0 +1,118 @@
+package at.technikum.javafx.view;
+
+import at.technikum.javafx.service.RouteGeometry;
+import at.technikum.javafx.service.RouteResult;
+import at.technikum.javafx.service.TileCache;
+import at.technikum.javafx.service.TileServer;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.concurrent.Worker;
+import javafx.scene.Scene;
+import javafx.scene.layout.StackPane;
+import javafx.scene.web.WebView;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+// Time to first frame and memory of the two map renderers, each started in a fresh JVM so neither profits
+// from the other's warm-up. Not a unit test; run the main method with "webview" or "canvas", e.g.
+// MapRendererBenchmark canvas. Tiles come from the test fixtures and the upstream is unreachable, so
+// nothing is downloaded; Leaflet comes from the resources like in the app.
+public class MapRendererBenchmark extends Application {
+
+    private static final double[] WORLD = {-170, -80, 170, 80};
+
+    private TileServer tileServer;
+    private long start;
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) throws Exception {
+        String renderer = getParameters().getRaw().isEmpty() ? "canvas" : getParameters().getRaw().get(0);
+        Path dir = Files.createTempDirectory("map-benchmark");
+        TileCache cache = new TileCache(dir, 64L * 1024 * 1024, Duration.ofDays(7), Clock.systemUTC());
+        cache.importTiles(Path.of(MapRendererBenchmark.class.getResource("/tiles").toURI()));
+        tileServer = new TileServer(cache, "http://127.0.0.1:9/{z}/{x}/{y}.png").start();
+        // The fixtures hold zoom 0 and 1; in a 640 x 480 window both maps show the world at zoom 1
+        RouteResult route = new RouteResult(0, 0, RouteGeometry.of(-9.1, 38.7, 2.35, 48.86, 16.37, 48.21, 37.6, 55.75),
+                WORLD);
+        long heapBefore = usedHeap();
+        long rssBefore = rss();
+
+        StackPane root = new StackPane();
+        stage.setScene(new Scene(root, 640, 480));
+        start = System.nanoTime();
+        BooleanSupplier ready;
+        if ("webview".equals(renderer)) {
+            WebView web = new WebView();
+            root.getChildren().add(web);
+            web.getEngine().getLoadWorker().stateProperty().addListener((obs, oldState, newState) -> {
+                if (newState == Worker.State.SUCCEEDED) {
+                    web.getEngine().executeScript("map.setView([30, 15], 1, { animate: false });"
+                            + "L.polyline([[38.7, -9.1], [48.86, 2.35], [48.21, 16.37], [55.75, 37.6]]).addTo(map);");
+                }
+            });
+            web.getEngine().load(tileServer.getMapUrl());
+            ready = () -> web.getEngine().getLoadWorker().getState() == Worker.State.SUCCEEDED
+                    && Boolean.TRUE.equals(web.getEngine().executeScript(
+                    "document.querySelectorAll('.leaflet-tile-loaded').length > 0"
+                            + " && document.querySelectorAll('.leaflet-tile:not(.leaflet-tile-loaded)').length === 0"));
+        } else {
+            CanvasMapView map = new CanvasMapView(tileServer);
+            root.getChildren().add(map);
+            map.showRoutes(Map.of("route", route), WORLD);
+            ready = () -> map.getFrames() > 0 && map.getCachedTiles() > 0 && !map.isLoading();
+        }
+        stage.show();
+
+        // Checked once per pulse, so the time includes the frame that shows the tiles
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (!ready.getAsBoolean()) return;
+                stop();
+                double firstFrame = (System.nanoTime() - start) / 1e6;
+                System.out.printf(Locale.ROOT, "%s: first frame with tiles after %.0f ms%n", renderer, firstFrame);
+                System.out.printf(Locale.ROOT, "%s: heap +%.1f MB, RSS +%.1f MB (RSS %.1f MB)%n", renderer,
+                        (usedHeap() - heapBefore) / 1e6, (rss() - rssBefore) / 1e6, rss() / 1e6);
+                Platform.exit();
+            }
+        }.start();
+    }
+
+    @Override
+    public void stop() {
+        if (tileServer != null) tileServer.close();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Resident set from /proc, which also counts the native memory of the browser engine; 0 elsewhere
+    private static long rss() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not on Linux
+        }
+        return 0;
+    }
+}
@@ -24,6 +24,7 @@ class TourDialogViewTest {
     private TextField   nameField;
     private TextArea    descriptionField;
     private TextField   fromField;
+    private TextArea    stopsField;
     private TextField   toField;
     private ComboBox<String> transportCombo;
 
@@ -40,6 +41,7 @@ class TourDialogViewTest {
         nameField        = new TextField();
         descriptionField = new TextArea();
         fromField        = new TextField();
+        stopsField       = new TextArea();
         toField          = new TextField();
         transportCombo   = new ComboBox<>();
 
@@ -49,6 +51,7 @@ class TourDialogViewTest {
                 case "nameField"        -> f.set(controller, nameField);
                 case "descriptionField" -> f.set(controller, descriptionField);
                 case "fromField"        -> f.set(controller, fromField);
+                case "stopsField"       -> f.set(controller, stopsField);
                 case "toField"          -> f.set(controller, toField);
                 case "transportCombo"   -> f.set(controller, transportCombo);
             }
@@ -4,8 +4,10 @@ import at.technikum.javafx.entity.Tour;
 import at.technikum.javafx.entity.TourLog;
 import at.technikum.javafx.event.EventManager;
 import at.technikum.javafx.event.Events;
+import at.technikum.javafx.service.IRouteEnrichmentService;
 import at.technikum.javafx.service.ITourLogService;
 import at.technikum.javafx.service.ITourService;
+import at.technikum.javafx.service.RouteEnrichmentResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.io.TempDir;
@@ -27,6 +29,7 @@ class MenuViewModelTest {
     @Mock ITourService tourService;
     @Mock ITourLogService tourLogService;
     @Mock EventManager eventManager;
+    @Mock IRouteEnrichmentService routeEnrichmentService;
 
     @InjectMocks MenuViewModel vm;
 
@@ -58,6 +61,55 @@ class MenuViewModelTest {
         verify(eventManager).publish(eq(Events.TOURS_CHANGED), isNull());
     }
 
+    @Test
+    void importAllTours_withRoutes_enrichesBeforeSaving() throws Exception {
+        Tour t1 = new Tour(); t1.setName("A");
+        Tour t2 = new Tour(); t2.setName("B");
+
+        File input = new File(tempDir, "routes.json");
+        mapper.writeValue(input, new Tour[]{t1, t2});
+
+        when(routeEnrichmentService.enrichAll(anyList(), any()))
+                .thenReturn(new RouteEnrichmentResult(2, List.of()));
+        when(tourService.createTour(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        vm.importAllTours(input, true, null);
+
+        InOrder order = inOrder(routeEnrichmentService, tourService);
+        order.verify(routeEnrichmentService).enrichAll(argThat(list -> list.size() == 2), isNull());
+        order.verify(tourService, times(2)).createTour(any());
+    }
+
+    @Test
+    void importAllTours_withoutRoutes_skipsEnrichment() throws Exception {
+        Tour t1 = new Tour(); t1.setName("A");
+        File input = new File(tempDir, "plain.json");
+        mapper.writeValue(input, new Tour[]{t1});
+        when(tourService.createTour(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        vm.importAllTours(input);
+
+        verifyNoInteractions(routeEnrichmentService);
+    }
+
+    @Test
+    void refreshDistances_savesOnlyChangedTours() throws Exception {
+        Tour stale = new Tour(); stale.setName("stale"); stale.setEstimatedTime("00:00:00");
+        Tour current = new Tour(); current.setName("current"); current.setEstimatedTime("01:00:00");
+        when(tourService.getAllTours()).thenReturn(List.of(stale, current));
+        when(routeEnrichmentService.refreshMetrics(anyList(), any())).thenAnswer(inv -> {
+            stale.setDistance(1234.5);
+            stale.setEstimatedTime("00:02:03");
+            return new RouteEnrichmentResult(1, List.of());
+        });
+
+        RouteEnrichmentResult result = vm.refreshDistances(null);
+
+        assertEquals(1, result.getEnriched());
+        verify(tourService).saveRouteMetrics(List.of(stale));
+        verify(tourService, never()).updateTour(any());
+    }
+
     @Test
     void importAllTours_badJson_throws() {
         File bad = new File(tempDir, "bad.json");
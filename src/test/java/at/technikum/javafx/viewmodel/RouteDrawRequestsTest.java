@@ -0,0 +1,78 @@
+package at.technikum.javafx.viewmodel;
+
+import at.technikum.javafx.entity.Tour;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteDrawRequestsTest {
+
+    private RouteDrawRequests draws;
+    private Tour t1, t2;
+
+    @BeforeEach
+    void setUp() {
+        draws = new RouteDrawRequests();
+        t1 = new Tour(); t1.setId(1L); t1.setName("Alpha");
+        t2 = new Tour(); t2.setId(2L); t2.setName("Beta");
+    }
+
+    @Test
+    void request_decidesBetweenDrawingOverviewAndClearing() {
+        assertEquals(RouteDrawRequests.Action.DRAW_LATER, draws.request(t1, false));
+        assertSame(t1, draws.getRequested());
+        assertEquals(RouteDrawRequests.Action.KEEP_OVERVIEW, draws.request(t2, true));
+        assertSame(t2, draws.getRequested());
+        assertEquals(RouteDrawRequests.Action.CLEAR, draws.request(null, false));
+        assertNull(draws.getRequested());
+    }
+
+    @Test
+    void newSelection_cancelsTheCallOfThePreviousOne() {
+        draws.request(t1, false);
+        CompletableFuture<Tour> call = new CompletableFuture<>();
+        draws.started(call);
+
+        draws.request(t2, false);
+
+        assertTrue(call.isCancelled());
+    }
+
+    @Test
+    void finished_dropsResultsOfAnOlderSelection() {
+        draws.request(t1, false);
+        long first = draws.getGeneration();
+        CompletableFuture<Tour> call = new CompletableFuture<>();
+        draws.started(call);
+        draws.request(t1, false);
+
+        assertFalse(draws.isCurrent(first));
+        assertFalse(draws.finished(call, first));
+    }
+
+    @Test
+    void finished_keepsTheCurrentResultAndNoLongerCancelsIt() {
+        draws.request(t1, false);
+        long generation = draws.getGeneration();
+        CompletableFuture<Tour> call = new CompletableFuture<>();
+        draws.started(call);
+        call.complete(t1);
+
+        assertTrue(draws.finished(call, generation));
+        draws.request(t2, false);
+        assertFalse(call.isCancelled());
+    }
+
+    @Test
+    void finished_ignoresACancelledCall() {
+        draws.request(t1, false);
+        CompletableFuture<Tour> call = new CompletableFuture<>();
+        draws.started(call);
+        call.cancel(true);
+
+        assertFalse(draws.finished(call, draws.getGeneration()));
+    }
+}
@@ -1,10 +1,14 @@
 package at.technikum.javafx.viewmodel;
 
 import at.technikum.javafx.entity.Tour;
+import at.technikum.javafx.service.IRouteService;
 import javafx.collections.ObservableList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class TourDialogViewModelTest {
@@ -87,4 +91,33 @@ class TourDialogViewModelTest {
         assertEquals("newTo", existing.getToLocation());
         assertEquals("foot-walking", existing.getTransportType());
     }
-}
\ No newline at end of file
+
+    @Test
+    void stops_areOnePerLineAndSkipBlankLines() {
+        Tour t = new Tour();
+        t.setStops(List.of("Melk", "Krems"));
+        vm.setTour(t);
+        assertEquals("Melk\nKrems", vm.stopsProperty().get());
+
+        vm.stopsProperty().set("  Tulln \r\n\nKrems\n");
+        assertEquals(List.of("Tulln", "Krems"), vm.createTour().getStops());
+
+        vm.stopsProperty().set(null);
+        assertTrue(vm.updateTour(t).getStops().isEmpty());
+    }
+
+    @Test
+    void stops_overTheRoutingLimitAreRejectedBeforeTheTourChanges() {
+        Tour t = new Tour();
+        t.setName("old");
+        vm.nameProperty().set("new");
+        vm.stopsProperty().set(String.join("\n", Collections.nCopies(IRouteService.MAX_STOPS + 1, "Melk")));
+
+        assertThrows(IllegalArgumentException.class, () -> vm.createTour());
+        assertThrows(IllegalArgumentException.class, () -> vm.updateTour(t));
+        assertEquals("old", t.getName());
+
+        vm.stopsProperty().set(String.join("\n", Collections.nCopies(IRouteService.MAX_STOPS, "Melk")));
+        assertEquals(IRouteService.MAX_STOPS, vm.createTour().getStops().size());
+    }
+}
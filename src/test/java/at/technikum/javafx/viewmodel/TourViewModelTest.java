@@ -6,6 +6,7 @@ import at.technikum.javafx.event.EventManager;
 import at.technikum.javafx.event.Events;
 import at.technikum.javafx.service.ITourService;
 import at.technikum.javafx.service.ITourLogService;
+import at.technikum.javafx.service.Isochrone;
 import javafx.collections.transformation.FilteredList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -90,4 +91,23 @@ class TourViewModelTest {
         assertEquals(1, filtered.size());
         assertEquals(t1, filtered.get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void reachableArea_narrowsSearchResultsUntilCleared() {
+        t1.setFromLongitude(16.37); t1.setFromLatitude(48.21);
+        t2.setFromLongitude(15.44); t2.setFromLatitude(47.07);
+        var realMgr = new EventManager();
+        vm = new TourViewModel(tourService, logService, realMgr);
+        Isochrone aroundVienna = new Isochrone(16.37, 48.21, 1800,
+                List.of(new double[]{16.0, 48.0, 16.8, 48.0, 16.8, 48.4, 16.0, 48.4}));
+
+        realMgr.publish(Events.REACHABLE_AREA_SELECTED, aroundVienna);
+        assertEquals(List.of(t1), List.copyOf(vm.getTours()));
+
+        realMgr.publish(Events.SEARCH_TERM_SELECTED, "beta");
+        assertTrue(vm.getTours().isEmpty(), "Both filters apply");
+
+        realMgr.publish(Events.REACHABLE_AREA_SELECTED, null);
+        assertEquals(List.of(t2), List.copyOf(vm.getTours()));
+    }
+}